@@ -0,0 +1,160 @@
+#!/bin/bash
+#
+# benchmark-startup.sh compares how long the server takes to start, and how much memory it holds
+# once Womtool has warmed up, between two commits. Use it to measure changes to how the server
+# starts or where WDL is parsed, such as moving Womtool out of the server into wdl-worker
+# processes.
+#
+# Each commit is checked out into a temporary worktree and built with bootJar, plus installDist for
+# wdl-worker if the commit has it. The server jar is then started several times with Womtool
+# warm-up on. For each start it records:
+#   ready_ms          - time from launching the JVM until /version answers
+#   server_rss_mib    - peak resident memory of the server process
+#   workers_rss_mib   - peak resident memory of its child processes, the WDL workers if any
+#   total_rss_mib     - peak resident memory of the server and its children together
+# Memory is sampled from /proc, so this only runs on Linux.
+
+function usage {
+    cat <<EOF
+Usage: $0 <before> [<after>] [<runs>]
+
+  <before> and <after> are git commits to compare. <after> defaults to HEAD.
+  <runs> is the number of times each server is started. It defaults to 3.
+
+  The environment variable STARTUP_SETTLE_SECONDS sets how long memory is sampled after the
+  server is ready, which must be long enough for warm-up to finish. It defaults to 60.
+  STARTUP_PORT sets the port the server listens on. It defaults to 18080.
+EOF
+    exit 1
+}
+
+if [ $# -lt 1 ] || [ "$1" = "help" ] || [ "$1" = "?" ]; then
+    usage
+fi
+if [ ! -d /proc/self ]; then
+    echo "Resident memory is read from /proc, which this system does not have" >&2
+    exit 1
+fi
+
+script_dir="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." &>/dev/null && pwd)"
+before=$1
+after=${2:-HEAD}
+runs=${3:-3}
+settle_seconds=${STARTUP_SETTLE_SECONDS:-60}
+port=${STARTUP_PORT:-18080}
+work_dir=$(mktemp -d)
+
+function cleanup {
+    for worktree in "${work_dir}"/tree-*; do
+        [ -d "${worktree}" ] && git -C "${script_dir}" worktree remove --force "${worktree}"
+    done
+    rm -rf "${work_dir}"
+}
+trap cleanup EXIT
+
+# Print a process and all its descendants
+function process_tree {
+    local pid=$1
+    echo "${pid}"
+    local child
+    for child in $(cat /proc/"${pid}"/task/*/children 2>/dev/null); do
+        process_tree "${child}"
+    done
+}
+
+# Print the resident memory of a process in KiB, or 0 if it has exited
+function rss_kib {
+    local kib
+    kib=$(awk '/^VmRSS:/ { print $2 }' /proc/"$1"/status 2>/dev/null)
+    echo "${kib:-0}"
+}
+
+# Check out and build a commit, printing the directory it was built in
+function build {
+    local commit=$1
+    local worktree
+    worktree="${work_dir}/tree-$(git -C "${script_dir}" rev-parse --short "${commit}")"
+    git -C "${script_dir}" worktree add --detach "${worktree}" "${commit}" >&2 || exit 1
+    local tasks=(:service:bootJar)
+    if [ -d "${worktree}/wdl-worker" ]; then
+        tasks+=(:wdl-worker:installDist)
+    fi
+    (cd "${worktree}" && ./gradlew -q "${tasks[@]}") >&2 || exit 1
+    echo "${worktree}"
+}
+
+# Start the server built in a worktree once, printing its measurements
+function measure {
+    local worktree=$1
+    local jar
+    jar=$(ls "${worktree}"/service/build/libs/*.jar | grep -v -- '-plain\.jar$' | head -n 1)
+    local args=(
+        --server.port="${port}"
+        --axonserver.sam.registerAxonServiceAccount=false
+        --axonserver.status-check.enabled=false
+        --axonserver.womtool.warmUp=true
+        --terra.common.tracing.stackdriverExportEnabled=false
+    )
+    if [ -d "${worktree}/wdl-worker/build/install/wdl-worker/lib" ]; then
+        args+=(--axonserver.womtool.workerClasspath="${worktree}/wdl-worker/build/install/wdl-worker/lib/*")
+    fi
+
+    # Run outside the worktree, so no local configuration is picked up.
+    local start
+    start=$(date +%s%N)
+    (cd "${work_dir}" && exec java -jar "${jar}" "${args[@]}") >"${work_dir}/server.log" 2>&1 &
+    local server=$!
+
+    until curl -sf -o /dev/null "http://localhost:${port}/version"; do
+        if ! kill -0 "${server}" 2>/dev/null; then
+            echo "Server exited before it was ready; see its log:" >&2
+            tail -n 50 "${work_dir}/server.log" >&2
+            exit 1
+        fi
+        sleep 0.1
+    done
+    local ready_ms=$((($(date +%s%N) - start) / 1000000))
+
+    local server_peak=0 workers_peak=0 total_peak=0
+    local deadline=$((SECONDS + settle_seconds))
+    while [ ${SECONDS} -lt ${deadline} ]; do
+        local server_kib workers_kib=0 pid
+        server_kib=$(rss_kib "${server}")
+        for pid in $(process_tree "${server}" | tail -n +2); do
+            workers_kib=$((workers_kib + $(rss_kib "${pid}")))
+        done
+        [ "${server_kib}" -gt "${server_peak}" ] && server_peak=${server_kib}
+        [ "${workers_kib}" -gt "${workers_peak}" ] && workers_peak=${workers_kib}
+        [ $((server_kib + workers_kib)) -gt "${total_peak}" ] && total_peak=$((server_kib + workers_kib))
+        sleep 0.5
+    done
+
+    # Workers exit once the server's end of their stdin is closed.
+    kill "${server}"
+    wait "${server}" 2>/dev/null
+    echo "${ready_ms} $((server_peak / 1024)) $((workers_peak / 1024)) $((total_peak / 1024))"
+}
+
+# Print the median of the numbers on stdin
+function median {
+    sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+printf "%-12s %-4s %10s %16s %17s %15s\n" \
+    commit run ready_ms server_rss_mib workers_rss_mib total_rss_mib
+for commit in "${before}" "${after}"; do
+    worktree=$(build "${commit}") || exit 1
+    results="${work_dir}/results"
+    : >"${results}"
+    for run in $(seq 1 "${runs}"); do
+        result=$(measure "${worktree}") || exit 1
+        echo "${result}" >>"${results}"
+        # shellcheck disable=SC2086
+        printf "%-12s %-4s %10s %16s %17s %15s\n" "${commit}" "${run}" ${result}
+    done
+    printf "%-12s %-4s %10s %16s %17s %15s\n" "${commit}" median \
+        "$(cut -d ' ' -f 1 "${results}" | median)" \
+        "$(cut -d ' ' -f 2 "${results}" | median)" \
+        "$(cut -d ' ' -f 3 "${results}" | median)" \
+        "$(cut -d ' ' -f 4 "${results}" | median)"
+done
@@ -2,5 +2,20 @@ package bio.terra.axonserver.app.configuration;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+/**
+ * Configuration for the Calhoun conversion service.
+ *
+ * @param basePath Calhoun base URL
+ * @param maxConcurrentConversions maximum number of conversions in flight at once
+ * @param maxQueuedConversions maximum number of conversions waiting for a slot; requests beyond
+ *     this are rejected immediately
+ * @param maxQueueWaitSeconds maximum time a conversion waits for a slot before it is rejected
+ * @param retryAfterSeconds Retry-After value returned with rejected conversions
+ */
 @ConfigurationProperties(prefix = "axonserver.calhoun")
-public record CalhounConfiguration(String basePath) {}
+public record CalhounConfiguration(
+    String basePath,
+    int maxConcurrentConversions,
+    int maxQueuedConversions,
+    int maxQueueWaitSeconds,
+    int retryAfterSeconds) {}
@@ -2,5 +2,55 @@ package bio.terra.axonserver.app.configuration;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+/**
+ * Configuration for Cromwell.
+ *
+ * @param basePath Cromwell base URL
+ * @param stageThreads threads shared by all workflow operations for running independent stages,
+ *     e.g. the lookups of a submission, concurrently. 0 runs every stage on the request thread, one
+ *     after another.
+ * @param stageQueueSize maximum number of stages waiting for a thread. Beyond this, stages run on
+ *     the request thread.
+ * @param concurrentReadChecks whether small reads of a single workflow, e.g. its status, fetch the
+ *     data while the workspace access and workflow label checks are still running. The data is only
+ *     returned once both checks pass, but it is fetched even when they fail.
+ * @param readCheckThreads threads shared by all reads for running the checks of {@code
+ *     concurrentReadChecks}. The reads themselves run on the request thread.
+ * @param ownershipCacheTtlSeconds how long the workspace a workflow belongs to is remembered
+ * @param ownershipCacheMaxSize maximum number of workflows whose workspace is remembered
+ * @param ownershipCacheFile file the workspace of each workflow is persisted to, so it is
+ *     remembered across restarts. Empty to remember in memory only.
+ * @param maxStatusBatchSize maximum number of workflows whose status can be requested at once
+ * @param submissionMemoryThresholdBytes size up to which the workflow source of a submission is
+ *     held in memory. Larger ones are written to temp files.
+ * @param dependencyThreads threads shared by all workflow operations for fetching the WDL files a
+ *     workflow imports. 0 fetches them on the request thread, one after another.
+ * @param dependencyParallelism maximum number of WDL files fetched at once for a single workflow
+ * @param dependencyMemoryBytes maximum bytes of WDL files a single workflow may import. They are
+ *     held in memory while their imports are resolved.
+ * @param maxWdlImports maximum number of WDL files a single workflow may import
+ * @param bundleCacheDir directory the zipped WDL files of workflows are cached in, so they are not
+ *     fetched again until one of them changes. It is created readable only by the server's user,
+ *     and not used if another user owns it. Empty, the default, to fetch them for every workflow
+ *     operation.
+ * @param bundleCacheMaxBytes maximum total size of the zips cached, after which the least recently
+ *     used are deleted
+ */
 @ConfigurationProperties(prefix = "axonserver.cromwell")
-public record CromwellConfiguration(String basePath) {}
+public record CromwellConfiguration(
+    String basePath,
+    int stageThreads,
+    int stageQueueSize,
+    boolean concurrentReadChecks,
+    int readCheckThreads,
+    int ownershipCacheTtlSeconds,
+    int ownershipCacheMaxSize,
+    String ownershipCacheFile,
+    int maxStatusBatchSize,
+    int submissionMemoryThresholdBytes,
+    int dependencyThreads,
+    int dependencyParallelism,
+    int dependencyMemoryBytes,
+    int maxWdlImports,
+    String bundleCacheDir,
+    long bundleCacheMaxBytes) {}
@@ -0,0 +1,20 @@
+package bio.terra.axonserver.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the HTTP transport shared by the clients of each downstream service.
+ *
+ * @param maxIdleConnections idle connections kept open per downstream service
+ * @param keepAliveSeconds how long an idle connection is kept before it is closed
+ * @param connectTimeoutSeconds timeout for establishing a connection
+ * @param readTimeoutSeconds timeout between bytes read from a connection
+ * @param writeTimeoutSeconds timeout between bytes written to a connection
+ */
+@ConfigurationProperties(prefix = "axonserver.http-client")
+public record HttpClientConfiguration(
+    int maxIdleConnections,
+    int keepAliveSeconds,
+    int connectTimeoutSeconds,
+    int readTimeoutSeconds,
+    int writeTimeoutSeconds) {}
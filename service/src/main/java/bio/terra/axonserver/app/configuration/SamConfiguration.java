@@ -2,5 +2,40 @@ package bio.terra.axonserver.app.configuration;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+/**
+ * Configuration for Sam.
+ *
+ * @param basePath Sam base URL
+ * @param resourceId Sam resource id of this service
+ * @param petTokenCacheMaxSize maximum number of cached pet service account access tokens
+ * @param petTokenRefreshAheadSeconds how long before expiry a cached pet token is refreshed in the
+ *     background
+ * @param petTokenExpiryMarginSeconds how long before expiry a cached pet token stops being used
+ * @param petTokenTtlSeconds how long a pet token is used from when Sam returns it. Sam does not
+ *     return the expiry, and may return a token it has cached, so keep this well below the hour a
+ *     Google access token lasts.
+ * @param petKeyCacheTtlSeconds how long a pet service account key is reused for submissions
+ * @param petKeyCacheMaxSize maximum number of cached pet service account keys
+ * @param axonTokenRefreshAheadSeconds how long before expiry the Axon service account token is
+ *     refreshed
+ * @param axonTokenRetrySeconds delay before retrying a failed Axon service account token refresh
+ * @param registerAxonServiceAccount whether to register the Axon service account in Sam at startup
+ * @param identityCacheTtlSeconds how long a caller's user info and pet service account emails are
+ *     reused. Entries also expire with the caller's access token, if it is a JWT.
+ * @param identityCacheMaxSize maximum number of cached entries in each identity cache
+ */
 @ConfigurationProperties(prefix = "axonserver.sam")
-public record SamConfiguration(String basePath, String resourceId) {}
+public record SamConfiguration(
+    String basePath,
+    String resourceId,
+    int petTokenCacheMaxSize,
+    int petTokenRefreshAheadSeconds,
+    int petTokenExpiryMarginSeconds,
+    int petTokenTtlSeconds,
+    int petKeyCacheTtlSeconds,
+    int petKeyCacheMaxSize,
+    int axonTokenRefreshAheadSeconds,
+    int axonTokenRetrySeconds,
+    boolean registerAxonServiceAccount,
+    int identityCacheTtlSeconds,
+    int identityCacheMaxSize) {}
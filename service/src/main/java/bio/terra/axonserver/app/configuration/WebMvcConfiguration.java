@@ -0,0 +1,22 @@
+package bio.terra.axonserver.app.configuration;
+
+import bio.terra.axonserver.app.controller.DownstreamCallInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfiguration implements WebMvcConfigurer {
+  private final DownstreamCallInterceptor downstreamCallInterceptor;
+
+  @Autowired
+  public WebMvcConfiguration(DownstreamCallInterceptor downstreamCallInterceptor) {
+    this.downstreamCallInterceptor = downstreamCallInterceptor;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(downstreamCallInterceptor).addPathPatterns("/api/**");
+  }
+}
@@ -0,0 +1,41 @@
+package bio.terra.axonserver.app.configuration;
+
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for parsing workflows with Womtool, which runs in a pool of worker processes so
+ * the server does not load Cromwell.
+ *
+ * @param parseCacheMaxSize maximum number of parsed workflows remembered. A workflow is keyed by
+ *     the content of its main WDL and the files it imports, so an entry never goes stale.
+ * @param workers worker processes parsing workflows, one at a time each
+ * @param queueSize maximum number of parses waiting for a worker. Requests beyond this are
+ *     rejected immediately.
+ * @param parseTimeoutSeconds maximum time a parse may run on a worker, and separately the maximum
+ *     time a request waits for a worker. A worker still parsing then is killed and replaced.
+ * @param timedOutCacheSeconds how long a workflow whose parse timed out is rejected without
+ *     parsing it again, so retries do not keep killing workers
+ * @param retryAfterSeconds Retry-After value returned with requests rejected for lack of a worker
+ * @param warmUp whether to start the workers when the server starts, each parsing a sample
+ *     workflow so its first request does not pay for loading and compiling Womtool. Otherwise,
+ *     workers are started, cold, when first needed.
+ * @param workerClasspath classpath of the wdl-worker distribution
+ * @param workerJvmOptions options for the JVM running each worker, e.g. its maximum heap
+ * @param workerStartTimeoutSeconds maximum time for a worker to start and warm up
+ * @param healthCheckIntervalSeconds interval between pings of idle workers. A worker that has
+ *     exited or does not answer is replaced.
+ */
+@ConfigurationProperties(prefix = "axonserver.womtool")
+public record WomtoolConfiguration(
+    int parseCacheMaxSize,
+    int workers,
+    int queueSize,
+    int parseTimeoutSeconds,
+    int timedOutCacheSeconds,
+    int retryAfterSeconds,
+    boolean warmUp,
+    String workerClasspath,
+    List<String> workerJvmOptions,
+    int workerStartTimeoutSeconds,
+    int healthCheckIntervalSeconds) {}
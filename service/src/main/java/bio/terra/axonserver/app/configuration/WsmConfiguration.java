@@ -1,6 +1,38 @@
 package bio.terra.axonserver.app.configuration;
 
+import java.util.List;
+import java.util.UUID;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
 
+/**
+ * Configuration for Workspace Manager.
+ *
+ * @param basePath Workspace Manager base URL
+ * @param resourceCacheTtlSeconds how long a resource description is reused for the same caller. The
+ *     caller's access is still re-checked on each use, through the access cache.
+ * @param resourceNotFoundCacheTtlSeconds how long a not found or inaccessible resource is
+ *     remembered for the same caller
+ * @param resourceCacheMaxSize maximum number of cached resource lookups
+ * @param accessCacheTtlSeconds how long a caller's highest role on a workspace is reused. This is
+ *     how long a caller whose access is revoked can keep reading the workspace and its resources.
+ * @param accessDeniedCacheTtlSeconds how long a caller's lack of access to a workspace is
+ *     remembered
+ * @param accessCacheMaxSize maximum number of cached access decisions
+ * @param gcpContextCacheTtlSeconds how long a workspace's GCP context is reused, for all callers
+ * @param gcpContextCacheMaxSize maximum number of cached GCP contexts
+ * @param preloadWorkspaceIds workspaces whose GCP contexts are loaded at startup, using the Axon
+ *     service account
+ */
 @ConfigurationProperties(prefix = "axonserver.wsm")
-public record WsmConfiguration(String basePath) {}
+public record WsmConfiguration(
+    String basePath,
+    int resourceCacheTtlSeconds,
+    int resourceNotFoundCacheTtlSeconds,
+    int resourceCacheMaxSize,
+    int accessCacheTtlSeconds,
+    int accessDeniedCacheTtlSeconds,
+    int accessCacheMaxSize,
+    int gcpContextCacheTtlSeconds,
+    int gcpContextCacheMaxSize,
+    @DefaultValue List<UUID> preloadWorkspaceIds) {}
@@ -0,0 +1,39 @@
+package bio.terra.axonserver.app.controller;
+
+import bio.terra.axonserver.api.AdminApi;
+import bio.terra.axonserver.service.wsm.WorkspaceManagerService;
+import bio.terra.common.iam.BearerTokenFactory;
+import bio.terra.workspace.model.IamRole;
+import java.util.UUID;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+
+/** Controller for operational endpoints. */
+@Controller
+public class AdminController extends ControllerBase implements AdminApi {
+  private final WorkspaceManagerService wsmService;
+
+  @Autowired
+  public AdminController(
+      BearerTokenFactory bearerTokenFactory,
+      HttpServletRequest request,
+      WorkspaceManagerService wsmService) {
+    super(bearerTokenFactory, request);
+    this.wsmService = wsmService;
+  }
+
+  /**
+   * Drop cached access decisions and resource descriptions for a workspace. Ownership is checked
+   * against WSM directly, bypassing the cache being invalidated.
+   *
+   * @param workspaceId Terra Workspace ID
+   */
+  @Override
+  public ResponseEntity<Void> invalidateWorkspaceCache(UUID workspaceId) {
+    wsmService.getWorkspace(workspaceId, IamRole.OWNER, getAccessToken());
+    wsmService.invalidateWorkspace(workspaceId);
+    return ResponseEntity.noContent().build();
+  }
+}
@@ -6,8 +6,12 @@ import bio.terra.axonserver.model.ApiWorkflowIdAndLabel;
 import bio.terra.axonserver.model.ApiWorkflowIdAndStatus;
 import bio.terra.axonserver.model.ApiWorkflowMetadataResponse;
 import bio.terra.axonserver.model.ApiWorkflowParsedInputsResponse;
+import bio.terra.axonserver.model.ApiWorkflowParsedOutputsResponse;
 import bio.terra.axonserver.model.ApiWorkflowQueryResponse;
+import bio.terra.axonserver.model.ApiWorkflowStatuses;
+import bio.terra.axonserver.model.ApiWorkflowValidationResponse;
 import bio.terra.axonserver.service.cromwellworkflow.CromwellWorkflowService;
+import bio.terra.axonserver.service.cromwellworkflow.WomtoolService.WorkflowDescription;
 import bio.terra.axonserver.service.cromwellworkflow.WorkflowReservedLabelKeys;
 import bio.terra.axonserver.service.exception.InvalidWdlException;
 import bio.terra.axonserver.service.file.FileService;
@@ -61,10 +65,13 @@ public class CromwellWorkflowController extends ControllerBase implements Cromwe
   @Override
   public ResponseEntity<ApiWorkflowIdAndStatus> getWorkflowStatus(
       UUID workspaceId, UUID workflowId) {
-    cromwellWorkflowService.validateWorkspaceAccessAndWorkflowLabelMatches(
-        workflowId, workspaceId, getToken().getToken());
     try {
-      CromwellApiWorkflowIdAndStatus workflowStatus = cromwellWorkflowService.getStatus(workflowId);
+      CromwellApiWorkflowIdAndStatus workflowStatus =
+          cromwellWorkflowService.readWithWorkflowAccess(
+              workflowId,
+              workspaceId,
+              getToken().getToken(),
+              () -> cromwellWorkflowService.getStatus(workflowId));
       return new ResponseEntity<>(
           new ApiWorkflowIdAndStatus()
               .id(UUID.fromString(workflowStatus.getId()))
@@ -79,10 +86,13 @@ public class CromwellWorkflowController extends ControllerBase implements Cromwe
   @Override
   public ResponseEntity<ApiWorkflowIdAndLabel> getWorkflowLabels(
       UUID workspaceId, UUID workflowId) {
-    cromwellWorkflowService.validateWorkspaceAccessAndWorkflowLabelMatches(
-        workflowId, workspaceId, getToken().getToken());
     try {
-      CromwellApiLabelsResponse workflowLabels = cromwellWorkflowService.getLabels(workflowId);
+      CromwellApiLabelsResponse workflowLabels =
+          cromwellWorkflowService.readWithWorkflowAccess(
+              workflowId,
+              workspaceId,
+              getToken().getToken(),
+              () -> cromwellWorkflowService.getLabels(workflowId));
       return new ResponseEntity<>(
           new ApiWorkflowIdAndLabel()
               .id(UUID.fromString(workflowLabels.getId()))
@@ -101,6 +111,7 @@ public class CromwellWorkflowController extends ControllerBase implements Cromwe
       @Nullable List<String> includeKey,
       @Nullable List<String> excludeKey,
       @Nullable Boolean expandSubWorkflows) {
+    // Metadata can be large, so it is only read once the checks pass.
     cromwellWorkflowService.validateWorkspaceAccessAndWorkflowLabelMatches(
         workflowId, workspaceId, getToken().getToken());
     try {
@@ -156,6 +167,23 @@ public class CromwellWorkflowController extends ControllerBase implements Cromwe
     }
   }
 
+  @Override
+  public ResponseEntity<ApiWorkflowStatuses> getWorkflowStatuses(UUID workspaceId, List<UUID> id) {
+    // Check if the user has access to the workspace. The query is restricted to workflows with the
+    // corresponding workspace id label.
+    wsmService.checkWorkspaceReadAccess(workspaceId, getToken().getToken());
+    try {
+      Map<String, String> statuses = new HashMap<>();
+      cromwellWorkflowService
+          .getStatuses(workspaceId, id)
+          .forEach((workflowId, status) -> statuses.put(workflowId.toString(), status));
+      return new ResponseEntity<>(new ApiWorkflowStatuses().statuses(statuses), HttpStatus.OK);
+    } catch (bio.terra.cromwell.client.ApiException e) {
+      throw new ApiException(
+          "Error getting workflow statuses. %s: %s".formatted(e.getCode(), e.getResponseBody()));
+    }
+  }
+
   @Override
   public ResponseEntity<ApiWorkflowParsedInputsResponse> parseInputs(
       UUID workspaceId, String gcsPath) {
@@ -174,6 +202,44 @@ public class CromwellWorkflowController extends ControllerBase implements Cromwe
     }
   }
 
+  @Override
+  public ResponseEntity<ApiWorkflowParsedOutputsResponse> parseOutputs(
+      UUID workspaceId, String gcsPath) {
+    BearerToken token = getToken();
+    // Check if the user has access to the workspace.
+    wsmService.checkWorkspaceReadAccess(workspaceId, token.getToken());
+
+    try {
+      Map<String, String> parsedOutputs =
+          cromwellWorkflowService.parseOutputs(workspaceId, gcsPath, token);
+      ApiWorkflowParsedOutputsResponse result =
+          new ApiWorkflowParsedOutputsResponse().outputs(parsedOutputs);
+      return new ResponseEntity<>(result, HttpStatus.OK);
+    } catch (IOException | InvalidWdlException e) {
+      throw new ApiException("Error parsing outputs. %s, %s".formatted(e.getMessage(), e));
+    }
+  }
+
+  @Override
+  public ResponseEntity<ApiWorkflowValidationResponse> validateWorkflow(
+      UUID workspaceId, String gcsPath) {
+    BearerToken token = getToken();
+    // Check if the user has access to the workspace.
+    wsmService.checkWorkspaceReadAccess(workspaceId, token.getToken());
+
+    try {
+      WorkflowDescription description =
+          cromwellWorkflowService.describeWorkflow(workspaceId, gcsPath, token);
+      ApiWorkflowValidationResponse result =
+          new ApiWorkflowValidationResponse()
+              .valid(description.valid())
+              .errors(description.errors());
+      return new ResponseEntity<>(result, HttpStatus.OK);
+    } catch (IOException e) {
+      throw new ApiException("Error validating workflow. %s, %s".formatted(e.getMessage(), e));
+    }
+  }
+
   @Override
   public ResponseEntity<ApiWorkflowIdAndStatus> submitWorkflow(
       UUID workspaceId, ApiSubmitWorkflowRequestBody body) {
@@ -0,0 +1,48 @@
+package bio.terra.axonserver.app.controller;
+
+import bio.terra.axonserver.service.http.DownstreamCalls;
+import bio.terra.axonserver.utils.MetricsUtils;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.tags.TagKey;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Reports how many downstream calls each request made, to the log and as a per-route metric, so
+ * repeated lookups within one request show up.
+ */
+@Component
+public class DownstreamCallInterceptor implements HandlerInterceptor {
+  private static final Logger logger = LoggerFactory.getLogger(DownstreamCallInterceptor.class);
+
+  private static final TagKey ROUTE_KEY = TagKey.create("route");
+  private static final MeasureLong CALLS_PER_REQUEST =
+      MetricsUtils.createCountDistribution(
+          "request/downstream_calls", "Number of downstream calls made per request", ROUTE_KEY);
+
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Object handler,
+      @Nullable Exception ex) {
+    Map<String, Integer> counts = DownstreamCalls.getRequestCounts();
+    int total = counts.values().stream().mapToInt(Integer::intValue).sum();
+    // Use the matched pattern rather than the path, so IDs do not end up in metric tags.
+    String route =
+        Objects.toString(
+            request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE), "unknown");
+    MetricsUtils.record(CALLS_PER_REQUEST, total, Map.of(ROUTE_KEY, route));
+    if (total > 0) {
+      logger.info("{} {} made {} downstream calls {}", request.getMethod(), route, total, counts);
+    }
+  }
+}
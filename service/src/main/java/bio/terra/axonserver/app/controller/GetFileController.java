@@ -2,6 +2,8 @@ package bio.terra.axonserver.app.controller;
 
 import bio.terra.axonserver.api.GetFileApi;
 import bio.terra.axonserver.model.ApiSignedUrlReport;
+import bio.terra.axonserver.service.convert.ConversionPriority;
+import bio.terra.axonserver.service.convert.ConverterRegistry;
 import bio.terra.axonserver.service.file.FileService;
 import bio.terra.axonserver.service.wsm.WorkspaceManagerService;
 import bio.terra.common.exception.ApiException;
@@ -12,6 +14,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLConnection;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 import javax.annotation.Nullable;
 import javax.servlet.http.HttpServletRequest;
@@ -21,6 +24,7 @@ import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 
@@ -31,18 +35,24 @@ import org.springframework.stereotype.Controller;
 @Controller
 public class GetFileController extends ControllerBase implements GetFileApi {
 
+  /** Headers browsers use to mark speculative requests, e.g. "Sec-Purpose: prefetch". */
+  private static final List<String> PURPOSE_HEADERS = List.of("Sec-Purpose", "Purpose", "X-Moz");
+
   private final FileService fileService;
   private final WorkspaceManagerService wsmService;
+  private final ConverterRegistry converterRegistry;
 
   @Autowired
   public GetFileController(
       BearerTokenFactory bearerTokenFactory,
       HttpServletRequest request,
       FileService fileService,
-      WorkspaceManagerService wsmService) {
+      WorkspaceManagerService wsmService,
+      ConverterRegistry converterRegistry) {
     super(bearerTokenFactory, request);
     this.fileService = fileService;
     this.wsmService = wsmService;
+    this.converterRegistry = converterRegistry;
   }
 
   /**
@@ -83,23 +93,38 @@ public class GetFileController extends ControllerBase implements GetFileApi {
     HttpRange byteRange = getByteRange();
 
     InputStream resourceObjectStream =
-        fileService.getFile(token, workspaceId, resourceId, objectPath, convertTo, byteRange);
-
-    // Infer the content type from the file extension of requested convertTo file extension.
-    // The convertTo value is already validated by fileService.
-    String contentType =
-        convertTo == null
-            ? URLConnection.guessContentTypeFromName(objectPath)
-            : URLConnection.guessContentTypeFromName(("." + convertTo));
+        fileService.getFile(
+            token,
+            workspaceId,
+            resourceId,
+            objectPath,
+            convertTo,
+            byteRange,
+            getConversionPriority());
 
     HttpStatus resStatus = byteRange == null ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT;
     HttpHeaders resHeaders = new HttpHeaders();
-    resHeaders.set(HttpHeaders.CONTENT_TYPE, contentType);
+    resHeaders.set(HttpHeaders.CONTENT_TYPE, contentType(objectPath, convertTo));
 
     return new ResponseEntity<>(
         new InputStreamResource(resourceObjectStream), resHeaders, resStatus);
   }
 
+  /**
+   * The media type a converter declares for its output, or else one guessed from the file's
+   * extension, falling back to a generic binary type.
+   */
+  private String contentType(@Nullable String objectPath, @Nullable String convertTo) {
+    String contentType = null;
+    if (convertTo != null) {
+      // The convertTo value is already validated by fileService.
+      contentType = converterRegistry.getMediaType(convertTo).orElse(null);
+    } else if (objectPath != null) {
+      contentType = URLConnection.guessContentTypeFromName(objectPath);
+    }
+    return contentType == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : contentType;
+  }
+
   @Override
   public ResponseEntity<ApiSignedUrlReport> getSignedUrl(
       UUID workspaceId, UUID resourceId, String objectName) {
@@ -135,6 +160,16 @@ public class GetFileController extends ControllerBase implements GetFileApi {
     }
   }
 
+  private ConversionPriority getConversionPriority() {
+    for (String header : PURPOSE_HEADERS) {
+      String purpose = getServletRequest().getHeader(header);
+      if (purpose != null && purpose.toLowerCase(Locale.ROOT).contains("prefetch")) {
+        return ConversionPriority.PREFETCH;
+      }
+    }
+    return ConversionPriority.INTERACTIVE;
+  }
+
   private HttpRange getByteRange() {
     String rangeHeader = getServletRequest().getHeader("Range");
     if (rangeHeader == null) {
@@ -1,9 +1,15 @@
 package bio.terra.axonserver.app.controller;
 
 import bio.terra.axonserver.model.ApiErrorReport;
+import bio.terra.axonserver.service.exception.ServiceUnavailableException;
+import bio.terra.axonserver.service.exception.TooManyRequestsException;
 import bio.terra.common.exception.AbstractGlobalExceptionHandler;
+import bio.terra.common.exception.ErrorReportException;
 import java.util.List;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 @RestControllerAdvice
@@ -17,4 +23,23 @@ public class GlobalExceptionHandler extends AbstractGlobalExceptionHandler<ApiEr
         .statusCode(statusCode.value())
         .causes(causes);
   }
+
+  /** Shed requests tell the client when to retry. */
+  @ExceptionHandler(TooManyRequestsException.class)
+  public ResponseEntity<ApiErrorReport> tooManyRequestsHandler(TooManyRequestsException ex) {
+    return retryAfter(ex, ex.getRetryAfterSeconds());
+  }
+
+  /** So do requests that arrive before the server is ready for them. */
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<ApiErrorReport> serviceUnavailableHandler(ServiceUnavailableException ex) {
+    return retryAfter(ex, ex.getRetryAfterSeconds());
+  }
+
+  private ResponseEntity<ApiErrorReport> retryAfter(
+      ErrorReportException ex, long retryAfterSeconds) {
+    return ResponseEntity.status(ex.getStatusCode())
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+        .body(generateErrorReport(ex, ex.getStatusCode(), ex.getCauses()));
+  }
 }
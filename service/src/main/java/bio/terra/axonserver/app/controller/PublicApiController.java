@@ -4,6 +4,8 @@ import bio.terra.axonserver.api.PublicApi;
 import bio.terra.axonserver.app.configuration.CliConfiguration;
 import bio.terra.axonserver.app.configuration.VersionConfiguration;
 import bio.terra.axonserver.model.ApiVersionProperties;
+import bio.terra.axonserver.service.iam.SamService;
+import bio.terra.axonserver.service.iam.SamService.RegistrationState;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -13,16 +15,24 @@ import org.springframework.stereotype.Controller;
 public class PublicApiController implements PublicApi {
   private final VersionConfiguration versionConfiguration;
   private final CliConfiguration cliConfiguration;
+  private final SamService samService;
 
   @Autowired
   public PublicApiController(
-      CliConfiguration cliConfiguration, VersionConfiguration versionConfiguration) {
+      CliConfiguration cliConfiguration,
+      VersionConfiguration versionConfiguration,
+      SamService samService) {
     this.cliConfiguration = cliConfiguration;
     this.versionConfiguration = versionConfiguration;
+    this.samService = samService;
   }
 
   @Override
   public ResponseEntity<Void> serviceStatus() {
+    // Not ready to take traffic until the Axon service account is registered in Sam.
+    if (samService.getAxonServiceAccountRegistrationState() == RegistrationState.PENDING) {
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
     return new ResponseEntity<>(HttpStatus.OK);
   }
 
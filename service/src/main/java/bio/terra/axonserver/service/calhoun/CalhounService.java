@@ -1,6 +1,8 @@
 package bio.terra.axonserver.service.calhoun;
 
 import bio.terra.axonserver.app.configuration.CalhounConfiguration;
+import bio.terra.axonserver.service.http.AccessTokenContext;
+import bio.terra.axonserver.service.http.HttpTransportFactory;
 import bio.terra.calhoun.api.ConvertApi;
 import bio.terra.calhoun.client.ApiClient;
 import bio.terra.calhoun.client.ApiException;
@@ -19,21 +21,15 @@ import org.springframework.stereotype.Component;
 @Component
 public class CalhounService {
 
-  private final CalhounConfiguration calhounConfig;
+  private final ApiClient apiClient;
 
   @Autowired
-  public CalhounService(CalhounConfiguration calhounConfig) {
-    this.calhounConfig = calhounConfig;
-  }
-
-  private ApiClient getApiClient(String accessToken) {
-    ApiClient apiClient = getApiClient();
-    apiClient.setAccessToken(accessToken);
-    return apiClient;
-  }
-
-  private ApiClient getApiClient() {
-    return new ApiClient().setBasePath(calhounConfig.basePath());
+  public CalhounService(
+      CalhounConfiguration calhounConfig, HttpTransportFactory httpTransportFactory) {
+    // One client for all callers; each call passes its caller's token through AccessTokenContext.
+    this.apiClient = new ApiClient().setBasePath(calhounConfig.basePath());
+    apiClient.setHttpClient(
+        httpTransportFactory.newJerseyClient("calhoun", apiClient.getHttpClient()));
   }
 
   /**
@@ -46,7 +42,9 @@ public class CalhounService {
    */
   public InputStream convertNotebook(String accessToken, InputStream fileStream) {
     try {
-      File convertedFile = new ConvertApi(getApiClient(accessToken)).convertNotebook(fileStream);
+      File convertedFile =
+          AccessTokenContext.withAccessToken(
+              accessToken, () -> new ConvertApi(apiClient).convertNotebook(fileStream));
       try {
         return new FileInputStream(convertedFile);
       } catch (Exception e) {
@@ -67,7 +65,9 @@ public class CalhounService {
    */
   public InputStream convertRmd(String accessToken, InputStream fileStream) {
     try {
-      File convertedFile = new ConvertApi(getApiClient(accessToken)).convertRmd(fileStream);
+      File convertedFile =
+          AccessTokenContext.withAccessToken(
+              accessToken, () -> new ConvertApi(apiClient).convertRmd(fileStream));
       try {
         return new FileInputStream(convertedFile);
       } catch (Exception e) {
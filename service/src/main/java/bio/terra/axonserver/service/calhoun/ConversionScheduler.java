@@ -0,0 +1,182 @@
+package bio.terra.axonserver.service.calhoun;
+
+import bio.terra.axonserver.app.configuration.CalhounConfiguration;
+import bio.terra.axonserver.service.convert.ConversionPriority;
+import bio.terra.axonserver.service.exception.TooManyRequestsException;
+import bio.terra.axonserver.utils.MetricsUtils;
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.tags.TagKey;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission control for conversions sent to Calhoun. At most {@code maxConcurrentConversions} run
+ * at once. Others wait in a priority queue, where interactive requests go ahead of prefetches and
+ * smaller files go ahead of larger ones. A conversion that cannot be queued, or that waits longer
+ * than {@code maxQueueWaitSeconds}, is rejected with a {@link TooManyRequestsException}.
+ */
+@Component
+public class ConversionScheduler {
+  private static final Logger logger = LoggerFactory.getLogger(ConversionScheduler.class);
+
+  private static final TagKey PRIORITY_KEY = TagKey.create("priority");
+  private static final TagKey OUTCOME_KEY = TagKey.create("outcome");
+
+  private static final MeasureLong QUEUE_LENGTH =
+      MetricsUtils.createGauge(
+          "conversion/queue_length", "Number of conversions waiting for a slot", "1");
+  private static final MeasureLong IN_FLIGHT =
+      MetricsUtils.createGauge("conversion/in_flight", "Number of conversions running", "1");
+  private static final MeasureDouble WAIT_TIME =
+      MetricsUtils.createLatencyDistribution(
+          "conversion/wait_time", "Time waited for a conversion slot", PRIORITY_KEY, OUTCOME_KEY);
+
+  private static final Comparator<Waiter> WAITER_ORDER =
+      Comparator.comparing((Waiter waiter) -> waiter.priority)
+          .thenComparingLong(waiter -> waiter.sizeBytes)
+          .thenComparingLong(waiter -> waiter.sequence);
+
+  private final CalhounConfiguration calhounConfig;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final PriorityQueue<Waiter> queue = new PriorityQueue<>(WAITER_ORDER);
+  private int inFlight;
+  private long nextSequence;
+
+  /** A conversion waiting for a slot. Fields other than admitted are immutable. */
+  private final class Waiter {
+    private final ConversionPriority priority;
+    private final long sizeBytes;
+    private final long sequence;
+    private final Condition admittedCondition = lock.newCondition();
+    private boolean admitted;
+
+    private Waiter(ConversionPriority priority, long sizeBytes, long sequence) {
+      this.priority = priority;
+      this.sizeBytes = sizeBytes;
+      this.sequence = sequence;
+    }
+  }
+
+  @Autowired
+  public ConversionScheduler(CalhounConfiguration calhounConfig) {
+    this.calhounConfig = calhounConfig;
+  }
+
+  /**
+   * Run a conversion once a slot is available.
+   *
+   * @param priority scheduling priority of the conversion
+   * @param sizeBytes size of the input, or null if unknown. Unknown sizes are ordered last.
+   * @param conversion the conversion to run
+   * @return the result of the conversion
+   * @throws TooManyRequestsException if the queue is full or the wait times out
+   */
+  public <T> T run(ConversionPriority priority, @Nullable Long sizeBytes, Supplier<T> conversion) {
+    acquire(priority, sizeBytes == null ? Long.MAX_VALUE : sizeBytes);
+    try {
+      return conversion.get();
+    } finally {
+      release();
+    }
+  }
+
+  private void acquire(ConversionPriority priority, long sizeBytes) {
+    long startNanos = System.nanoTime();
+    lock.lock();
+    try {
+      if (inFlight < calhounConfig.maxConcurrentConversions() && queue.isEmpty()) {
+        inFlight++;
+        recordAdmission(priority, startNanos, "immediate");
+        return;
+      }
+      if (queue.size() >= calhounConfig.maxQueuedConversions()) {
+        recordAdmission(priority, startNanos, "queue_full");
+        throw reject("Conversion queue is full");
+      }
+
+      Waiter waiter = new Waiter(priority, sizeBytes, nextSequence++);
+      queue.add(waiter);
+      MetricsUtils.record(QUEUE_LENGTH, queue.size());
+
+      long remainingNanos = TimeUnit.SECONDS.toNanos(calhounConfig.maxQueueWaitSeconds());
+      try {
+        while (!waiter.admitted) {
+          if (remainingNanos <= 0) {
+            queue.remove(waiter);
+            MetricsUtils.record(QUEUE_LENGTH, queue.size());
+            recordAdmission(priority, startNanos, "timeout");
+            throw reject("Timed out waiting for a conversion slot");
+          }
+          remainingNanos = waiter.admittedCondition.awaitNanos(remainingNanos);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        if (!waiter.admitted) {
+          queue.remove(waiter);
+          MetricsUtils.record(QUEUE_LENGTH, queue.size());
+          throw reject("Interrupted waiting for a conversion slot");
+        }
+        // The slot was handed over before the interrupt was seen; keep it and let the conversion
+        // observe the interrupt.
+      }
+      recordAdmission(priority, startNanos, "queued");
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Free a slot, handing it directly to the first queued conversion if there is one. */
+  private void release() {
+    lock.lock();
+    try {
+      Waiter next = queue.poll();
+      if (next == null) {
+        inFlight--;
+      } else {
+        next.admitted = true;
+        next.admittedCondition.signal();
+        MetricsUtils.record(QUEUE_LENGTH, queue.size());
+      }
+      MetricsUtils.record(IN_FLIGHT, inFlight);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void recordAdmission(ConversionPriority priority, long startNanos, String outcome) {
+    double waitMillis = (System.nanoTime() - startNanos) / 1_000_000.0;
+    MetricsUtils.record(
+        WAIT_TIME,
+        waitMillis,
+        Map.of(PRIORITY_KEY, priority.name().toLowerCase(Locale.ROOT), OUTCOME_KEY, outcome));
+    MetricsUtils.record(IN_FLIGHT, inFlight);
+  }
+
+  private TooManyRequestsException reject(String message) {
+    logger.warn("{} ({} in flight, {} queued)", message, inFlight, queue.size());
+    return new TooManyRequestsException(message, calhounConfig.retryAfterSeconds());
+  }
+
+  /** Number of conversions currently waiting for a slot. */
+  public int getQueueLength() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -1,11 +1,15 @@
 package bio.terra.axonserver.service.cloud.gcp;
 
+import bio.terra.axonserver.app.configuration.SamConfiguration;
 import bio.terra.axonserver.service.iam.SamService;
 import bio.terra.axonserver.service.wsm.WorkspaceManagerService;
+import bio.terra.axonserver.utils.CacheUtils;
 import bio.terra.common.iam.BearerToken;
-import com.google.auth.oauth2.AccessToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.common.collect.ImmutableList;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
 import org.springframework.stereotype.Component;
@@ -15,6 +19,9 @@ import org.springframework.stereotype.Component;
 public class GcpService {
   private final WorkspaceManagerService wsmService;
   private final SamService samService;
+  private final Cache<PetCredentialsKey, PetServiceAccountCredentials> petCredentialsCache;
+
+  private record PetCredentialsKey(String userEmail, String projectId) {}
 
   // Google pet service account scopes for accessing Google Cloud APIs.
   private static final List<String> PET_SA_SCOPES =
@@ -25,13 +32,26 @@ public class GcpService {
     return PET_SA_SCOPES;
   }
 
-  public GcpService(WorkspaceManagerService wsmService, SamService samService) {
+  public GcpService(
+      WorkspaceManagerService wsmService, SamService samService, SamConfiguration samConfig) {
     this.wsmService = wsmService;
     this.samService = samService;
+    // Idle credentials are dropped once the pet token they hold would have expired.
+    this.petCredentialsCache =
+        Caffeine.newBuilder()
+            .maximumSize(samConfig.petTokenCacheMaxSize())
+            .expireAfterAccess(Duration.ofSeconds(samConfig.petTokenTtlSeconds()))
+            .recordStats(CacheUtils.metricsStatsCounter("gcp_pet_credentials"))
+            .build();
   }
 
   /**
-   * Get pet SA GoogleCredentials from an given bearer token
+   * Get pet SA GoogleCredentials from an given bearer token. The credentials fetch a new pet token
+   * from Sam when the current one expires.
+   *
+   * <p>Credentials are shared by all of a user's requests for the same project, so their clients
+   * reuse one token until it needs refreshing. The caller's access to the workspace is still
+   * checked on every call.
    *
    * @param workspaceId WSM workspaceId
    * @param token Bearer token for the requester
@@ -39,13 +59,13 @@ public class GcpService {
    */
   public GoogleCredentials getPetSACredentials(UUID workspaceId, BearerToken token) {
     String projectId = wsmService.getGcpContext(workspaceId, token.getToken()).getProjectId();
-    String petAccessToken = samService.getPetAccessToken(projectId, token);
-    return getGoogleCredentialsFromToken(petAccessToken);
-  }
-
-  private static GoogleCredentials getGoogleCredentialsFromToken(String token) {
-    // The expirationTime argument is only used for refresh tokens, not access tokens.
-    AccessToken accessToken = new AccessToken(token, null);
-    return GoogleCredentials.create(accessToken);
+    String userEmail = samService.getUserStatusInfo(token).getUserEmail();
+    PetServiceAccountCredentials credentials =
+        petCredentialsCache.get(
+            new PetCredentialsKey(userEmail, projectId),
+            key -> PetServiceAccountCredentials.create(samService, projectId, token));
+    // Refresh with the user's latest access token, which outlives the one they were created with.
+    credentials.setUserRequest(token);
+    return credentials;
   }
 }
@@ -0,0 +1,73 @@
+package bio.terra.axonserver.service.cloud.gcp;
+
+import bio.terra.axonserver.service.iam.PetToken;
+import bio.terra.axonserver.service.iam.SamService;
+import bio.terra.common.iam.BearerToken;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import java.util.Date;
+
+/**
+ * Credentials for a user's pet service account in a project. Unlike credentials built from a bare
+ * access token, these know when the token expires and fetch a new one from Sam when it does, so
+ * they can outlive a single token, e.g. during long transfers or while polling an operation. They
+ * are shared by a user's requests for the project, see {@link GcpService#getPetSACredentials}.
+ */
+public class PetServiceAccountCredentials extends GoogleCredentials {
+  private static final long serialVersionUID = 1L;
+
+  private final transient SamService samService;
+  private final String projectId;
+  private transient volatile BearerToken userRequest;
+
+  private PetServiceAccountCredentials(
+      SamService samService, String projectId, BearerToken userRequest, PetToken petToken) {
+    super(toAccessToken(petToken));
+    this.samService = samService;
+    this.projectId = projectId;
+    this.userRequest = userRequest;
+  }
+
+  /**
+   * Create credentials for a user's pet service account, fetching the first token now.
+   *
+   * @param samService service used to fetch pet tokens
+   * @param projectId google project id
+   * @param userRequest user access token
+   */
+  public static PetServiceAccountCredentials create(
+      SamService samService, String projectId, BearerToken userRequest) {
+    return new PetServiceAccountCredentials(
+        samService, projectId, userRequest, samService.getPetToken(projectId, userRequest));
+  }
+
+  /** Use another of the same user's access tokens to fetch pet tokens from now on. */
+  void setUserRequest(BearerToken userRequest) {
+    this.userRequest = userRequest;
+  }
+
+  /**
+   * Called when the current token is close to expiry, or was rejected with a 401. The pet token
+   * cache would keep returning such a token while it refreshes in the background, so ask for a new
+   * one, which also drops the rejected token from the cache.
+   */
+  @Override
+  public AccessToken refreshAccessToken() {
+    AccessToken current = getAccessToken();
+    PetToken petToken =
+        current == null
+            ? samService.getPetToken(projectId, userRequest)
+            : samService.refreshPetToken(projectId, userRequest, current.getTokenValue());
+    return toAccessToken(petToken);
+  }
+
+  private static AccessToken toAccessToken(PetToken petToken) {
+    return new AccessToken(petToken.accessToken(), Date.from(petToken.expiresAt()));
+  }
+
+  /** Leaves out the access token, which the default implementation would include. */
+  @Override
+  public String toString() {
+    return "PetServiceAccountCredentials{projectId=" + projectId + "}";
+  }
+}
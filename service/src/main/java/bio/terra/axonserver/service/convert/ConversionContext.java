@@ -0,0 +1,19 @@
+package bio.terra.axonserver.service.convert;
+
+import bio.terra.common.iam.BearerToken;
+import javax.annotation.Nullable;
+
+/**
+ * Request details passed to a {@link FileConverter}.
+ *
+ * @param token bearer token of the requester, for converters that call other services
+ * @param priority scheduling priority of the conversion
+ * @param sizeBytes size of the input in bytes, or null if unknown
+ */
+public record ConversionContext(
+    BearerToken token, ConversionPriority priority, @Nullable Long sizeBytes) {
+
+  public static ConversionContext interactive(BearerToken token) {
+    return new ConversionContext(token, ConversionPriority.INTERACTIVE, null);
+  }
+}
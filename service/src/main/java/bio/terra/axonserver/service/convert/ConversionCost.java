@@ -0,0 +1,11 @@
+package bio.terra.axonserver.service.convert;
+
+/** Relative cost of running a {@link FileConverter}, from cheapest to most expensive. */
+public enum ConversionCost {
+  /** In-process conversion that works on a small, constant window of the input. */
+  LOW,
+  /** In-process conversion that holds the whole input in memory. */
+  MEDIUM,
+  /** Conversion performed by a remote service. */
+  HIGH
+}
@@ -0,0 +1,9 @@
+package bio.terra.axonserver.service.convert;
+
+/** Scheduling priority of a conversion. Declared from most to least urgent. */
+public enum ConversionPriority {
+  /** A user is waiting on the result. */
+  INTERACTIVE,
+  /** Speculative request made ahead of the user, e.g. a browser prefetch. */
+  PREFETCH
+}
@@ -0,0 +1,80 @@
+package bio.terra.axonserver.service.convert;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/** Registry of all {@link FileConverter} beans, keyed by (source extension, target format). */
+@Component
+public class ConverterRegistry {
+
+  private record ConverterKey(String sourceExtension, String targetFormat) {}
+
+  private final Map<ConverterKey, FileConverter> converters = new HashMap<>();
+  /** Media type of each target format. */
+  private final Map<String, String> mediaTypes = new HashMap<>();
+
+  @Autowired
+  public ConverterRegistry(List<FileConverter> fileConverters) {
+    for (FileConverter converter : fileConverters) {
+      String targetFormat = normalize(converter.getTargetFormat());
+      String mediaType = mediaTypes.putIfAbsent(targetFormat, converter.getMediaType());
+      if (mediaType != null && !mediaType.equals(converter.getMediaType())) {
+        throw new IllegalStateException(
+            "Converter %s produces %s as %s, but others produce it as %s"
+                .formatted(
+                    converter.getClass().getSimpleName(),
+                    targetFormat,
+                    converter.getMediaType(),
+                    mediaType));
+      }
+      for (String sourceExtension : converter.getSourceExtensions()) {
+        ConverterKey key = new ConverterKey(normalize(sourceExtension), targetFormat);
+        FileConverter existing = converters.putIfAbsent(key, converter);
+        if (existing != null) {
+          throw new IllegalStateException(
+              "Converters %s and %s are both registered for %s"
+                  .formatted(
+                      existing.getClass().getSimpleName(),
+                      converter.getClass().getSimpleName(),
+                      key));
+        }
+      }
+    }
+  }
+
+  /**
+   * Find the converter for a source file extension and a target format. Matching is case
+   * insensitive.
+   *
+   * @param sourceExtension extension of the file to convert, without the leading dot
+   * @param targetFormat format to convert to
+   * @return the converter, or empty if the conversion is not supported
+   */
+  public Optional<FileConverter> find(String sourceExtension, String targetFormat) {
+    return Optional.ofNullable(
+        converters.get(new ConverterKey(normalize(sourceExtension), normalize(targetFormat))));
+  }
+
+  /** Whether any registered converter produces the given format. */
+  public boolean isSupportedTargetFormat(String targetFormat) {
+    return mediaTypes.containsKey(normalize(targetFormat));
+  }
+
+  /**
+   * Media type of files converted to a target format.
+   *
+   * @return the media type, or empty if no registered converter produces the format
+   */
+  public Optional<String> getMediaType(String targetFormat) {
+    return Optional.ofNullable(mediaTypes.get(normalize(targetFormat)));
+  }
+
+  private static String normalize(String value) {
+    return value == null ? "" : value.toLowerCase(Locale.ROOT);
+  }
+}
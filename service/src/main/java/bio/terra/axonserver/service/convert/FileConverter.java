@@ -0,0 +1,41 @@
+package bio.terra.axonserver.service.convert;
+
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * A converter from one or more source file extensions to a single target format. Implementations
+ * are Spring components and are picked up by {@link ConverterRegistry}.
+ */
+public interface FileConverter {
+
+  /** Lower case file extensions, without the leading dot, that this converter accepts. */
+  Set<String> getSourceExtensions();
+
+  /** Lower case format produced by this converter, as passed in the convertTo parameter. */
+  String getTargetFormat();
+
+  /** Media type of the files this converter produces, served as their Content-Type. */
+  String getMediaType();
+
+  /**
+   * Whether output is produced incrementally while the input is read, as opposed to after the whole
+   * input has been consumed.
+   */
+  boolean isStreaming();
+
+  /** Relative cost of a single conversion. */
+  ConversionCost getCost();
+
+  /** Whether the output depends only on the input bytes, and so may be cached by content. */
+  boolean isCacheable();
+
+  /**
+   * Convert a file.
+   *
+   * @param fileStream the file to convert; ownership passes to the converter
+   * @param context details of the request the conversion is made for
+   * @return the converted file
+   */
+  InputStream convert(InputStream fileStream, ConversionContext context);
+}
@@ -0,0 +1,65 @@
+package bio.terra.axonserver.service.convert.converter;
+
+import bio.terra.axonserver.service.calhoun.CalhounService;
+import bio.terra.axonserver.service.calhoun.ConversionScheduler;
+import bio.terra.axonserver.service.convert.ConversionContext;
+import bio.terra.axonserver.service.convert.ConversionCost;
+import bio.terra.axonserver.service.convert.FileConverter;
+import java.io.InputStream;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/** Converts .rmd R markdown files to html using the Calhoun service. */
+@Component
+public class CalhounRmdConverter implements FileConverter {
+
+  private final CalhounService calhounService;
+  private final ConversionScheduler conversionScheduler;
+
+  @Autowired
+  public CalhounRmdConverter(
+      CalhounService calhounService, ConversionScheduler conversionScheduler) {
+    this.calhounService = calhounService;
+    this.conversionScheduler = conversionScheduler;
+  }
+
+  @Override
+  public Set<String> getSourceExtensions() {
+    return Set.of("rmd");
+  }
+
+  @Override
+  public String getTargetFormat() {
+    return "html";
+  }
+
+  @Override
+  public String getMediaType() {
+    return MediaType.TEXT_HTML_VALUE;
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return false;
+  }
+
+  @Override
+  public ConversionCost getCost() {
+    return ConversionCost.HIGH;
+  }
+
+  @Override
+  public boolean isCacheable() {
+    return true;
+  }
+
+  @Override
+  public InputStream convert(InputStream fileStream, ConversionContext context) {
+    return conversionScheduler.run(
+        context.priority(),
+        context.sizeBytes(),
+        () -> calhounService.convertRmd(context.token().getToken(), fileStream));
+  }
+}
@@ -0,0 +1,12 @@
+package bio.terra.axonserver.service.convert.converter;
+
+import org.apache.commons.csv.CSVFormat;
+import org.springframework.stereotype.Component;
+
+/** Converts comma separated values to an html table. */
+@Component
+public class CsvToHtmlConverter extends DelimitedTextToHtmlConverter {
+  public CsvToHtmlConverter() {
+    super("csv", CSVFormat.DEFAULT);
+  }
+}
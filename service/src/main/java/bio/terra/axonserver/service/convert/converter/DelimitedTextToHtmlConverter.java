@@ -0,0 +1,132 @@
+package bio.terra.axonserver.service.convert.converter;
+
+import bio.terra.axonserver.service.convert.ConversionContext;
+import bio.terra.axonserver.service.convert.ConversionCost;
+import bio.terra.axonserver.service.convert.FileConverter;
+import bio.terra.axonserver.service.exception.CloudObjectReadException;
+import bio.terra.axonserver.utils.TransformingInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Set;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.http.MediaType;
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * Converts delimited text to an html table, one batch of rows at a time. The first record is
+ * rendered as the table header.
+ */
+public abstract class DelimitedTextToHtmlConverter implements FileConverter {
+
+  private static final int ROWS_PER_CHUNK = 256;
+
+  private final String sourceExtension;
+  private final CSVFormat csvFormat;
+
+  protected DelimitedTextToHtmlConverter(String sourceExtension, CSVFormat csvFormat) {
+    this.sourceExtension = sourceExtension;
+    this.csvFormat = csvFormat;
+  }
+
+  @Override
+  public Set<String> getSourceExtensions() {
+    return Set.of(sourceExtension);
+  }
+
+  @Override
+  public String getTargetFormat() {
+    return "html";
+  }
+
+  @Override
+  public String getMediaType() {
+    return MediaType.TEXT_HTML_VALUE;
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return true;
+  }
+
+  @Override
+  public ConversionCost getCost() {
+    return ConversionCost.LOW;
+  }
+
+  @Override
+  public boolean isCacheable() {
+    return true;
+  }
+
+  @Override
+  public InputStream convert(InputStream fileStream, ConversionContext context) {
+    Iterator<CSVRecord> records;
+    try {
+      records =
+          csvFormat.parse(new InputStreamReader(fileStream, StandardCharsets.UTF_8)).iterator();
+    } catch (IOException e) {
+      throw new CloudObjectReadException("Error reading %s file".formatted(sourceExtension), e);
+    }
+    return new HtmlTableInputStream(fileStream, records);
+  }
+
+  private static class HtmlTableInputStream extends TransformingInputStream {
+    private final Iterator<CSVRecord> records;
+    private boolean started;
+    private boolean ended;
+
+    HtmlTableInputStream(InputStream source, Iterator<CSVRecord> records) {
+      super(source);
+      this.records = records;
+    }
+
+    @Override
+    protected byte[] nextChunk() throws IOException {
+      if (ended) {
+        return null;
+      }
+      StringBuilder html = new StringBuilder();
+      try {
+        if (!started) {
+          started = true;
+          html.append(HtmlDocument.PREFIX).append("<table>\n");
+          if (records.hasNext()) {
+            html.append("<thead>\n");
+            appendRow(html, records.next(), "th");
+            html.append("</thead>\n");
+          }
+          html.append("<tbody>\n");
+        }
+        for (int rows = 0; rows < ROWS_PER_CHUNK && records.hasNext(); rows++) {
+          appendRow(html, records.next(), "td");
+        }
+        if (!records.hasNext()) {
+          ended = true;
+          html.append("</tbody>\n</table>\n").append(HtmlDocument.SUFFIX);
+        }
+      } catch (RuntimeException e) {
+        // The CSV record iterator surfaces read and parse errors as unchecked exceptions.
+        throw new IOException("Error parsing delimited text", e);
+      }
+      return html.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendRow(StringBuilder html, CSVRecord record, String cellTag) {
+      html.append("<tr>");
+      for (String value : record) {
+        html.append('<')
+            .append(cellTag)
+            .append('>')
+            .append(HtmlUtils.htmlEscape(value))
+            .append("</")
+            .append(cellTag)
+            .append('>');
+      }
+      html.append("</tr>\n");
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package bio.terra.axonserver.service.convert.converter;
+
+import bio.terra.axonserver.service.convert.ConversionContext;
+import bio.terra.axonserver.service.convert.ConversionCost;
+import bio.terra.axonserver.service.convert.FileConverter;
+import bio.terra.axonserver.service.exception.InvalidConvertToFormat;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/** Decompresses gzip files as they are read. */
+@Component
+public class GzipDecompressConverter implements FileConverter {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  @Override
+  public Set<String> getSourceExtensions() {
+    return Set.of("gz", "gzip");
+  }
+
+  @Override
+  public String getTargetFormat() {
+    return "plain";
+  }
+
+  @Override
+  public String getMediaType() {
+    return MediaType.TEXT_PLAIN_VALUE;
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return true;
+  }
+
+  @Override
+  public ConversionCost getCost() {
+    return ConversionCost.LOW;
+  }
+
+  @Override
+  public boolean isCacheable() {
+    return true;
+  }
+
+  @Override
+  public InputStream convert(InputStream fileStream, ConversionContext context) {
+    try {
+      // Reads and validates the gzip header up front.
+      return new GZIPInputStream(fileStream, BUFFER_SIZE);
+    } catch (IOException e) {
+      throw new InvalidConvertToFormat("File is not in gzip format", e);
+    }
+  }
+}
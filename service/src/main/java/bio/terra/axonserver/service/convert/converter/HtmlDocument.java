@@ -0,0 +1,14 @@
+package bio.terra.axonserver.service.convert.converter;
+
+/** Boilerplate that wraps the HTML fragments produced by in-process converters. */
+final class HtmlDocument {
+  static final String PREFIX =
+      "<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n</head>\n<body>\n";
+  static final String SUFFIX = "</body>\n</html>\n";
+
+  private HtmlDocument() {}
+
+  static String wrap(String body) {
+    return PREFIX + body + SUFFIX;
+  }
+}
@@ -0,0 +1,107 @@
+package bio.terra.axonserver.service.convert.converter;
+
+import bio.terra.axonserver.service.convert.ConversionContext;
+import bio.terra.axonserver.service.convert.ConversionCost;
+import bio.terra.axonserver.service.convert.FileConverter;
+import bio.terra.axonserver.service.exception.CloudObjectReadException;
+import bio.terra.axonserver.utils.TransformingInputStream;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pretty prints json by copying parser tokens to an indenting generator, so the document is never
+ * materialized as a tree.
+ */
+@Component
+public class JsonPrettyPrintConverter implements FileConverter {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final int CHUNK_SIZE = 8192;
+
+  @Override
+  public Set<String> getSourceExtensions() {
+    return Set.of("json");
+  }
+
+  @Override
+  public String getTargetFormat() {
+    return "json";
+  }
+
+  @Override
+  public String getMediaType() {
+    return MediaType.APPLICATION_JSON_VALUE;
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return true;
+  }
+
+  @Override
+  public ConversionCost getCost() {
+    return ConversionCost.LOW;
+  }
+
+  @Override
+  public boolean isCacheable() {
+    return true;
+  }
+
+  @Override
+  public InputStream convert(InputStream fileStream, ConversionContext context) {
+    try {
+      JsonParser parser = JSON_FACTORY.createParser(fileStream);
+      ByteArrayOutputStream output = new ByteArrayOutputStream(CHUNK_SIZE);
+      JsonGenerator generator = JSON_FACTORY.createGenerator(output).useDefaultPrettyPrinter();
+      return new PrettyPrintInputStream(fileStream, parser, generator, output);
+    } catch (IOException e) {
+      throw new CloudObjectReadException("Error reading json file", e);
+    }
+  }
+
+  private static class PrettyPrintInputStream extends TransformingInputStream {
+    private final JsonParser parser;
+    private final JsonGenerator generator;
+    private final ByteArrayOutputStream output;
+    private boolean ended;
+
+    PrettyPrintInputStream(
+        InputStream source,
+        JsonParser parser,
+        JsonGenerator generator,
+        ByteArrayOutputStream output) {
+      super(source);
+      this.parser = parser;
+      this.generator = generator;
+      this.output = output;
+    }
+
+    @Override
+    protected byte[] nextChunk() throws IOException {
+      if (ended) {
+        return null;
+      }
+      while (output.size() < CHUNK_SIZE) {
+        if (parser.nextToken() == null) {
+          ended = true;
+          generator.close();
+          parser.close();
+          break;
+        }
+        generator.copyCurrentEvent(parser);
+        generator.flush();
+      }
+      byte[] chunk = output.toByteArray();
+      output.reset();
+      return chunk;
+    }
+  }
+}
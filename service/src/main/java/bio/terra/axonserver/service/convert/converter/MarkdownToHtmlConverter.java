@@ -0,0 +1,74 @@
+package bio.terra.axonserver.service.convert.converter;
+
+import bio.terra.axonserver.service.convert.ConversionContext;
+import bio.terra.axonserver.service.convert.ConversionCost;
+import bio.terra.axonserver.service.convert.FileConverter;
+import bio.terra.axonserver.service.exception.CloudObjectReadException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.commonmark.node.Node;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts CommonMark markdown to html in process. Markdown block structure can depend on text
+ * further down the document, so the whole file is parsed before any output is produced.
+ */
+@Component
+public class MarkdownToHtmlConverter implements FileConverter {
+
+  // Both are immutable and safe to share between threads.
+  private static final Parser PARSER = Parser.builder().build();
+  // Raw html in the source is escaped rather than passed through, since the output is served to
+  // browsers from the axon origin.
+  private static final HtmlRenderer RENDERER =
+      HtmlRenderer.builder().escapeHtml(true).sanitizeUrls(true).build();
+
+  @Override
+  public Set<String> getSourceExtensions() {
+    return Set.of("md", "markdown");
+  }
+
+  @Override
+  public String getTargetFormat() {
+    return "html";
+  }
+
+  @Override
+  public String getMediaType() {
+    return MediaType.TEXT_HTML_VALUE;
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return false;
+  }
+
+  @Override
+  public ConversionCost getCost() {
+    return ConversionCost.MEDIUM;
+  }
+
+  @Override
+  public boolean isCacheable() {
+    return true;
+  }
+
+  @Override
+  public InputStream convert(InputStream fileStream, ConversionContext context) {
+    try (Reader reader = new InputStreamReader(fileStream, StandardCharsets.UTF_8)) {
+      Node document = PARSER.parseReader(reader);
+      String html = HtmlDocument.wrap(RENDERER.render(document));
+      return new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new CloudObjectReadException("Error reading markdown file", e);
+    }
+  }
+}
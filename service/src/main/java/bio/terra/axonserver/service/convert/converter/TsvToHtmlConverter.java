@@ -0,0 +1,12 @@
+package bio.terra.axonserver.service.convert.converter;
+
+import org.apache.commons.csv.CSVFormat;
+import org.springframework.stereotype.Component;
+
+/** Converts tab separated values to an html table. */
+@Component
+public class TsvToHtmlConverter extends DelimitedTextToHtmlConverter {
+  public TsvToHtmlConverter() {
+    super("tsv", CSVFormat.TDF);
+  }
+}
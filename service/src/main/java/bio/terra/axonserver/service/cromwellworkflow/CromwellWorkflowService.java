@@ -5,56 +5,66 @@ import bio.terra.axonserver.model.ApiWorkflowMetadataResponse;
 import bio.terra.axonserver.model.ApiWorkflowQueryResponse;
 import bio.terra.axonserver.model.ApiWorkflowQueryResult;
 import bio.terra.axonserver.service.cloud.gcp.GcpService;
+import bio.terra.axonserver.service.cromwellworkflow.WdlBundleCache.WdlBundle;
+import bio.terra.axonserver.service.cromwellworkflow.WomtoolService.WorkflowDescription;
 import bio.terra.axonserver.service.exception.InvalidWdlException;
 import bio.terra.axonserver.service.file.FileService;
+import bio.terra.axonserver.service.http.DownstreamCalls;
+import bio.terra.axonserver.service.http.HttpTransportFactory;
 import bio.terra.axonserver.service.iam.SamService;
 import bio.terra.axonserver.service.wsm.WorkspaceManagerService;
-import bio.terra.axonserver.utils.AutoDeletingTempDir;
-import bio.terra.axonserver.utils.AutoDeletingTempFile;
-import bio.terra.axonserver.utils.CloudStorageUtils;
+import bio.terra.axonserver.utils.SpillableBuffer;
 import bio.terra.common.exception.BadRequestException;
 import bio.terra.common.iam.BearerToken;
 import bio.terra.cromwell.api.WorkflowsApi;
 import bio.terra.cromwell.client.ApiClient;
 import bio.terra.cromwell.client.ApiException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.auth.oauth2.GoogleCredentials;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import cromwell.core.path.DefaultPathBuilder;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+import com.google.common.base.Strings;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.swagger.client.model.CromwellApiLabelsResponse;
 import io.swagger.client.model.CromwellApiWorkflowIdAndStatus;
 import io.swagger.client.model.CromwellApiWorkflowMetadataResponse;
 import io.swagger.client.model.CromwellApiWorkflowQueryResponse;
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import io.swagger.client.model.CromwellApiWorkflowQueryResult;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.lang.reflect.Type;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.AbstractMap;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.glassfish.jersey.media.multipart.FormDataMultiPart;
+import org.glassfish.jersey.media.multipart.file.StreamDataBodyPart;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.zeroturnaround.zip.ZipUtil;
-import womtool.WomtoolMain.SuccessfulTermination;
-import womtool.WomtoolMain.Termination;
-import womtool.inputs.Inputs;
 
 /**
  * Wrapper service for calling cromwell. When applicable, the precondition for calling the client
@@ -77,18 +87,22 @@ public class CromwellWorkflowService {
 
   private final GcpService gcpService;
 
+  private final WomtoolService womtoolService;
+
   private final ObjectMapper objectMapper;
+  private final ApiClient apiClient;
+  private final Client httpClient;
+  private final ExecutorService stageExecutor;
+  private final ExecutorService readCheckExecutor;
+  private final ExecutorService dependencyExecutor;
+  private final WdlImportResolver.FetchLimits dependencyLimits;
+  private final WorkflowOwnershipCache ownershipCache;
+  private final WdlBundleCache bundleCache;
 
   private static final String CROMWELL_CLIENT_API_VERSION = "v1";
 
   // Temp file prefixes
-  private static final String INPUTS_PREFIX = "workflow-inputs-";
-  private static final String OPTIONS_PREFIX = "workflow-options-";
-  private static final String LABELS_PREFIX = "workflow-labels-";
   private static final String SOURCE_PREFIX = "workflow-source-";
-  private static final String DEPS_DIR_PREFIX = "workflow-deps-";
-  private static final String DEPS_ZIP_PREFIX = "workflow-deps-zip-";
-  private static final String SUFFIX = "-terra";
 
   @Autowired
   public CromwellWorkflowService(
@@ -97,23 +111,85 @@ public class CromwellWorkflowService {
       WorkspaceManagerService wsmService,
       SamService samService,
       GcpService gcpService,
-      ObjectMapper objectMapper) {
+      WomtoolService womtoolService,
+      ObjectMapper objectMapper,
+      HttpTransportFactory httpTransportFactory) {
     this.cromwellConfig = cromwellConfig;
     this.fileService = fileService;
     this.wsmService = wsmService;
     this.samService = samService;
     this.gcpService = gcpService;
+    this.womtoolService = womtoolService;
     this.objectMapper = objectMapper;
+    this.apiClient = new ApiClient().setBasePath(cromwellConfig.basePath());
+    this.httpClient = httpTransportFactory.newJerseyClient("cromwell", apiClient.getHttpClient());
+    apiClient.setHttpClient(httpClient);
+    this.stageExecutor =
+        newExecutor(
+            "workflow-stage-%d", cromwellConfig.stageThreads(), cromwellConfig.stageQueueSize());
+    this.readCheckExecutor =
+        newExecutor(
+            "workflow-read-check-%d",
+            cromwellConfig.concurrentReadChecks() ? cromwellConfig.readCheckThreads() : 0,
+            cromwellConfig.stageQueueSize());
+    this.dependencyExecutor =
+        newExecutor(
+            "workflow-dependency-%d",
+            cromwellConfig.dependencyThreads(), cromwellConfig.stageQueueSize());
+    this.dependencyLimits =
+        new WdlImportResolver.FetchLimits(
+            dependencyExecutor,
+            cromwellConfig.dependencyParallelism(),
+            cromwellConfig.dependencyMemoryBytes());
+    this.ownershipCache =
+        new WorkflowOwnershipCache(
+            cromwellConfig.ownershipCacheMaxSize(),
+            Duration.ofSeconds(cromwellConfig.ownershipCacheTtlSeconds()),
+            Strings.isNullOrEmpty(cromwellConfig.ownershipCacheFile())
+                ? null
+                : Path.of(cromwellConfig.ownershipCacheFile()),
+            Clock.systemUTC());
+    this.bundleCache =
+        new WdlBundleCache(
+            Strings.isNullOrEmpty(cromwellConfig.bundleCacheDir())
+                ? null
+                : Path.of(cromwellConfig.bundleCacheDir()),
+            cromwellConfig.bundleCacheMaxBytes(),
+            objectMapper);
   }
 
-  private ApiClient getApiClient() {
-    return new ApiClient().setBasePath(cromwellConfig.basePath());
+  /**
+   * A bounded pool for the stages of workflow operations, or their downloads. When the pool and its
+   * queue are full, a task runs on the thread that started it rather than failing the operation.
+   */
+  private static ExecutorService newExecutor(String nameFormat, int threads, int queueSize) {
+    if (threads <= 0) {
+      return MoreExecutors.newDirectExecutorService();
+    }
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(Math.max(1, queueSize)),
+            new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    stageExecutor.shutdownNow();
+    readCheckExecutor.shutdownNow();
+    dependencyExecutor.shutdownNow();
+    ownershipCache.close();
   }
 
   public CromwellApiWorkflowIdAndStatus getStatus(UUID workflowId)
       throws bio.terra.cromwell.client.ApiException {
-    return new WorkflowsApi(getApiClient())
-        .status(CROMWELL_CLIENT_API_VERSION, workflowId.toString());
+    return new WorkflowsApi(apiClient).status(CROMWELL_CLIENT_API_VERSION, workflowId.toString());
   }
 
   /**
@@ -135,7 +211,7 @@ public class CromwellWorkflowService {
       @Nullable List<String> excludeKey,
       @Nullable Boolean expandSubWorkflows)
       throws bio.terra.cromwell.client.ApiException {
-    return new WorkflowsApi(getApiClient())
+    return new WorkflowsApi(apiClient)
         .metadata(
             CROMWELL_CLIENT_API_VERSION,
             workflowId.toString(),
@@ -144,6 +220,56 @@ public class CromwellWorkflowService {
             expandSubWorkflows);
   }
 
+  /**
+   * Get the statuses of several workflows in a workspace with a single Cromwell query, filtered by
+   * workflow id and by the workspace id label. The caller is responsible for checking workspace
+   * access.
+   *
+   * @param workspaceId workspace where the workflows are located
+   * @param workflowIds requested workflows
+   * @return status by workflow id. Workflows that are not found, or are not in the workspace, are
+   *     left out.
+   * @throws BadRequestException if more than {@code maxStatusBatchSize} workflows are requested
+   * @throws bio.terra.cromwell.client.ApiException Exception thrown by Cromwell client.
+   */
+  public Map<UUID, String> getStatuses(UUID workspaceId, Collection<UUID> workflowIds)
+      throws bio.terra.cromwell.client.ApiException {
+    List<String> ids = workflowIds.stream().distinct().map(UUID::toString).toList();
+    if (ids.size() > cromwellConfig.maxStatusBatchSize()) {
+      throw new BadRequestException(
+          "At most %d workflows can be requested at once"
+              .formatted(cromwellConfig.maxStatusBatchSize()));
+    }
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+    CromwellApiWorkflowQueryResponse response =
+        getQuery(
+            /*submission=*/ null,
+            /*start=*/ null,
+            /*end=*/ null,
+            /*status=*/ null,
+            /*name=*/ null,
+            ids,
+            List.of(
+                "%s:%s".formatted(WorkflowReservedLabelKeys.WORKSPACE_ID_LABEL_KEY, workspaceId)),
+            /*labelor=*/ null,
+            /*excludeLabelAnd=*/ null,
+            /*excludeLabelOr=*/ null,
+            /*additionalQueryResultFields=*/ null,
+            /*includeSubworkflows=*/ null);
+    Map<UUID, String> statuses = new HashMap<>();
+    if (response.getResults() != null) {
+      for (CromwellApiWorkflowQueryResult result : response.getResults()) {
+        UUID workflowId = UUID.fromString(result.getId());
+        statuses.put(workflowId, result.getStatus());
+        // The query only matches workflows with this workspace's label.
+        ownershipCache.put(workflowId, workspaceId);
+      }
+    }
+    return statuses;
+  }
+
   /**
    * Queries workflows based on user-supplied criteria, and additionally requires the corresponding
    * workspace id label (e.g., "{WORKSPACE_ID_LABEL_KEY}:{workspaceId}"). For now, do not accept
@@ -163,7 +289,7 @@ public class CromwellWorkflowService {
       @Nullable List<String> additionalQueryResultFields,
       @Nullable Boolean includeSubworkflows)
       throws bio.terra.cromwell.client.ApiException {
-    return new WorkflowsApi(getApiClient())
+    return new WorkflowsApi(apiClient)
         .queryGet(
             CROMWELL_CLIENT_API_VERSION,
             submission,
@@ -182,8 +308,15 @@ public class CromwellWorkflowService {
 
   /**
    * Submits a single workflow to Cromwell. This appends (or overrides) the workspace id label, and
-   * parts of the options configuration. Files are retrieved from GCS, and stored on the disk
-   * temporarily before calling Cromwell.
+   * parts of the options configuration.
+   *
+   * <p>The submission is built by a graph of stages, see {@link WorkflowStages}: the workspace's
+   * project, the caller's identity and pet service account, and the source WDL are looked up
+   * concurrently, and each stage starts once the ones it depends on finish. The source is read into
+   * a buffer that only spills to disk past {@code submissionMemoryThresholdBytes}. Its imports are
+   * then resolved into an in-memory {@link WdlBundle} of the main source and a zip of its
+   * dependencies. Finally the inputs, options, labels and bundle are posted to Cromwell as one
+   * multipart body, streamed from memory.
    *
    * @param workspaceId workspace where the workflow will reside
    * @param workflowGcsUri URI pointing to the workflow source: a GCS object that is a WDL file.
@@ -223,83 +356,189 @@ public class CromwellWorkflowService {
       throw new BadRequestException("workflowOptions.jes_gcs_root must be provided.");
     }
 
-    try (AutoDeletingTempFile tempInputsFile = new AutoDeletingTempFile(INPUTS_PREFIX, SUFFIX);
-        AutoDeletingTempFile tempOptionsFile = new AutoDeletingTempFile(OPTIONS_PREFIX, SUFFIX);
-        AutoDeletingTempFile tempLabelsFile = new AutoDeletingTempFile(LABELS_PREFIX, SUFFIX);
-        AutoDeletingTempFile tempWorkflowSourceFile =
-            new AutoDeletingTempFile(SOURCE_PREFIX, SUFFIX);
-        AutoDeletingTempDir tempDepsDir = new AutoDeletingTempDir(DEPS_DIR_PREFIX);
-        AutoDeletingTempFile tempWorkflowDependenciesFile =
-            new AutoDeletingTempFile(DEPS_ZIP_PREFIX, SUFFIX)) {
-
-      // Create inputs file
-      if (workflowInputs != null) {
-        writeToTmpFile(workflowInputs, tempInputsFile);
-      }
+    try (SpillableBuffer workflowSource =
+            new SpillableBuffer(cromwellConfig.submissionMemoryThresholdBytes(), SOURCE_PREFIX);
+        // Closed first, so no stage is still writing to the buffer when it is released.
+        WorkflowStages stages = new WorkflowStages(stageExecutor, "submit")) {
+
+      // Serialize inputs
+      CompletableFuture<byte[]> inputsJson =
+          stages.start("write_inputs", () -> toJson(workflowInputs));
+
+      // Look up the project and the caller's pet service account
+      CompletableFuture<String> projectId =
+          stages.start(
+              "gcp_context",
+              () -> wsmService.getGcpContext(workspaceId, token.getToken()).getProjectId());
+      CompletableFuture<String> userEmail =
+          stages.start("user_info", () -> samService.getUserStatusInfo(token).getUserEmail());
+      CompletableFuture<String> petSaKey =
+          stages.start(
+              "pet_sa_key",
+              () -> samService.getPetServiceAccountKey(projectId.join(), userEmail.join()),
+              projectId,
+              userEmail);
+      CompletableFuture<String> saEmail =
+          stages.start(
+              "pet_sa_email",
+              () -> samService.getPetServiceAccount(projectId.join(), token),
+              projectId);
 
       // Set preset options
-      String projectId = wsmService.getGcpContext(workspaceId, token.getToken()).getProjectId();
-      String userEmail = samService.getUserStatusInfo(token).getUserEmail();
-      String petSaKey = samService.getPetServiceAccountKey(projectId, userEmail);
-      String saEmail = samService.getPetServiceAccount(projectId, token);
-      setPresetWorkflowOptions(
-          workflowOptions, rootBucket.toString(), projectId, petSaKey, saEmail);
-      writeToTmpFile(workflowOptions, tempOptionsFile);
-      logger.info(
-          "Wrote options to tmp file {} (Options omitted due to sensitive data)",
-          tempOptionsFile.getFile().getPath());
-
-      // Copy the source wdl from GCS
-      var localMainWdlPath = tempWorkflowSourceFile.getFile().toPath();
-      if (workflowGcsUri != null) {
-        InputStream inputStream =
-            fileService.getFile(token, workspaceId, workflowGcsUri, /*convertTo=*/ null);
-        Files.copy(inputStream, localMainWdlPath, StandardCopyOption.REPLACE_EXISTING);
-        logger.info("Copied source WDL from {} to tmp file {}", workflowGcsUri, localMainWdlPath);
-      }
+      CompletableFuture<byte[]> optionsJson =
+          stages.start(
+              "write_options",
+              () -> {
+                setPresetWorkflowOptions(
+                    workflowOptions,
+                    rootBucket.toString(),
+                    projectId.join(),
+                    petSaKey.join(),
+                    saEmail.join());
+                return toJson(workflowOptions);
+              },
+              projectId,
+              petSaKey,
+              saEmail);
+
+      // Read the source wdl from GCS
+      CompletableFuture<Void> sourceCopied =
+          stages.start(
+              "copy_source",
+              () -> {
+                if (workflowGcsUri != null) {
+                  try (InputStream inputStream =
+                          fileService.getFile(
+                              token, workspaceId, workflowGcsUri, /*convertTo=*/ null);
+                      OutputStream out = workflowSource.outputStream()) {
+                    inputStream.transferTo(out);
+                  }
+                  logger.info(
+                      "Read {} bytes of source WDL from {}", workflowSource.size(), workflowGcsUri);
+                }
+                return null;
+              });
 
       // Set preset labels
-      setPresetLabels(labels, workspaceId, userEmail, workflowGcsUri);
-      writeToTmpFile(labels, tempLabelsFile);
-      logger.info("Wrote labels {} to tmp file {}", labels, tempLabelsFile.getFile().getPath());
-
-      if (downloadDependenciesIfExist(
-          workspaceId, token, localMainWdlPath, workflowGcsUri, tempDepsDir.getDir())) {
-        var zipPath = tempWorkflowDependenciesFile.getFile().toString();
-        logger.info("Zipping dependencies to {}", zipPath);
-        ZipUtil.pack(new File(tempDepsDir.getDir().toString()), new File(zipPath));
+      CompletableFuture<byte[]> labelsJson =
+          stages.start(
+              "write_labels",
+              () -> {
+                setPresetLabels(labels, workspaceId, userEmail.join(), workflowGcsUri);
+                logger.info("Set labels {}", labels);
+                return toJson(labels);
+              },
+              userEmail);
+
+      CompletableFuture<WdlBundle> bundle =
+          stages.start(
+              "dependencies",
+              () -> {
+                if (workflowGcsUri == null) {
+                  return null;
+                }
+                byte[] source;
+                try (InputStream in = workflowSource.openInputStream()) {
+                  source = in.readAllBytes();
+                }
+                return getBundle(workspaceId, token, workflowGcsUri, source);
+              },
+              sourceCopied);
+
+      CompletableFuture<CromwellApiWorkflowIdAndStatus> submitted =
+          stages.start(
+              "submit",
+              () -> {
+                try (FormDataMultiPart multiPart = new FormDataMultiPart()) {
+                  WdlBundle workflow = bundle.join();
+                  if (workflow != null) {
+                    addPart(multiPart, "workflowSource", workflow.mainSource());
+                  }
+                  addField(multiPart, "workflowUrl", workflowUrl);
+                  addField(multiPart, "workflowOnHold", workflowOnHold);
+                  addPart(multiPart, "workflowInputs", inputsJson.join());
+                  addPart(multiPart, "workflowOptions", optionsJson.join());
+                  addField(multiPart, "workflowType", workflowType);
+                  addField(multiPart, "workflowTypeVersion", workflowTypeVersion);
+                  addPart(multiPart, "labels", labelsJson.join());
+                  if (workflow != null && workflow.dependencies() != null) {
+                    addPart(multiPart, "workflowDependencies", workflow.dependencies());
+                  }
+                  addField(multiPart, "requestedWorkflowId", requestedWorkflowId);
+                  return submit(multiPart);
+                }
+              },
+              inputsJson,
+              optionsJson,
+              labelsJson,
+              bundle);
+      CromwellApiWorkflowIdAndStatus workflowIdAndStatus = WorkflowStages.await(submitted);
+      rememberOwner(workflowIdAndStatus.getId(), workspaceId);
+      return workflowIdAndStatus;
+    }
+  }
+
+  /**
+   * Post a submission to Cromwell. The body is streamed from the parts, rather than the files the
+   * generated client takes.
+   */
+  private CromwellApiWorkflowIdAndStatus submit(FormDataMultiPart multiPart)
+      throws ApiException, IOException {
+    try (Response response =
+        httpClient
+            .target(cromwellConfig.basePath())
+            .path("api/workflows")
+            .path(CROMWELL_CLIENT_API_VERSION)
+            .request(MediaType.APPLICATION_JSON_TYPE)
+            .post(Entity.entity(multiPart, multiPart.getMediaType()))) {
+      String body = response.readEntity(String.class);
+      if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+        throw new ApiException(
+            response.getStatus(),
+            response.getStatusInfo().getReasonPhrase(),
+            response.getStringHeaders(),
+            body);
       }
+      return objectMapper.readValue(body, CromwellApiWorkflowIdAndStatus.class);
+    }
+  }
 
-      return new WorkflowsApi(getApiClient())
-          .submit(
-              CROMWELL_CLIENT_API_VERSION,
-              tempWorkflowSourceFile.getFile(),
-              workflowUrl,
-              workflowOnHold,
-              tempInputsFile.getFile(),
-              /*workflowInputs_2=*/ null,
-              /*workflowInputs_3=*/ null,
-              /*workflowInputs_4=*/ null,
-              /*workflowInputs_5=*/ null,
-              tempOptionsFile.getFile(),
-              workflowType,
-              /*workflowRoot=*/ null,
-              workflowTypeVersion,
-              tempLabelsFile.getFile(),
-              tempWorkflowDependenciesFile.getFile(),
-              requestedWorkflowId != null ? requestedWorkflowId.toString() : null);
+  private static void addField(FormDataMultiPart multiPart, String name, @Nullable Object value) {
+    if (value != null) {
+      multiPart.field(name, value.toString());
+    }
+  }
+
+  private static void addPart(FormDataMultiPart multiPart, String name, @Nullable byte[] content) {
+    if (content != null) {
+      addPart(multiPart, name, new ByteArrayInputStream(content));
+    }
+  }
+
+  private static void addPart(FormDataMultiPart multiPart, String name, InputStream content) {
+    multiPart.bodyPart(new StreamDataBodyPart(name, content, name));
+  }
+
+  /** Remember the workspace of a submitted workflow, so reads need not look up its labels. */
+  private void rememberOwner(@Nullable String workflowId, UUID workspaceId) {
+    if (workflowId == null) {
+      return;
+    }
+    try {
+      ownershipCache.put(UUID.fromString(workflowId), workspaceId);
+    } catch (IllegalArgumentException e) {
+      logger.warn("Cromwell returned an invalid workflow id {}", workflowId);
     }
   }
 
   /** Retrieve the labels of a workflow. */
   public CromwellApiLabelsResponse getLabels(UUID workflowId)
       throws bio.terra.cromwell.client.ApiException {
-    return new WorkflowsApi(getApiClient())
-        .labels(CROMWELL_CLIENT_API_VERSION, workflowId.toString());
+    return new WorkflowsApi(apiClient).labels(CROMWELL_CLIENT_API_VERSION, workflowId.toString());
   }
 
   /**
-   * Use's The Broad's WOMTool to parse inputs from a WDL. Downloads dependent WDLs in order to
+   * Use's The Broad's WOMTool to parse inputs from a WDL. Fetches the WDLs it imports in order to
    * handle WDLs with sub-wdls.
    *
    * @param workspaceId - Workspace containing WDL
@@ -310,28 +549,52 @@ public class CromwellWorkflowService {
    */
   public Map<String, String> parseInputs(UUID workspaceId, String workflowGcsUri, BearerToken token)
       throws IOException, InvalidWdlException {
-    try (AutoDeletingTempDir tempDir = new AutoDeletingTempDir(DEPS_DIR_PREFIX)) {
-      logger.info("Parsing inputs for workflow {}", workflowGcsUri);
-      Path localMainWdlPath = Paths.get(tempDir.getDir().toString(), "main.wdl");
-      InputStream resourceObjectStream =
-          fileService.getFile(token, workspaceId, workflowGcsUri, null);
-      Files.copy(resourceObjectStream, localMainWdlPath, StandardCopyOption.REPLACE_EXISTING);
-      logger.info("Copied workflow {} to local path {}", workflowGcsUri, localMainWdlPath);
-
-      downloadDependenciesIfExist(
-          workspaceId, token, localMainWdlPath, workflowGcsUri, tempDir.getDir());
-      logger.info("Downloaded all dependencies");
-      Termination termination = Inputs.inputsJson(DefaultPathBuilder.build(localMainWdlPath), true);
-      if (termination instanceof SuccessfulTermination) {
-        String jsonString = termination.stdout().get();
-        logger.info("Received inputs from Cromwell: {}", jsonString);
-        Type mapType = new TypeToken<Map<String, String>>() {}.getType();
-        return new Gson().fromJson(jsonString, mapType);
-      } else {
-        String errorMessage = termination.stderr().get();
-        throw new InvalidWdlException(errorMessage);
-      }
+    logger.info("Parsing inputs for workflow {}", workflowGcsUri);
+    return validDescription(workspaceId, workflowGcsUri, token).inputs();
+  }
+
+  /**
+   * Use WOMTool to parse the outputs of a WDL.
+   *
+   * @param workspaceId - Workspace containing WDL
+   * @param workflowGcsUri - GCS URI path to wdl
+   * @param token - User's OAuth2 token
+   * @return outputs - Map of the type of each output of the WDL
+   * @throws InvalidWdlException - WomTool will throw this if the WDL is invalid.
+   */
+  public Map<String, String> parseOutputs(
+      UUID workspaceId, String workflowGcsUri, BearerToken token)
+      throws IOException, InvalidWdlException {
+    logger.info("Parsing outputs for workflow {}", workflowGcsUri);
+    return validDescription(workspaceId, workflowGcsUri, token).outputs();
+  }
+
+  /**
+   * Use WOMTool to describe a WDL: whether it is valid, and its inputs and outputs if it is. The
+   * description is shared with {@link #parseInputs} and {@link #parseOutputs}, so a WDL is only
+   * parsed once for all three.
+   *
+   * @param workspaceId - Workspace containing WDL
+   * @param workflowGcsUri - GCS URI path to wdl
+   * @param token - User's OAuth2 token
+   */
+  public WorkflowDescription describeWorkflow(
+      UUID workspaceId, String workflowGcsUri, BearerToken token) throws IOException {
+    byte[] mainSource;
+    try (InputStream resourceObjectStream =
+        fileService.getFile(token, workspaceId, workflowGcsUri, null)) {
+      mainSource = resourceObjectStream.readAllBytes();
     }
+    return womtoolService.describe(getBundle(workspaceId, token, workflowGcsUri, mainSource));
+  }
+
+  private WorkflowDescription validDescription(
+      UUID workspaceId, String workflowGcsUri, BearerToken token) throws IOException {
+    WorkflowDescription description = describeWorkflow(workspaceId, workflowGcsUri, token);
+    if (!description.valid()) {
+      throw new InvalidWdlException(String.join("\n", description.errors()));
+    }
+    return description;
   }
 
   /**
@@ -339,32 +602,48 @@ public class CromwellWorkflowService {
    * "terra-workspace-id:workspaceId").
    */
   private void validateWorkflowLabelMatchesWorkspaceId(UUID workflowId, UUID workspaceId) {
-    try {
-      Map<String, String> labels = getLabels(workflowId).getLabels();
-      var workspaceIdLabel = labels.get(WorkflowReservedLabelKeys.WORKSPACE_ID_LABEL_KEY);
-      if (workspaceIdLabel == null || !workspaceIdLabel.equals(workspaceId.toString())) {
-        throw new BadRequestException(
-            "Workflow %s is not a member of workspace %s".formatted(workflowId, workspaceId));
-      }
-    } catch (ApiException e) {
+    UUID owner = ownershipCache.get(workflowId);
+    if (owner == null) {
+      owner = lookUpOwner(workflowId);
+    }
+    if (!workspaceId.equals(owner)) {
       throw new BadRequestException(
           "Workflow %s is not a member of workspace %s".formatted(workflowId, workspaceId));
     }
   }
 
   /**
-   * Writes Map data to a temp file. Used to write inputs.json, options.json and labels.json
+   * Read the workspace a workflow belongs to from its labels, and remember it.
    *
-   * @param data - Map data representing JSON to write to file
-   * @param tempFile - Temporary file to write to
+   * @return the workspace id, or null if the workflow is not found or has no valid workspace label
    */
-  private void writeToTmpFile(Map<String, ?> data, AutoDeletingTempFile tempFile)
-      throws IOException {
-    if (data != null) {
-      try (OutputStream out = new FileOutputStream(tempFile.getFile())) {
-        out.write(objectMapper.writeValueAsString(data).getBytes(StandardCharsets.UTF_8));
-      }
+  @Nullable
+  private UUID lookUpOwner(UUID workflowId) {
+    String workspaceIdLabel;
+    try {
+      Map<String, String> labels = getLabels(workflowId).getLabels();
+      workspaceIdLabel =
+          labels == null ? null : labels.get(WorkflowReservedLabelKeys.WORKSPACE_ID_LABEL_KEY);
+    } catch (ApiException e) {
+      return null;
+    }
+    if (workspaceIdLabel == null) {
+      return null;
+    }
+    UUID owner;
+    try {
+      owner = UUID.fromString(workspaceIdLabel);
+    } catch (IllegalArgumentException e) {
+      return null;
     }
+    ownershipCache.put(workflowId, owner);
+    return owner;
+  }
+
+  /** Serializes inputs, options or labels, or returns null if there are none. */
+  @Nullable
+  private byte[] toJson(@Nullable Map<String, ?> data) throws IOException {
+    return data == null ? null : objectMapper.writeValueAsBytes(data);
   }
 
   /**
@@ -418,55 +697,26 @@ public class CromwellWorkflowService {
     }
   }
 
-  private static boolean containsImportStatement(Path filePath) throws IOException {
-    try (BufferedReader reader =
-        new BufferedReader(
-            new InputStreamReader(
-                new FileInputStream(filePath.toString()), StandardCharsets.UTF_8))) {
-      String line;
-      Pattern importPattern = Pattern.compile("^import\\s\"[^\"]*\".*");
-      while ((line = reader.readLine()) != null) {
-        if (importPattern.matcher(line).matches()) {
-          return true;
-        }
-      }
-      return false;
-    }
-  }
-
-  private void downloadWdlDependencies(
-      UUID workspaceId, BearerToken token, String workflowGcsUri, String destinationPath) {
-    GoogleCredentials googleCredentials = gcpService.getPetSACredentials(workspaceId, token);
-
-    // Parse the bucket and object name
-    String[] parts = CloudStorageUtils.extractBucketAndObjectFromUri(workflowGcsUri);
-    String sourceBucket = parts[0];
-    String sourceObject = parts[1];
-
-    // Parse the directory name if there is one
-    int lastIndex = sourceObject.lastIndexOf('/');
-    String sourceDir = lastIndex == -1 ? "" : sourceObject.substring(0, lastIndex);
-
-    // Download dependencies
-    CloudStorageUtils.downloadGcsDir(
-        googleCredentials, sourceBucket, sourceDir, destinationPath, ".wdl");
-  }
-
-  public boolean downloadDependenciesIfExist(
-      UUID workspaceId,
-      BearerToken token,
-      Path localWdlPath,
-      String workflowGcsUri,
-      Path downloadPath)
+  /**
+   * Get a main WDL in GCS ready to submit with the WDL files it imports, fetching any that are not
+   * cached as the caller's pet service account.
+   */
+  private WdlBundle getBundle(
+      UUID workspaceId, BearerToken token, String workflowGcsUri, byte[] mainSource)
       throws IOException {
-
-    if (containsImportStatement(localWdlPath)) {
-      logger.info("Source WDL has dependencies. Downloading all files to {}.", downloadPath);
-      downloadWdlDependencies(workspaceId, token, workflowGcsUri, downloadPath.toString());
-      return true;
-    }
-    logger.info("Source WDL has no dependencies");
-    return false;
+    Supplier<Storage> gcs =
+        Suppliers.memoize(
+            () ->
+                StorageOptions.newBuilder()
+                    .setCredentials(gcpService.getPetSACredentials(workspaceId, token))
+                    .setTransportOptions(DownstreamCalls.GCS_TRANSPORT_OPTIONS)
+                    .build()
+                    .getService());
+    return bundleCache.get(
+        workflowGcsUri,
+        mainSource,
+        gcs,
+        new WdlImportResolver(gcs, dependencyLimits, cromwellConfig.maxWdlImports()));
   }
 
   /**
@@ -485,6 +735,77 @@ public class CromwellWorkflowService {
     validateWorkflowLabelMatchesWorkspaceId(workflowId, workspaceId);
   }
 
+  /** A Cromwell call that reads data about a single workflow. */
+  @FunctionalInterface
+  public interface WorkflowRead<T> {
+    T read() throws ApiException;
+  }
+
+  /**
+   * Read data about a workflow, if the user has workspace access and the workflow has the required
+   * workspace id label. With {@code concurrentReadChecks}, the read runs on this thread while both
+   * checks run on their own pool, and its result is only returned once both have passed; otherwise
+   * the checks run first. Only use this for small reads, e.g. status or labels, as the read is made
+   * even if a check fails; check first before larger ones, e.g. metadata.
+   *
+   * @param workflowId identifier of the workflow
+   * @param workspaceId workspace where the workflow located
+   * @param accessToken access token
+   * @param read the Cromwell call reading the data
+   * @return the result of the read
+   * @throws ApiException Exception thrown by the Cromwell client during the read.
+   */
+  public <T> T readWithWorkflowAccess(
+      UUID workflowId, UUID workspaceId, String accessToken, WorkflowRead<T> read)
+      throws ApiException {
+    if (!cromwellConfig.concurrentReadChecks()) {
+      validateWorkspaceAccessAndWorkflowLabelMatches(workflowId, workspaceId, accessToken);
+      return read.read();
+    }
+    try (WorkflowStages stages = new WorkflowStages(readCheckExecutor, "read")) {
+      CompletableFuture<Void> accessChecked =
+          stages.start(
+              "access_check",
+              () -> {
+                wsmService.checkWorkspaceReadAccess(workspaceId, accessToken);
+                return null;
+              });
+      CompletableFuture<Void> labelChecked =
+          stages.start(
+              "label_check",
+              () -> {
+                validateWorkflowLabelMatchesWorkspaceId(workflowId, workspaceId);
+                return null;
+              });
+      T result;
+      try {
+        result = read.read();
+      } catch (ApiException | RuntimeException e) {
+        awaitChecks(accessChecked, labelChecked);
+        throw e;
+      }
+      awaitChecks(accessChecked, labelChecked);
+      return result;
+    }
+  }
+
+  /**
+   * Wait for the access and label checks of a read. A failed access check is reported ahead of
+   * anything else, as the sequential checks do, so a user without access learns nothing about the
+   * workflow.
+   */
+  private static void awaitChecks(
+      CompletableFuture<Void> accessChecked, CompletableFuture<Void> labelChecked) {
+    try {
+      accessChecked.join();
+      labelChecked.join();
+    } catch (CompletionException e) {
+      // The checks only throw unchecked exceptions.
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
   public static ApiWorkflowQueryResponse toApiQueryResponse(
       CromwellApiWorkflowQueryResponse workflowQuery) {
     List<ApiWorkflowQueryResult> results =
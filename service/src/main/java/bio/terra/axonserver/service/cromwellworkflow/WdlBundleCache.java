@@ -0,0 +1,370 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import bio.terra.axonserver.service.cromwellworkflow.WdlImportResolver.WdlImportGraph;
+import bio.terra.axonserver.utils.MetricsUtils;
+import bio.terra.axonserver.utils.ZipUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.common.hash.Hashing;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.tags.TagKey;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Workflow bundles, ready to submit, cached on local disk by content. A bundle is keyed by the hash
+ * of its main WDL and the generation of every file the main WDL imports. A repeat submission checks
+ * the generations with one batch request for just those files, and reuses the bundle's zip if none
+ * has changed, without fetching or compressing the files again.
+ *
+ * <p>Zips are kept up to a total size, evicting the least recently used. Each is stored alongside a
+ * manifest of the generations it was built from, so the cache survives restarts. Workflows that
+ * import nothing need no zip and are not cached. Without a directory, nothing is cached.
+ *
+ * <p>Cached zips are submitted as they are, so the directory must not be writable by anyone else.
+ * It is created readable only by its owner, and not used if another user owns it.
+ */
+class WdlBundleCache {
+  private static final Logger logger = LoggerFactory.getLogger(WdlBundleCache.class);
+
+  private static final String ZIP_SUFFIX = ".zip";
+  private static final String MANIFEST_SUFFIX = ".json";
+
+  private static final boolean POSIX =
+      FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+  private static final Set<PosixFilePermission> OWNER_ONLY =
+      PosixFilePermissions.fromString("rwx------");
+
+  private static final TagKey RESULT_KEY = TagKey.create("result");
+  private static final MeasureLong LOOKUPS =
+      MetricsUtils.createCounter(
+          "workflow/bundle_cache_lookups", "Lookups of workflow bundles by result", RESULT_KEY);
+
+  /**
+   * A workflow ready to submit.
+   *
+   * @param mainPath path of the main file in the zip
+   * @param mainSource source of the main file, with its imports relative to the root of the zip
+   * @param dependencies zip of the main file and every file it imports, or null if it imports none
+   * @param urlImports HTTP(S) imports of the main file or the files it imports, which are fetched
+   *     when the workflow is parsed, so may change without the bundle changing
+   */
+  record WdlBundle(
+      String mainPath, byte[] mainSource, @Nullable byte[] dependencies, Set<String> urlImports) {}
+
+  /** What a cached zip was built from. */
+  private record Manifest(
+      String mainKey,
+      String bundleKey,
+      String mainPath,
+      String bucket,
+      String root,
+      Map<String, Long> generations,
+      Set<String> urlImports) {}
+
+  @Nullable private final Path directory;
+  private final long maxBytes;
+  private final ObjectMapper objectMapper;
+
+  /** Guards the maps and the total size. */
+  private final Object lock = new Object();
+  /** Latest manifest for each main WDL, by main key. */
+  private final Map<String, Manifest> manifests = new HashMap<>();
+  /** Size of each cached zip by bundle key, least recently used first. */
+  private final LinkedHashMap<String, Long> zipSizes = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long totalBytes;
+
+  /**
+   * @param directory directory to store zips in, or null to cache nothing
+   * @param maxBytes maximum total size of the stored zips
+   * @param objectMapper mapper for the manifests
+   */
+  WdlBundleCache(@Nullable Path directory, long maxBytes, ObjectMapper objectMapper) {
+    this.directory = directory == null ? null : privateDirectory(directory);
+    this.maxBytes = maxBytes;
+    this.objectMapper = objectMapper;
+    if (this.directory != null) {
+      load(this.directory);
+    }
+  }
+
+  /**
+   * The directory, created readable only by this user if it does not exist, or null if it is owned
+   * by another user or cannot be created.
+   */
+  @Nullable
+  private static Path privateDirectory(Path directory) {
+    try {
+      createPrivateDirectory(directory);
+      if (!POSIX) {
+        return directory;
+      }
+      UserPrincipal owner = Files.getOwner(directory, LinkOption.NOFOLLOW_LINKS);
+      UserPrincipal user =
+          directory
+              .getFileSystem()
+              .getUserPrincipalLookupService()
+              .lookupPrincipalByName(System.getProperty("user.name"));
+      if (!owner.equals(user)) {
+        logger.warn("Not caching bundles in {}, which is owned by {}", directory, owner);
+        return null;
+      }
+      Files.setPosixFilePermissions(directory, OWNER_ONLY);
+      return directory;
+    } catch (IOException e) {
+      logger.warn("Not caching bundles in {}", directory, e);
+      return null;
+    }
+  }
+
+  private static void createPrivateDirectory(Path directory) throws IOException {
+    if (POSIX) {
+      Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+    } else {
+      Files.createDirectories(directory);
+    }
+  }
+
+  /**
+   * Get the bundle for a main WDL, from the cache if the files it imports are unchanged, or else by
+   * resolving its imports.
+   *
+   * @param mainGcsUri gs:// URI of the main file
+   * @param mainSource source of the main file
+   * @param gcs client for the bucket of the main file
+   * @param resolver resolver for the imports, using the same client
+   */
+  WdlBundle get(
+      String mainGcsUri, byte[] mainSource, Supplier<Storage> gcs, WdlImportResolver resolver)
+      throws IOException {
+    String mainKey =
+        Hashing.sha256()
+            .newHasher()
+            .putString(mainGcsUri, StandardCharsets.UTF_8)
+            .putBytes(mainSource)
+            .hash()
+            .toString();
+    // Without a directory there is nothing to look up, and no lookups to count.
+    if (directory != null) {
+      Manifest manifest;
+      synchronized (lock) {
+        manifest = manifests.get(mainKey);
+      }
+      if (manifest != null && unchanged(manifest, gcs.get())) {
+        byte[] zip = readZip(manifest.bundleKey());
+        if (zip != null) {
+          MetricsUtils.record(LOOKUPS, 1, Map.of(RESULT_KEY, "hit"));
+          logger.info("Reusing bundle {} for {}", manifest.bundleKey(), mainGcsUri);
+          String mainObject = manifest.root() + manifest.mainPath();
+          return new WdlBundle(
+              manifest.mainPath(),
+              WdlImportResolver.rootImports(mainObject, mainSource, manifest.root()),
+              zip,
+              manifest.urlImports());
+        }
+      }
+      MetricsUtils.record(LOOKUPS, 1, Map.of(RESULT_KEY, "miss"));
+    }
+
+    WdlImportGraph graph = resolver.resolve(mainGcsUri, mainSource);
+    if (!graph.hasDependencies()) {
+      return new WdlBundle(graph.mainPath(), graph.mainSource(), null, graph.urlImports());
+    }
+    byte[] zip = zip(graph.files());
+    store(
+        new Manifest(
+            mainKey,
+            bundleKey(mainKey, graph.generations()),
+            graph.mainPath(),
+            graph.bucket(),
+            graph.root(),
+            graph.generations(),
+            graph.urlImports()),
+        zip);
+    return new WdlBundle(graph.mainPath(), graph.mainSource(), zip, graph.urlImports());
+  }
+
+  /** Zip the files of a graph, reproducibly, straight from memory. */
+  private static byte[] zip(Map<String, byte[]> files) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ZipUtils.writeWdlZip(files, bytes);
+    return bytes.toByteArray();
+  }
+
+  private static String bundleKey(String mainKey, Map<String, Long> generations) {
+    StringBuilder key = new StringBuilder(mainKey);
+    for (Map.Entry<String, Long> generation : new TreeMap<>(generations).entrySet()) {
+      key.append('\n').append(generation.getKey()).append('#').append(generation.getValue());
+    }
+    return Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString();
+  }
+
+  /**
+   * Whether every file the bundle was built from is still at the same generation. Only those files
+   * are looked up, in one batch request, however many others share their directory.
+   */
+  private static boolean unchanged(Manifest manifest, Storage gcs) {
+    List<String> objects = List.copyOf(manifest.generations().keySet());
+    List<Blob> blobs =
+        gcs.get(objects.stream().map(object -> BlobId.of(manifest.bucket(), object)).toList());
+    for (int i = 0; i < objects.size(); i++) {
+      Blob blob = blobs.get(i);
+      if (blob == null
+          || !manifest.generations().get(objects.get(i)).equals(blob.getGeneration())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Nullable
+  private byte[] readZip(String bundleKey) {
+    if (directory == null) {
+      return null;
+    }
+    Path zipFile = directory.resolve(bundleKey + ZIP_SUFFIX);
+    try {
+      byte[] zip = Files.readAllBytes(zipFile);
+      // Recorded so the order of use survives restarts.
+      Files.setLastModifiedTime(zipFile, FileTime.from(Instant.now()));
+      synchronized (lock) {
+        zipSizes.get(bundleKey);
+      }
+      return zip;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      logger.warn("Failed to read cached bundle {}", zipFile, e);
+      return null;
+    }
+  }
+
+  private void store(Manifest manifest, byte[] zip) {
+    if (directory == null) {
+      return;
+    }
+    try {
+      createPrivateDirectory(directory);
+      write(directory.resolve(manifest.bundleKey() + ZIP_SUFFIX), zip);
+      write(
+          directory.resolve(manifest.bundleKey() + MANIFEST_SUFFIX),
+          objectMapper.writeValueAsBytes(manifest));
+    } catch (IOException e) {
+      logger.warn("Failed to cache bundle {}", manifest.bundleKey(), e);
+      return;
+    }
+    synchronized (lock) {
+      add(manifest, zip.length);
+      evict();
+    }
+  }
+
+  /** Write a file in one step, so readers never see it partly written. */
+  private static void write(Path file, byte[] content) throws IOException {
+    Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      Files.write(tempFile, content);
+      Files.move(
+          tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /** Record a stored bundle. Called with the lock held. */
+  private void add(Manifest manifest, long size) {
+    manifests.put(manifest.mainKey(), manifest);
+    Long previousSize = zipSizes.put(manifest.bundleKey(), size);
+    totalBytes += size - (previousSize == null ? 0 : previousSize);
+  }
+
+  /** Delete the least recently used bundles until the rest fit. Called with the lock held. */
+  private void evict() {
+    var eldest = zipSizes.entrySet().iterator();
+    while (totalBytes > maxBytes && eldest.hasNext()) {
+      Map.Entry<String, Long> entry = eldest.next();
+      String bundleKey = entry.getKey();
+      totalBytes -= entry.getValue();
+      eldest.remove();
+      manifests.values().removeIf(manifest -> manifest.bundleKey().equals(bundleKey));
+      try {
+        Files.deleteIfExists(directory.resolve(bundleKey + MANIFEST_SUFFIX));
+        Files.deleteIfExists(directory.resolve(bundleKey + ZIP_SUFFIX));
+      } catch (IOException e) {
+        logger.warn("Failed to delete cached bundle {}", bundleKey, e);
+      }
+      logger.info("Evicted bundle {}", bundleKey);
+    }
+  }
+
+  /** Load the bundles stored before a restart, least recently used first. */
+  private void load(Path directory) {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    List<Path> zips;
+    try (Stream<Path> files = Files.list(directory)) {
+      zips =
+          files
+              .filter(file -> file.getFileName().toString().endsWith(ZIP_SUFFIX))
+              .sorted(Comparator.comparing(WdlBundleCache::lastModified))
+              .toList();
+    } catch (IOException | UncheckedIOException e) {
+      logger.warn("Failed to list cached bundles in {}", directory, e);
+      return;
+    }
+    synchronized (lock) {
+      for (Path zipFile : zips) {
+        String fileName = zipFile.getFileName().toString();
+        String bundleKey = fileName.substring(0, fileName.length() - ZIP_SUFFIX.length());
+        try {
+          Manifest manifest =
+              objectMapper.readValue(
+                  directory.resolve(bundleKey + MANIFEST_SUFFIX).toFile(), Manifest.class);
+          add(manifest, Files.size(zipFile));
+        } catch (IOException e) {
+          // A bundle without a readable manifest cannot be reused.
+          logger.warn("Skipping cached bundle {}", zipFile, e);
+        }
+      }
+      evict();
+      logger.info("Loaded {} cached bundles from {}", zipSizes.size(), directory);
+    }
+  }
+
+  private static FileTime lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,369 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import bio.terra.axonserver.service.exception.CloudObjectReadException;
+import bio.terra.axonserver.utils.CloudStorageUtils;
+import bio.terra.axonserver.utils.MetricsUtils;
+import bio.terra.common.exception.BadRequestException;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.Measure.MeasureLong;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the WDL files a workflow imports, starting from its main file in GCS. Import statements
+ * are parsed from each file and the graph is walked breadth first, fetching each level
+ * concurrently, so only the files reachable from the main file are fetched.
+ *
+ * <p>Relative imports, including ones reaching outside the main file's directory with {@code ../},
+ * are fetched from the main file's bucket. HTTP(S) imports are recorded but not fetched: Cromwell
+ * and Womtool fetch them, and anything they import, themselves.
+ */
+class WdlImportResolver {
+  private static final Logger logger = LoggerFactory.getLogger(WdlImportResolver.class);
+
+  /** An import statement. Groups: the text before the path, the quote, and the path. */
+  private static final Pattern IMPORT_PATTERN =
+      Pattern.compile("^(\\s*import\\s+)([\"'])([^\"']+)\\2", Pattern.MULTILINE);
+
+  private static final MeasureLong GRAPH_FILES =
+      MetricsUtils.createCountDistribution(
+          "workflow/import_graph_files",
+          "WDL files fetched for a workflow, including the main file");
+  private static final MeasureDouble FETCH_TIME =
+      MetricsUtils.createLatencyDistribution(
+          "workflow/import_graph_fetch_time",
+          "Time taken to fetch the WDL files a workflow imports");
+
+  /**
+   * The files reachable from a main WDL, laid out relative to the deepest directory containing them
+   * all.
+   *
+   * @param mainPath path of the main file in the layout
+   * @param mainSource source of the main file, with relative imports rewritten to be relative to
+   *     the root of the layout if the main file is not at the root
+   * @param files content of every file by its path in the layout, including the main file, in the
+   *     order they were reached
+   * @param urlImports HTTP(S) imports, left for Cromwell to fetch
+   * @param bucket bucket of the main file and every file it imports
+   * @param root directory in the bucket the files are laid out relative to, with a trailing slash,
+   *     or empty for the bucket root
+   * @param generations generation of each imported file fetched, by its object name in the bucket
+   */
+  record WdlImportGraph(
+      String mainPath,
+      byte[] mainSource,
+      Map<String, byte[]> files,
+      Set<String> urlImports,
+      String bucket,
+      String root,
+      Map<String, Long> generations) {
+    /** Whether the main file imports any other file from GCS. */
+    boolean hasDependencies() {
+      return files.size() > 1;
+    }
+  }
+
+  /**
+   * How the files of an import graph are fetched.
+   *
+   * @param executor threads the files are fetched on
+   * @param parallelism maximum number of files fetched at once for one graph
+   * @param memoryBytes maximum bytes of WDL in one graph. The files are held in memory while their
+   *     imports are resolved, so each file's size is reserved before its content is read.
+   */
+  record FetchLimits(Executor executor, int parallelism, int memoryBytes) {}
+
+  /** An object as fetched, pinned to one generation. */
+  private record Fetched(long generation, byte[] source) {}
+
+  /** Bytes of WDL one graph may still fetch, shared by the threads fetching it. */
+  private static final class MemoryBudget {
+    private final String mainGcsUri;
+    private final int limit;
+    private final AtomicLong remaining;
+
+    private MemoryBudget(String mainGcsUri, int limit) {
+      this.mainGcsUri = mainGcsUri;
+      this.limit = limit;
+      this.remaining = new AtomicLong(limit);
+    }
+
+    /**
+     * Take bytes from the budget.
+     *
+     * @throws BadRequestException if the budget is exceeded
+     */
+    void reserve(long bytes) {
+      if (remaining.addAndGet(-bytes) < 0) {
+        throw new BadRequestException(
+            "Workflow %s imports more than %d bytes of WDL".formatted(mainGcsUri, limit));
+      }
+    }
+
+    boolean exceeded() {
+      return remaining.get() < 0;
+    }
+  }
+
+  private final Supplier<Storage> gcs;
+  private final FetchLimits limits;
+  private final int maxFiles;
+
+  /**
+   * @param gcs client for the bucket of the main file, only created if the main file imports others
+   * @param limits threads and concurrency for fetching, and the maximum bytes of WDL fetched
+   * @param maxFiles maximum number of files in the graph, including the main file
+   */
+  WdlImportResolver(Supplier<Storage> gcs, FetchLimits limits, int maxFiles) {
+    this.gcs = gcs;
+    this.limits = limits;
+    this.maxFiles = maxFiles;
+  }
+
+  /**
+   * Resolve the import graph of a main WDL.
+   *
+   * @param mainGcsUri gs:// URI of the main file
+   * @param mainSource source of the main file
+   * @throws BadRequestException if an import is missing, unsupported or outside the bucket, or the
+   *     graph is too large
+   */
+  WdlImportGraph resolve(String mainGcsUri, byte[] mainSource) {
+    long start = System.nanoTime();
+    String[] bucketAndObject = CloudStorageUtils.extractBucketAndObjectFromUri(mainGcsUri);
+    String bucket = bucketAndObject[0];
+    String mainObject = bucketAndObject[1];
+
+    Map<String, byte[]> sources = new LinkedHashMap<>();
+    Map<String, Long> generations = new LinkedHashMap<>();
+    Set<String> urlImports = new LinkedHashSet<>();
+    sources.put(mainObject, mainSource);
+    MemoryBudget budget = new MemoryBudget(mainGcsUri, limits.memoryBytes());
+    budget.reserve(mainSource.length);
+    Collection<String> level = List.of(mainObject);
+    while (!level.isEmpty()) {
+      Set<String> next = new LinkedHashSet<>();
+      for (String object : level) {
+        for (String importPath : imports(sources.get(object))) {
+          if (isUrl(importPath)) {
+            urlImports.add(importPath);
+            continue;
+          }
+          String imported = resolvePath(object, importPath);
+          if (!sources.containsKey(imported)) {
+            next.add(imported);
+          }
+        }
+      }
+      if (sources.size() + next.size() > maxFiles) {
+        throw new BadRequestException(
+            "Workflow %s imports more than %d WDL files".formatted(mainGcsUri, maxFiles - 1));
+      }
+      Map<String, Fetched> fetched = fetchAll(bucket, next, budget);
+      fetched.forEach(
+          (object, fetchedObject) -> {
+            sources.put(object, fetchedObject.source());
+            generations.put(object, fetchedObject.generation());
+          });
+      level = next;
+    }
+
+    String root = commonDirectory(sources.keySet());
+    Map<String, byte[]> files = new LinkedHashMap<>();
+    sources.forEach((object, source) -> files.put(object.substring(root.length()), source));
+    WdlImportGraph graph =
+        new WdlImportGraph(
+            mainObject.substring(root.length()),
+            rootImports(mainObject, mainSource, root),
+            files,
+            urlImports,
+            bucket,
+            root,
+            generations);
+
+    double millis = (System.nanoTime() - start) / 1_000_000.0;
+    MetricsUtils.record(GRAPH_FILES, files.size());
+    MetricsUtils.record(FETCH_TIME, millis, Map.of());
+    logger.info(
+        "Resolved {} WDL files and {} URL imports for {} in {} ms",
+        files.size(),
+        urlImports.size(),
+        mainGcsUri,
+        Math.round(millis));
+    return graph;
+  }
+
+  /** Paths of the files a WDL source imports, as written. */
+  static List<String> imports(byte[] source) {
+    List<String> imports = new ArrayList<>();
+    Matcher matcher = IMPORT_PATTERN.matcher(new String(source, StandardCharsets.UTF_8));
+    while (matcher.find()) {
+      imports.add(matcher.group(3));
+    }
+    return imports;
+  }
+
+  private static boolean isUrl(String importPath) {
+    if (importPath.startsWith("http://") || importPath.startsWith("https://")) {
+      return true;
+    }
+    if (importPath.contains("://")) {
+      throw new BadRequestException("Unsupported WDL import " + importPath);
+    }
+    return false;
+  }
+
+  /** The directory part of a path, with a trailing slash, or empty if there is none. */
+  static String directoryOf(String path) {
+    return path.substring(0, path.lastIndexOf('/') + 1);
+  }
+
+  /** Resolve an import path against the object importing it, within the bucket. */
+  private static String resolvePath(String importer, String importPath) {
+    String base = importPath.startsWith("/") ? "" : directoryOf(importer);
+    Deque<String> segments = new ArrayDeque<>();
+    for (String segment : (base + importPath).split("/")) {
+      if (segment.isEmpty() || segment.equals(".")) {
+        continue;
+      }
+      if (segment.equals("..")) {
+        if (segments.isEmpty()) {
+          throw new BadRequestException(
+              "WDL import %s in %s is outside the bucket".formatted(importPath, importer));
+        }
+        segments.removeLast();
+      } else {
+        segments.addLast(segment);
+      }
+    }
+    return String.join("/", segments);
+  }
+
+  /** The deepest directory containing every object, with a trailing slash, or empty. */
+  private static String commonDirectory(Collection<String> objects) {
+    String common = null;
+    for (String object : objects) {
+      String directory = directoryOf(object);
+      if (common == null) {
+        common = directory;
+      }
+      while (!directory.startsWith(common)) {
+        common = directoryOf(common.substring(0, common.length() - 1));
+      }
+    }
+    return common == null ? "" : common;
+  }
+
+  /**
+   * Rewrite the relative imports of the main file to be relative to the root of the layout.
+   * Cromwell resolves the imports of the submitted source against the root of the dependencies zip.
+   */
+  static byte[] rootImports(String mainObject, byte[] mainSource, String root) {
+    if (directoryOf(mainObject).equals(root)) {
+      return mainSource;
+    }
+    Matcher matcher = IMPORT_PATTERN.matcher(new String(mainSource, StandardCharsets.UTF_8));
+    StringBuilder rooted = new StringBuilder();
+    while (matcher.find()) {
+      String importPath = matcher.group(3);
+      String replacement =
+          isUrl(importPath)
+              ? matcher.group()
+              : matcher.group(1)
+                  + matcher.group(2)
+                  + resolvePath(mainObject, importPath).substring(root.length())
+                  + matcher.group(2);
+      matcher.appendReplacement(rooted, Matcher.quoteReplacement(replacement));
+    }
+    matcher.appendTail(rooted);
+    return rooted.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Fetch objects concurrently, within the parallelism limit, keeping their order. No more fetches
+   * are started once the memory budget is exceeded.
+   */
+  private Map<String, Fetched> fetchAll(
+      String bucket, Collection<String> objects, MemoryBudget budget) {
+    if (objects.isEmpty()) {
+      return Map.of();
+    }
+    // Created on the calling thread, which carries the request.
+    Storage storage = gcs.get();
+    Semaphore permits = new Semaphore(Math.max(1, limits.parallelism()));
+    Map<String, CompletableFuture<Fetched>> fetches = new LinkedHashMap<>();
+    for (String object : objects) {
+      permits.acquireUninterruptibly();
+      if (budget.exceeded()) {
+        // A fetch that has finished exceeded it, and throws below.
+        permits.release();
+        break;
+      }
+      fetches.put(
+          object,
+          CompletableFuture.supplyAsync(
+                  () -> read(storage, bucket, object, budget), limits.executor())
+              .whenComplete((source, e) -> permits.release()));
+    }
+    Map<String, Fetched> fetched = new LinkedHashMap<>();
+    for (Map.Entry<String, CompletableFuture<Fetched>> fetch : fetches.entrySet()) {
+      try {
+        fetched.put(fetch.getKey(), fetch.getValue().join());
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        throw e;
+      }
+    }
+    return fetched;
+  }
+
+  /**
+   * Read the current generation of an object. The content is read from that generation, so it
+   * matches the generation reported even if the object is replaced in between. Its size is taken
+   * from the budget before the content is read.
+   */
+  private static Fetched read(Storage storage, String bucket, String object, MemoryBudget budget) {
+    String uri = "gs://%s/%s".formatted(bucket, object);
+    try {
+      Blob blob = storage.get(BlobId.of(bucket, object));
+      if (blob == null) {
+        throw new BadRequestException("Imported WDL %s not found".formatted(uri));
+      }
+      long size = blob.getSize() == null ? 0 : blob.getSize();
+      budget.reserve(size);
+      byte[] source = blob.getContent();
+      // Account for what was read, in case the listed size was missing.
+      budget.reserve(source.length - size);
+      return new Fetched(blob.getGeneration(), source);
+    } catch (StorageException e) {
+      if (e.getCode() == 404) {
+        throw new BadRequestException("Imported WDL %s not found".formatted(uri));
+      }
+      throw new CloudObjectReadException("Error reading imported WDL " + uri, e);
+    }
+  }
+}
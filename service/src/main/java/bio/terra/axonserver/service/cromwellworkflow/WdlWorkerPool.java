@@ -0,0 +1,386 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import bio.terra.axonserver.app.configuration.WomtoolConfiguration;
+import bio.terra.axonserver.service.exception.TooManyRequestsException;
+import bio.terra.axonserver.service.exception.WdlParseTimeoutException;
+import bio.terra.axonserver.utils.MetricsUtils;
+import bio.terra.axonserver.wdlworker.WdlWorkerMain;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseRequest;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseResult;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.Ping;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.Ready;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.WorkerFailedException;
+import bio.terra.common.exception.InternalServerErrorException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.tags.TagKey;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of WDL worker processes, each running Womtool on one workflow at a time. Keeping Womtool
+ * out of the server means the server neither loads Cromwell at startup nor holds a parse's
+ * workflow graph in its heap, and a parse that runs away can be stopped by killing its worker.
+ *
+ * <p>Workers are started when the pool starts, warming up on a sample workflow, or otherwise when
+ * first needed, up to {@link WomtoolConfiguration#workers()}. Idle workers are pinged
+ * periodically, and a worker that has exited, does not answer or times out on a parse is killed
+ * and replaced.
+ */
+class WdlWorkerPool implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(WdlWorkerPool.class);
+
+  private static final Duration PING_TIMEOUT = Duration.ofSeconds(10);
+
+  private static final TagKey STATE_KEY = TagKey.create("state");
+  private static final TagKey REASON_KEY = TagKey.create("reason");
+  private static final MeasureDouble WORKER_START_TIME =
+      MetricsUtils.createLatencyDistribution(
+          "womtool/worker_start_time", "Time taken to start a WDL worker, including its warm-up");
+  private static final MeasureLong WARM_UP_PARSE_TIME =
+      MetricsUtils.createGauge(
+          "womtool/warm_up_parse_time",
+          "Time taken by a WDL worker to parse the sample workflow, cold and then warm",
+          "ms",
+          STATE_KEY);
+  private static final MeasureLong WORKERS =
+      MetricsUtils.createGauge("womtool/workers", "Running WDL workers", "1");
+  private static final MeasureLong WORKERS_KILLED =
+      MetricsUtils.createCounter(
+          "womtool/workers_killed", "WDL workers killed, by reason", REASON_KEY);
+
+  private final WomtoolConfiguration womtoolConfig;
+  private final List<String> command;
+  /** Requests parsing or waiting for a worker. */
+  private final Semaphore admission;
+  private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+  /** Workers running or starting, whether idle or not. */
+  private final AtomicInteger live = new AtomicInteger();
+  /** Starts workers in the background and checks their health. */
+  private final ScheduledExecutorService maintenance;
+  /** Kills workers whose parse, ping or startup has timed out. Its tasks never block. */
+  private final ScheduledExecutorService watchdogs;
+
+  WdlWorkerPool(WomtoolConfiguration womtoolConfig) {
+    this(womtoolConfig, WdlWorkerMain.class.getName());
+  }
+
+  /**
+   * @param workerMainClass main class of the worker processes, which must speak {@link
+   *     WdlWorkerProtocol}
+   */
+  @VisibleForTesting
+  WdlWorkerPool(WomtoolConfiguration womtoolConfig, String workerMainClass) {
+    this.womtoolConfig = womtoolConfig;
+    this.command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(womtoolConfig.workerJvmOptions());
+    command.addAll(List.of("-cp", womtoolConfig.workerClasspath()));
+    command.add(workerMainClass);
+    if (womtoolConfig.warmUp()) {
+      command.add(WdlWorkerMain.WARM_UP_FLAG);
+    }
+    this.admission = new Semaphore(womtoolConfig.workers() + womtoolConfig.queueSize());
+    this.maintenance = newScheduler("wdl-worker-maintenance-%d");
+    this.watchdogs = newScheduler("wdl-worker-watchdog-%d");
+    maintenance.scheduleWithFixedDelay(
+        this::checkHealth,
+        womtoolConfig.healthCheckIntervalSeconds(),
+        womtoolConfig.healthCheckIntervalSeconds(),
+        TimeUnit.SECONDS);
+  }
+
+  private static ScheduledExecutorService newScheduler(String nameFormat) {
+    return Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build());
+  }
+
+  /** Start workers in the background until the pool is full. */
+  void start() {
+    maintenance.execute(this::fill);
+  }
+
+  /**
+   * Kill the idle workers. A busy worker exits once it has answered, as the server's end of its
+   * stdin is closed when the server exits.
+   */
+  @Override
+  public void close() {
+    maintenance.shutdownNow();
+    watchdogs.shutdownNow();
+    for (Worker worker = idle.poll(); worker != null; worker = idle.poll()) {
+      worker.close();
+    }
+  }
+
+  /**
+   * Parse a workflow on a worker.
+   *
+   * <p>A request waits at most the parse timeout for a worker, and the parse then has the whole
+   * timeout to itself, so a parse that times out would time out again.
+   *
+   * @throws TooManyRequestsException if too many parses are waiting for a worker, or none became
+   *     free within the timeout
+   * @throws WdlParseTimeoutException if the parse does not finish within the timeout
+   */
+  ParseResult parse(ParseRequest request) {
+    if (!admission.tryAcquire()) {
+      throw reject("Too many workflows are being parsed");
+    }
+    try {
+      long deadline =
+          System.nanoTime() + TimeUnit.SECONDS.toNanos(womtoolConfig.parseTimeoutSeconds());
+      Worker borrowed = borrow(deadline);
+      if (borrowed != null && deadline - System.nanoTime() <= 0) {
+        // Starting the worker took longer than a request waits; another request can use it.
+        idle.add(borrowed);
+        borrowed = null;
+      }
+      if (borrowed == null) {
+        throw reject("Timed out waiting for a WDL worker");
+      }
+      Worker worker = borrowed;
+      long parseTimeoutNanos = TimeUnit.SECONDS.toNanos(womtoolConfig.parseTimeoutSeconds());
+      AtomicBoolean timedOut = new AtomicBoolean();
+      ScheduledFuture<?> watchdog =
+          watchdogs.schedule(
+              () -> {
+                timedOut.set(true);
+                worker.close();
+              },
+              parseTimeoutNanos,
+              TimeUnit.NANOSECONDS);
+      try {
+        ParseResult result = worker.parse(request);
+        release(worker, watchdog);
+        return result;
+      } catch (WorkerFailedException e) {
+        release(worker, watchdog);
+        throw new InternalServerErrorException(e.getMessage(), e);
+      } catch (IOException e) {
+        watchdog.cancel(false);
+        if (timedOut.get()) {
+          discard(worker, "timeout");
+          logger.warn(
+              "Killed WDL worker {} after {} s parsing workflow {}",
+              worker.pid(),
+              womtoolConfig.parseTimeoutSeconds(),
+              request.mainPath());
+          throw new WdlParseTimeoutException(
+              "Workflow %s could not be parsed within %d seconds"
+                  .formatted(request.mainPath(), womtoolConfig.parseTimeoutSeconds()));
+        }
+        discard(worker, "crashed");
+        throw new InternalServerErrorException("WDL worker failed", e);
+      }
+    } finally {
+      admission.release();
+    }
+  }
+
+  /** Return a worker that has answered to the pool, unless its watchdog has already killed it. */
+  private void release(Worker worker, ScheduledFuture<?> watchdog) {
+    if (watchdog.cancel(false)) {
+      idle.add(worker);
+    } else {
+      discard(worker, "timeout");
+    }
+  }
+
+  /** Parses running or waiting for a worker. */
+  @VisibleForTesting
+  int inFlight() {
+    return womtoolConfig.workers() + womtoolConfig.queueSize() - admission.availablePermits();
+  }
+
+  private TooManyRequestsException reject(String message) {
+    logger.warn(
+        "{}: {} workers, {} idle, {} in flight", message, live.get(), idle.size(), inFlight());
+    return new TooManyRequestsException(message, womtoolConfig.retryAfterSeconds());
+  }
+
+  /**
+   * Take an idle worker, starting one if the pool is not full, or wait for one until the deadline.
+   * Returns null if none became idle in time.
+   */
+  private @Nullable Worker borrow(long deadline) {
+    try {
+      while (true) {
+        Worker worker = idle.poll();
+        if (worker == null && reserve()) {
+          return startWorker();
+        }
+        if (worker == null) {
+          worker = idle.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (worker == null) {
+            return null;
+          }
+        }
+        if (worker.isAlive()) {
+          return worker;
+        }
+        discard(worker, "exited");
+      }
+    } catch (IOException e) {
+      throw new InternalServerErrorException("Could not start a WDL worker", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InternalServerErrorException("Interrupted waiting for a WDL worker", e);
+    }
+  }
+
+  /** Reserve a place for a new worker, if the pool is not full. */
+  private boolean reserve() {
+    int count;
+    do {
+      count = live.get();
+      if (count >= womtoolConfig.workers()) {
+        return false;
+      }
+    } while (!live.compareAndSet(count, count + 1));
+    MetricsUtils.record(WORKERS, count + 1L);
+    return true;
+  }
+
+  /** Start a worker in a place already reserved, giving the place up if it fails to start. */
+  private Worker startWorker() throws IOException {
+    long start = System.nanoTime();
+    Process process;
+    try {
+      process =
+          new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    } catch (IOException e) {
+      MetricsUtils.record(WORKERS, live.decrementAndGet());
+      throw e;
+    }
+    Worker worker = new Worker(process);
+    ScheduledFuture<?> watchdog =
+        watchdogs.schedule(
+            worker::close, womtoolConfig.workerStartTimeoutSeconds(), TimeUnit.SECONDS);
+    try {
+      Ready ready = worker.awaitReady();
+      watchdog.cancel(false);
+      double millis = (System.nanoTime() - start) / 1_000_000.0;
+      MetricsUtils.record(WORKER_START_TIME, millis, Map.of());
+      if (ready.coldParseMillis() >= 0) {
+        MetricsUtils.record(WARM_UP_PARSE_TIME, ready.coldParseMillis(), Map.of(STATE_KEY, "cold"));
+        MetricsUtils.record(WARM_UP_PARSE_TIME, ready.warmParseMillis(), Map.of(STATE_KEY, "warm"));
+      }
+      logger.info(
+          "Started WDL worker {} in {} ms; sample parsed in {} ms cold, {} ms warm",
+          worker.pid(),
+          Math.round(millis),
+          ready.coldParseMillis(),
+          ready.warmParseMillis());
+      return worker;
+    } catch (IOException e) {
+      watchdog.cancel(false);
+      discard(worker, "start_failed");
+      throw e;
+    }
+  }
+
+  private void discard(Worker worker, String reason) {
+    worker.close();
+    MetricsUtils.record(WORKERS_KILLED, 1, Map.of(REASON_KEY, reason));
+    MetricsUtils.record(WORKERS, live.decrementAndGet());
+  }
+
+  /** Start workers until the pool is full. */
+  private void fill() {
+    while (reserve()) {
+      try {
+        idle.add(startWorker());
+      } catch (IOException e) {
+        logger.error("Could not start a WDL worker", e);
+        return;
+      }
+    }
+  }
+
+  /** Ping each idle worker, replacing those that do not answer. */
+  private void checkHealth() {
+    List<Worker> workers = new ArrayList<>();
+    idle.drainTo(workers);
+    for (Worker worker : workers) {
+      ScheduledFuture<?> watchdog =
+          watchdogs.schedule(worker::close, PING_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+      try {
+        worker.ping();
+        idle.add(worker);
+      } catch (IOException e) {
+        logger.warn("WDL worker {} failed its health check, replacing it", worker.pid(), e);
+        discard(worker, "unhealthy");
+      } finally {
+        watchdog.cancel(false);
+      }
+    }
+    if (womtoolConfig.warmUp()) {
+      fill();
+    }
+  }
+
+  /** A worker process, and the streams to talk to it. */
+  private static class Worker implements AutoCloseable {
+    private final Process process;
+    private final DataOutputStream toWorker;
+    private final DataInputStream fromWorker;
+
+    Worker(Process process) {
+      this.process = process;
+      this.toWorker = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+      this.fromWorker = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    }
+
+    long pid() {
+      return process.pid();
+    }
+
+    boolean isAlive() {
+      return process.isAlive();
+    }
+
+    Ready awaitReady() throws IOException {
+      return WdlWorkerProtocol.readReady(fromWorker);
+    }
+
+    ParseResult parse(ParseRequest request) throws IOException {
+      WdlWorkerProtocol.writeRequest(toWorker, request);
+      return WdlWorkerProtocol.readResult(fromWorker);
+    }
+
+    void ping() throws IOException {
+      WdlWorkerProtocol.writeRequest(toWorker, new Ping());
+      WdlWorkerProtocol.readPong(fromWorker);
+    }
+
+    /** Kill the process, so any read from it fails. */
+    @Override
+    public void close() {
+      process.destroyForcibly();
+    }
+  }
+}
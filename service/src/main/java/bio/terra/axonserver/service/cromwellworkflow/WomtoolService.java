@@ -0,0 +1,201 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import bio.terra.axonserver.app.configuration.WomtoolConfiguration;
+import bio.terra.axonserver.service.cromwellworkflow.WdlBundleCache.WdlBundle;
+import bio.terra.axonserver.service.exception.TooManyRequestsException;
+import bio.terra.axonserver.service.exception.WdlParseTimeoutException;
+import bio.terra.axonserver.utils.CacheUtils;
+import bio.terra.axonserver.utils.MetricsUtils;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseRequest;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.tags.TagKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Parses workflows with The Broad's Womtool, remembering what it reports about each one. A workflow
+ * is keyed by a hash of its main WDL and the zip of the files it imports, which is reproducible, so
+ * the same workflow is only parsed once however often its inputs, outputs or validity are asked
+ * for, and wherever it is stored.
+ *
+ * <p>Womtool runs in a pool of worker processes (see {@link WdlWorkerPool}), so the server does not
+ * load Cromwell, and a pathological WDL costs a worker, not the server's heap. Parses beyond the
+ * pool's queue are rejected with a {@link TooManyRequestsException}, which clients retry. A parse
+ * that times out fails with a {@link WdlParseTimeoutException}, which they do not, as the same
+ * workflow would time out again.
+ */
+@Component
+public class WomtoolService {
+  private static final Logger logger = LoggerFactory.getLogger(WomtoolService.class);
+
+  private static final TagKey OUTCOME_KEY = TagKey.create("outcome");
+  private static final MeasureDouble PARSE_TIME =
+      MetricsUtils.createLatencyDistribution(
+          "womtool/parse_time",
+          "Time taken to parse a workflow, including the wait for a worker",
+          OUTCOME_KEY);
+  private static final MeasureLong PARSE_ALLOCATED_BYTES =
+      MetricsUtils.createSizeDistribution(
+          "womtool/parse_allocated_bytes", "Heap allocated by a worker parsing a workflow");
+
+  /**
+   * What Womtool reports about a workflow.
+   *
+   * @param errors why the workflow is invalid, or empty if it is valid
+   * @param inputs type of each input, including optional ones, or null if the workflow is invalid
+   * @param outputs type of each output, or null if the workflow is invalid
+   */
+  public record WorkflowDescription(
+      List<String> errors,
+      @Nullable Map<String, String> inputs,
+      @Nullable Map<String, String> outputs) {
+    public boolean valid() {
+      return errors.isEmpty();
+    }
+  }
+
+  private final WomtoolConfiguration womtoolConfig;
+  private final Cache<String, WorkflowDescription> cache;
+  /** Why each workflow whose parse recently timed out was rejected. */
+  private final Cache<String, String> timedOut;
+
+  private final WdlWorkerPool workerPool;
+
+  @Autowired
+  public WomtoolService(WomtoolConfiguration womtoolConfig) {
+    this(womtoolConfig, new WdlWorkerPool(womtoolConfig));
+  }
+
+  @VisibleForTesting
+  WomtoolService(WomtoolConfiguration womtoolConfig, WdlWorkerPool workerPool) {
+    this.womtoolConfig = womtoolConfig;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(womtoolConfig.parseCacheMaxSize())
+            .recordStats(CacheUtils.metricsStatsCounter("womtool_parse"))
+            .build();
+    this.timedOut =
+        Caffeine.newBuilder()
+            .maximumSize(womtoolConfig.parseCacheMaxSize())
+            .expireAfterWrite(Duration.ofSeconds(womtoolConfig.timedOutCacheSeconds()))
+            .build();
+    this.workerPool = workerPool;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void startWorkers() {
+    if (womtoolConfig.warmUp()) {
+      workerPool.start();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    workerPool.close();
+  }
+
+  /**
+   * Describe a workflow, parsing it unless the same workflow has been parsed before. Concurrent
+   * requests for the same workflow share one parse.
+   *
+   * <p>Only valid workflows whose files are all in the bundle are remembered. Womtool fetches URL
+   * imports itself, so the same bundle may describe a different workflow once they change, and an
+   * invalid workflow is likely to be fixed and parsed again, possibly because a URL it imports was
+   * briefly unreachable. A workflow whose parse timed out is rejected without parsing it again
+   * until {@link WomtoolConfiguration#timedOutCacheSeconds()} have passed.
+   *
+   * @throws TooManyRequestsException if too many parses are waiting for a worker, or none became
+   *     free within the timeout
+   * @throws WdlParseTimeoutException if the parse does not finish within the timeout, now or
+   *     recently
+   */
+  WorkflowDescription describe(WdlBundle bundle) {
+    String key = key(bundle);
+    if (!bundle.urlImports().isEmpty()) {
+      return parseUnlessTimedOut(key, bundle);
+    }
+    WorkflowDescription description =
+        cache.get(key, workflowKey -> parseUnlessTimedOut(workflowKey, bundle));
+    if (!description.valid()) {
+      cache.asMap().remove(key, description);
+    }
+    return description;
+  }
+
+  /**
+   * Parse a workflow unless its parse recently timed out. Requests that were waiting on a parse
+   * that timed out check again here, so they fail at once instead of each parsing in turn.
+   */
+  private WorkflowDescription parseUnlessTimedOut(String key, WdlBundle bundle) {
+    String timedOutMessage = timedOut.getIfPresent(key);
+    if (timedOutMessage != null) {
+      throw new WdlParseTimeoutException(timedOutMessage);
+    }
+    try {
+      return parse(bundle);
+    } catch (WdlParseTimeoutException e) {
+      timedOut.put(key, e.getMessage());
+      throw e;
+    }
+  }
+
+  private static String key(WdlBundle bundle) {
+    Hasher hasher =
+        Hashing.sha256()
+            .newHasher()
+            .putString(bundle.mainPath(), StandardCharsets.UTF_8)
+            .putInt(bundle.mainSource().length)
+            .putBytes(bundle.mainSource());
+    if (bundle.dependencies() != null) {
+      hasher.putBytes(bundle.dependencies());
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Parse a workflow on a worker. A parse that fails is not remembered, so the next request for the
+   * workflow parses it again.
+   */
+  private WorkflowDescription parse(WdlBundle bundle) {
+    long start = System.nanoTime();
+    String outcome = "error";
+    try {
+      ParseResult result =
+          workerPool.parse(
+              new ParseRequest(bundle.mainPath(), bundle.mainSource(), bundle.dependencies()));
+      WorkflowDescription description =
+          new WorkflowDescription(result.errors(), result.inputs(), result.outputs());
+      outcome = description.valid() ? "valid" : "invalid";
+      if (result.allocatedBytes() >= 0) {
+        MetricsUtils.record(PARSE_ALLOCATED_BYTES, result.allocatedBytes());
+      }
+      logger.info(
+          "Parsed workflow {} in {} ms, allocating {} MiB, valid: {}",
+          bundle.mainPath(),
+          (System.nanoTime() - start) / 1_000_000,
+          result.allocatedBytes() >> 20,
+          description.valid());
+      return description;
+    } finally {
+      MetricsUtils.record(
+          PARSE_TIME, (System.nanoTime() - start) / 1_000_000.0, Map.of(OUTCOME_KEY, outcome));
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import bio.terra.axonserver.utils.CacheUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Which workspace each workflow belongs to, as recorded by its workspace id label. The label is set
+ * once, at submission, so the owner of a workflow does not change and can be remembered for a long
+ * time. Entries are added at submission and on the first label lookup.
+ *
+ * <p>If a file is given, entries are appended to it and loaded back on construction, so they
+ * survive restarts. Entries are written by a background thread, which flushes once for all the
+ * entries recorded since its last write, so recording never waits on the disk; entries not yet
+ * written when the process dies are looked up again. The file is rewritten with only the live
+ * entries once it holds twice as many lines as the cache. Failures reading or writing the file are
+ * logged, and the cache carries on in memory only.
+ */
+class WorkflowOwnershipCache implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(WorkflowOwnershipCache.class);
+  private static final int CLOSE_TIMEOUT_SECONDS = 10;
+
+  private record Owner(UUID workspaceId, Instant recordedAt) {}
+
+  private final int maxSize;
+  private final Duration ttl;
+  private final Clock clock;
+  private final Cache<UUID, Owner> cache;
+
+  @Nullable private final Path file;
+  /** Runs the writes to the file, one at a time. Null when entries are not persisted. */
+  @Nullable private final ExecutorService writeExecutor;
+  /** Lines recorded but not yet written. */
+  private final Queue<String> pendingLines = new ConcurrentLinkedQueue<>();
+
+  private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+  // Only used on the write executor's thread once constructed.
+  @Nullable private BufferedWriter writer;
+  private long fileLines;
+
+  /**
+   * @param maxSize maximum number of workflows remembered
+   * @param ttl how long an owner is remembered after it is recorded
+   * @param file file to persist entries to, or null to keep them in memory only
+   * @param clock clock used to age entries, including those loaded from the file
+   */
+  WorkflowOwnershipCache(int maxSize, Duration ttl, @Nullable Path file, Clock clock) {
+    this.maxSize = maxSize;
+    this.ttl = ttl;
+    this.clock = clock;
+    this.file = file;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(CacheUtils.<UUID, Owner>expireAfterWrite(this::timeLeft))
+            .recordStats(CacheUtils.metricsStatsCounter("workflow_owner"))
+            .build();
+    if (file != null) {
+      load(file);
+      openWriter(file);
+      this.writeExecutor =
+          Executors.newSingleThreadExecutor(
+              new ThreadFactoryBuilder()
+                  .setNameFormat("workflow-owner-writer")
+                  .setDaemon(true)
+                  .build());
+    } else {
+      this.writeExecutor = null;
+    }
+  }
+
+  /** The workspace a workflow belongs to, or null if it is not known. */
+  @Nullable
+  UUID get(UUID workflowId) {
+    Owner owner = cache.getIfPresent(workflowId);
+    return owner == null ? null : owner.workspaceId();
+  }
+
+  /** Record the workspace a workflow belongs to. */
+  void put(UUID workflowId, UUID workspaceId) {
+    Owner existing = cache.asMap().get(workflowId);
+    if (existing != null && existing.workspaceId().equals(workspaceId)) {
+      return;
+    }
+    Owner owner = new Owner(workspaceId, clock.instant());
+    cache.put(workflowId, owner);
+    append(workflowId, owner);
+  }
+
+  private Duration timeLeft(Owner owner) {
+    Duration timeLeft = ttl.minus(Duration.between(owner.recordedAt(), clock.instant()));
+    return timeLeft.isNegative() ? Duration.ZERO : timeLeft;
+  }
+
+  private void load(Path file) {
+    if (!Files.exists(file)) {
+      return;
+    }
+    try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+      lines.forEach(
+          line -> {
+            fileLines++;
+            parse(line);
+          });
+      logger.info("Loaded {} workflow owners from {}", cache.estimatedSize(), file);
+    } catch (IOException | UncheckedIOException e) {
+      logger.warn("Failed to load workflow owners from {}", file, e);
+    }
+  }
+
+  private void parse(String line) {
+    String[] fields = line.split(",");
+    if (fields.length != 3) {
+      return;
+    }
+    try {
+      Owner owner =
+          new Owner(UUID.fromString(fields[1]), Instant.ofEpochSecond(Long.parseLong(fields[2])));
+      if (!timeLeft(owner).isZero()) {
+        // Later lines are newer, so they replace earlier ones.
+        cache.put(UUID.fromString(fields[0]), owner);
+      }
+    } catch (IllegalArgumentException e) {
+      // Skip a line that was only partly written.
+    }
+  }
+
+  private static String format(UUID workflowId, Owner owner) {
+    return "%s,%s,%d"
+        .formatted(workflowId, owner.workspaceId(), owner.recordedAt().getEpochSecond());
+  }
+
+  private void append(UUID workflowId, Owner owner) {
+    if (writeExecutor == null) {
+      return;
+    }
+    pendingLines.add(format(workflowId, owner));
+    if (writeScheduled.compareAndSet(false, true)) {
+      try {
+        writeExecutor.execute(this::writePending);
+      } catch (RejectedExecutionException e) {
+        // Closed; the entry is kept in memory only.
+      }
+    }
+  }
+
+  /** Write every pending line, flushing once for all of them. Runs on the write executor. */
+  private void writePending() {
+    // Cleared first, so a line recorded during this write schedules another.
+    writeScheduled.set(false);
+    if (writer == null) {
+      pendingLines.clear();
+      return;
+    }
+    try {
+      for (String line = pendingLines.poll(); line != null; line = pendingLines.poll()) {
+        writer.write(line);
+        writer.newLine();
+        fileLines++;
+      }
+      writer.flush();
+      if (fileLines > 2L * maxSize) {
+        compact();
+      }
+    } catch (IOException e) {
+      logger.warn("Failed to persist workflow owners to {}, keeping them in memory", file, e);
+      closeWriter();
+    }
+  }
+
+  /** Rewrite the file with only the live entries. Runs on the write executor. */
+  private void compact() throws IOException {
+    Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+    // Apply pending evictions, so only the live entries are written.
+    cache.cleanUp();
+    Map<UUID, Owner> snapshot = Map.copyOf(cache.asMap());
+    try (BufferedWriter tempWriter = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+      for (Map.Entry<UUID, Owner> entry : snapshot.entrySet()) {
+        tempWriter.write(format(entry.getKey(), entry.getValue()));
+        tempWriter.newLine();
+      }
+    }
+    closeWriter();
+    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    fileLines = snapshot.size();
+    openWriter(file);
+  }
+
+  private void openWriter(Path file) {
+    try {
+      Path parent = file.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      writer =
+          Files.newBufferedWriter(
+              file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      logger.warn("Failed to open {}, keeping workflow owners in memory", file, e);
+      writer = null;
+    }
+  }
+
+  private void closeWriter() {
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.close();
+    } catch (IOException e) {
+      logger.warn("Failed to close {}", file, e);
+    }
+    writer = null;
+  }
+
+  /** Write the pending entries and close the file. */
+  @Override
+  public void close() {
+    if (writeExecutor == null) {
+      return;
+    }
+    writeExecutor.shutdown();
+    try {
+      if (!writeExecutor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        logger.warn("Timed out writing workflow owners to {}", file);
+        writeExecutor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    closeWriter();
+  }
+}
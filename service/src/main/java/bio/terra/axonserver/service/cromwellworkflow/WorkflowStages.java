@@ -0,0 +1,144 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import bio.terra.axonserver.utils.MetricsUtils;
+import bio.terra.common.exception.InternalServerErrorException;
+import bio.terra.cromwell.client.ApiException;
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.tags.TagKey;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * The stages of one workflow operation, e.g. a submission, run as a dependency graph. Each stage
+ * starts on the executor once the stages it depends on have completed, so independent lookups run
+ * concurrently. A stage whose dependency failed does not run. Stage durations are recorded as a
+ * metric, and logged together when the operation is closed.
+ *
+ * <p>Stages run with the calling request's attributes, so request memoization and downstream call
+ * counting still apply to them. Closing waits for every started stage, so files used by the stages
+ * can be deleted once this is closed.
+ */
+class WorkflowStages implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(WorkflowStages.class);
+
+  private static final TagKey OPERATION_KEY = TagKey.create("operation");
+  private static final TagKey STAGE_KEY = TagKey.create("stage");
+  private static final MeasureDouble STAGE_TIME =
+      MetricsUtils.createLatencyDistribution(
+          "workflow/stage_time",
+          "Time taken by a workflow operation stage",
+          OPERATION_KEY,
+          STAGE_KEY);
+
+  /** A stage of the operation. Checked exceptions are rethrown by {@link #await}. */
+  @FunctionalInterface
+  interface Stage<T> {
+    T run() throws Exception;
+  }
+
+  private final Executor executor;
+  private final String operation;
+  @Nullable private final RequestAttributes requestAttributes;
+  private final long startNanos = System.nanoTime();
+  private final List<CompletableFuture<?>> started = new ArrayList<>();
+  /** Stage durations in milliseconds, in order of completion. */
+  private final Map<String, Long> stageMillis = Collections.synchronizedMap(new LinkedHashMap<>());
+
+  /**
+   * @param executor executor to run stages on
+   * @param operation name of the operation, used in logs and metrics
+   */
+  WorkflowStages(Executor executor, String operation) {
+    this.executor = executor;
+    this.operation = operation;
+    this.requestAttributes = RequestContextHolder.getRequestAttributes();
+  }
+
+  /**
+   * Start a stage once its dependencies have completed. The stage may join its dependencies to get
+   * their results without blocking.
+   *
+   * @param name name of the stage, used in logs and metrics
+   * @param stage the stage to run
+   * @param dependencies stages that must complete before this one starts
+   * @return the result of the stage
+   */
+  <T> CompletableFuture<T> start(
+      String name, Stage<T> stage, CompletableFuture<?>... dependencies) {
+    CompletableFuture<T> future =
+        CompletableFuture.allOf(dependencies)
+            .thenApplyAsync(ignored -> runStage(name, stage), executor);
+    started.add(future);
+    return future;
+  }
+
+  private <T> T runStage(String name, Stage<T> stage) {
+    RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+    RequestContextHolder.setRequestAttributes(requestAttributes);
+    long stageStartNanos = System.nanoTime();
+    try {
+      return stage.run();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CompletionException(e);
+    } finally {
+      double millis = (System.nanoTime() - stageStartNanos) / 1_000_000.0;
+      stageMillis.put(name, Math.round(millis));
+      MetricsUtils.record(STAGE_TIME, millis, Map.of(OPERATION_KEY, operation, STAGE_KEY, name));
+      RequestContextHolder.setRequestAttributes(previousAttributes);
+    }
+  }
+
+  /**
+   * Wait for a stage and return its result.
+   *
+   * @throws ApiException if the stage, or a stage it depends on, failed calling Cromwell
+   * @throws IOException if the stage, or a stage it depends on, failed reading or writing files
+   */
+  static <T> T await(CompletableFuture<T> future) throws ApiException, IOException {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      if (cause instanceof ApiException apiException) {
+        throw apiException;
+      }
+      if (cause instanceof IOException ioException) {
+        throw ioException;
+      }
+      throw new InternalServerErrorException("Workflow operation failed", cause);
+    }
+  }
+
+  /** Wait for every started stage, including ones no longer needed after a failure. */
+  @Override
+  public void close() {
+    CompletableFuture.allOf(started.toArray(CompletableFuture[]::new))
+        .exceptionally(ignored -> null)
+        .join();
+    logger.info(
+        "Workflow {} stages took {} ms in total, by stage (ms): {}",
+        operation,
+        Math.round((System.nanoTime() - startNanos) / 1_000_000.0),
+        stageMillis);
+  }
+}
@@ -0,0 +1,23 @@
+package bio.terra.axonserver.service.exception;
+
+import bio.terra.common.exception.ErrorReportException;
+import java.util.Collections;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when the server cannot handle a request until it finishes starting up. Maps to a 503
+ * response.
+ */
+public class ServiceUnavailableException extends ErrorReportException {
+  private final long retryAfterSeconds;
+
+  public ServiceUnavailableException(String message, long retryAfterSeconds) {
+    super(message, Collections.emptyList(), HttpStatus.SERVICE_UNAVAILABLE);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  /** Seconds the client should wait before retrying, sent in the Retry-After header. */
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
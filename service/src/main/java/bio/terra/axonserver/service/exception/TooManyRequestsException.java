@@ -0,0 +1,20 @@
+package bio.terra.axonserver.service.exception;
+
+import bio.terra.common.exception.ErrorReportException;
+import java.util.Collections;
+import org.springframework.http.HttpStatus;
+
+/** Thrown when a request is shed because the server is at capacity. Maps to a 429 response. */
+public class TooManyRequestsException extends ErrorReportException {
+  private final long retryAfterSeconds;
+
+  public TooManyRequestsException(String message, long retryAfterSeconds) {
+    super(message, Collections.emptyList(), HttpStatus.TOO_MANY_REQUESTS);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  /** Seconds the client should wait before retrying, sent in the Retry-After header. */
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -0,0 +1,15 @@
+package bio.terra.axonserver.service.exception;
+
+import bio.terra.common.exception.ErrorReportException;
+import java.util.Collections;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when Womtool does not finish parsing a workflow within the parse timeout. The same
+ * workflow would time out again, so this maps to a 422 response, which clients do not retry.
+ */
+public class WdlParseTimeoutException extends ErrorReportException {
+  public WdlParseTimeoutException(String message) {
+    super(message, Collections.emptyList(), HttpStatus.UNPROCESSABLE_ENTITY);
+  }
+}
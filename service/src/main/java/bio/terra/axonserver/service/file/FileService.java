@@ -2,11 +2,15 @@ package bio.terra.axonserver.service.file;
 
 import bio.terra.axonserver.app.configuration.FileConfiguration;
 import bio.terra.axonserver.service.cloud.gcp.GcpService;
+import bio.terra.axonserver.service.convert.ConversionContext;
+import bio.terra.axonserver.service.convert.ConversionPriority;
 import bio.terra.axonserver.service.convert.ConvertService;
 import bio.terra.axonserver.service.exception.InvalidResourceTypeException;
+import bio.terra.axonserver.service.http.DownstreamCalls;
 import bio.terra.axonserver.service.iam.SamService;
 import bio.terra.axonserver.service.wsm.WorkspaceManagerService;
 import bio.terra.axonserver.utils.CloudStorageUtils;
+import bio.terra.axonserver.utils.CloudStorageUtils.BucketObject;
 import bio.terra.common.iam.BearerToken;
 import bio.terra.workspace.model.ResourceDescription;
 import com.google.auth.oauth2.GoogleCredentials;
@@ -40,7 +44,7 @@ public class FileService {
   private final WorkspaceManagerService wsmService;
   private final ConvertService convertService;
 
-  private record FileWithName(InputStream fileStream, String fileName) {}
+  private record FileWithName(InputStream fileStream, String fileName, @Nullable Long size) {}
 
   @Autowired
   public FileService(
@@ -65,6 +69,7 @@ public class FileService {
    * @param objectPath The path to the object in the bucket. Only used if the resource is a bucket.
    * @param convertTo The format to convert the file to. If null, the file is not converted.
    * @param byteRange The range of bytes to return. If null, the entire file is returned.
+   * @param priority Scheduling priority of the conversion, if any
    * @return The file as a byte array
    */
   public InputStream getFile(
@@ -73,7 +78,8 @@ public class FileService {
       UUID resourceId,
       @Nullable String objectPath,
       @Nullable String convertTo,
-      @Nullable HttpRange byteRange) {
+      @Nullable HttpRange byteRange,
+      ConversionPriority priority) {
 
     ResourceDescription resource =
         wsmService.getResource(workspaceId, resourceId, token.getToken());
@@ -82,7 +88,12 @@ public class FileService {
     InputStream fileStream = fileWithName.fileStream;
     if (convertTo != null) {
       String fileExtension = FilenameUtils.getExtension(fileWithName.fileName);
-      fileStream = convertService.convertFile(fileStream, fileExtension, convertTo, token);
+      fileStream =
+          convertService.convertFile(
+              fileStream,
+              fileExtension,
+              convertTo,
+              new ConversionContext(token, priority, fileWithName.size));
     }
     return fileStream;
   }
@@ -136,6 +147,7 @@ public class FileService {
         StorageOptions.newBuilder()
             .setProjectId(projectId)
             .setCredentials(targetCredentials)
+            .setTransportOptions(DownstreamCalls.GCS_TRANSPORT_OPTIONS)
             .build()
             .getService();
 
@@ -168,10 +180,10 @@ public class FileService {
 
     BlobId blob = BlobId.fromGsUtilUri(gcsURI);
 
-    InputStream fileStream =
-        CloudStorageUtils.getBucketObject(
+    BucketObject bucketObject =
+        CloudStorageUtils.openBucketObject(
             googleCredentials, blob.getBucket(), blob.getName(), null);
-    return new FileWithName(fileStream, blob.getName());
+    return new FileWithName(bucketObject.content(), blob.getName(), bucketObject.size());
   }
 
   private FileWithName getGcsObjectFile(
@@ -190,9 +202,9 @@ public class FileService {
       objectPath = resource.getResourceAttributes().getGcpGcsObject().getFileName();
     }
 
-    InputStream fileStream =
-        CloudStorageUtils.getBucketObject(googleCredentials, bucketName, objectPath, byteRange);
-    return new FileWithName(fileStream, objectPath);
+    BucketObject bucketObject =
+        CloudStorageUtils.openBucketObject(googleCredentials, bucketName, objectPath, byteRange);
+    return new FileWithName(bucketObject.content(), objectPath, bucketObject.size());
   }
 
   private FileWithName getGcsBucketFile(
@@ -204,8 +216,8 @@ public class FileService {
     GoogleCredentials googleCredentials = gcpService.getPetSACredentials(workspaceId, token);
 
     String bucketName = resource.getResourceAttributes().getGcpGcsBucket().getBucketName();
-    InputStream fileStream =
-        CloudStorageUtils.getBucketObject(googleCredentials, bucketName, objectPath, byteRange);
-    return new FileWithName(fileStream, objectPath);
+    BucketObject bucketObject =
+        CloudStorageUtils.openBucketObject(googleCredentials, bucketName, objectPath, byteRange);
+    return new FileWithName(bucketObject.content(), objectPath, bucketObject.size());
   }
 }
@@ -0,0 +1,67 @@
+package bio.terra.axonserver.service.http;
+
+import javax.annotation.Nullable;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+
+/**
+ * The access token sent with downstream calls made on the current thread. Each downstream service
+ * has one generated ApiClient, shared by all callers, so a caller's token cannot be set on it;
+ * instead calls are made inside {@link #withAccessToken}, and the transport adds the token to each
+ * request as its Authorization header.
+ */
+public class AccessTokenContext {
+  private static final ThreadLocal<String> ACCESS_TOKEN = new ThreadLocal<>();
+
+  /** A downstream call, which may throw the generated client's checked exception. */
+  @FunctionalInterface
+  public interface Call<T, E extends Exception> {
+    T call() throws E;
+  }
+
+  private AccessTokenContext() {}
+
+  /**
+   * Make downstream calls with an access token. Calls must be made on the current thread; the token
+   * is not passed to calls the given call hands to other threads.
+   *
+   * @param accessToken access token to send as a bearer token
+   * @param call the calls to make
+   * @return the result of the call
+   */
+  public static <T, E extends Exception> T withAccessToken(String accessToken, Call<T, E> call)
+      throws E {
+    String previous = ACCESS_TOKEN.get();
+    ACCESS_TOKEN.set(accessToken);
+    try {
+      return call.call();
+    } finally {
+      if (previous == null) {
+        ACCESS_TOKEN.remove();
+      } else {
+        ACCESS_TOKEN.set(previous);
+      }
+    }
+  }
+
+  @Nullable
+  static String getAccessToken() {
+    return ACCESS_TOKEN.get();
+  }
+
+  /**
+   * An OkHttp interceptor that adds the current access token, if any. OkHttp runs interceptors on
+   * the calling thread for synchronous calls, which is how the generated clients call.
+   */
+  static Interceptor authorizationInterceptor() {
+    return chain -> {
+      String accessToken = getAccessToken();
+      if (accessToken == null) {
+        return chain.proceed(chain.request());
+      }
+      Request request =
+          chain.request().newBuilder().header("Authorization", "Bearer " + accessToken).build();
+      return chain.proceed(request);
+    };
+  }
+}
@@ -0,0 +1,107 @@
+package bio.terra.axonserver.service.http;
+
+import bio.terra.axonserver.utils.MetricsUtils;
+import com.google.api.client.http.javanet.ConnectionFactory;
+import com.google.api.client.http.javanet.DefaultConnectionFactory;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.cloud.http.HttpTransportOptions;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.tags.TagKey;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import okhttp3.Interceptor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Counts calls to downstream services. Every call is recorded as a metric; calls made while serving
+ * an HTTP request are also counted against that request, so the total can be reported when the
+ * request completes.
+ *
+ * <p>Generated clients are counted through their OkHttp transport. Google Cloud Storage clients
+ * send requests through their own transport; they are counted if built with {@link
+ * #GCS_TRANSPORT_OPTIONS}. Other Google Cloud clients, e.g. Dataproc and Notebooks, are not
+ * counted.
+ */
+public class DownstreamCalls {
+  private static final String COUNTS_ATTRIBUTE = DownstreamCalls.class.getName() + ".counts";
+
+  private static final TagKey DOWNSTREAM_KEY = TagKey.create("downstream");
+  private static final MeasureLong CALLS =
+      MetricsUtils.createCounter(
+          "downstream/calls", "Number of calls to downstream services", DOWNSTREAM_KEY);
+
+  /** Transport options for Google Cloud Storage clients, which count each call as "gcs". */
+  public static final HttpTransportOptions GCS_TRANSPORT_OPTIONS = countingTransportOptions("gcs");
+
+  private DownstreamCalls() {}
+
+  /** An OkHttp interceptor that counts each call made through a client for a downstream. */
+  static Interceptor countingInterceptor(String downstream) {
+    return chain -> {
+      record(downstream);
+      return chain.proceed(chain.request());
+    };
+  }
+
+  /**
+   * Transport options for Google Cloud clients whose calls are counted. The transport is shared by
+   * every client built with the options, as the default transport is.
+   */
+  private static HttpTransportOptions countingTransportOptions(String downstream) {
+    ConnectionFactory connections = new DefaultConnectionFactory();
+    NetHttpTransport transport =
+        new NetHttpTransport.Builder()
+            .setConnectionFactory(
+                url -> {
+                  record(downstream);
+                  return connections.openConnection(url);
+                })
+            .build();
+    return HttpTransportOptions.newBuilder().setHttpTransportFactory(() -> transport).build();
+  }
+
+  private static void record(String downstream) {
+    MetricsUtils.record(CALLS, 1, Map.of(DOWNSTREAM_KEY, downstream));
+    Map<String, AtomicInteger> counts = getCounts(true);
+    if (counts != null) {
+      counts.computeIfAbsent(downstream, key -> new AtomicInteger()).incrementAndGet();
+    }
+  }
+
+  /**
+   * Calls made so far while serving the current request, by downstream service name. Empty outside
+   * a request.
+   */
+  public static Map<String, Integer> getRequestCounts() {
+    Map<String, Integer> snapshot = new TreeMap<>();
+    Map<String, AtomicInteger> counts = getCounts(false);
+    if (counts != null) {
+      counts.forEach((downstream, count) -> snapshot.put(downstream, count.get()));
+    }
+    return snapshot;
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  private static Map<String, AtomicInteger> getCounts(boolean create) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return null;
+    }
+    // Several threads may serve one request, e.g. workflow submission stages.
+    synchronized (attributes) {
+      Map<String, AtomicInteger> counts =
+          (Map<String, AtomicInteger>)
+              attributes.getAttribute(COUNTS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+      if (counts == null && create) {
+        counts = new ConcurrentHashMap<>();
+        attributes.setAttribute(COUNTS_ATTRIBUTE, counts, RequestAttributes.SCOPE_REQUEST);
+      }
+      return counts;
+    }
+  }
+}
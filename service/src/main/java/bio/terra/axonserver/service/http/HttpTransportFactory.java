@@ -0,0 +1,93 @@
+package bio.terra.axonserver.service.http;
+
+import bio.terra.axonserver.app.configuration.HttpClientConfiguration;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.glassfish.jersey.client.ClientConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the HTTP transport used by the generated clients of downstream services. Each downstream
+ * service gets one long-lived, HTTP/2-capable client with its own connection pool, so connections,
+ * TLS sessions and DNS lookups are reused across requests. Services build one generated ApiClient
+ * on it, and pass each caller's access token per call through {@link AccessTokenContext}.
+ */
+@Component
+public class HttpTransportFactory {
+  private static final Logger logger = LoggerFactory.getLogger(HttpTransportFactory.class);
+
+  private final HttpClientConfiguration httpClientConfig;
+  private final OkHttpClient baseClient;
+  private final List<OkHttpClient> clients = new CopyOnWriteArrayList<>();
+
+  @Autowired
+  public HttpTransportFactory(HttpClientConfiguration httpClientConfig) {
+    this.httpClientConfig = httpClientConfig;
+    this.baseClient =
+        new OkHttpClient.Builder()
+            .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(Duration.ofSeconds(httpClientConfig.connectTimeoutSeconds()))
+            .readTimeout(Duration.ofSeconds(httpClientConfig.readTimeoutSeconds()))
+            .writeTimeout(Duration.ofSeconds(httpClientConfig.writeTimeoutSeconds()))
+            .build();
+  }
+
+  /**
+   * Create a client with its own connection pool for a downstream service. Use with generated
+   * OkHttp clients, e.g. Sam.
+   *
+   * @param downstream name of the downstream service, for logging and call counts
+   */
+  public OkHttpClient newOkHttpClient(String downstream) {
+    OkHttpClient client =
+        baseClient
+            .newBuilder()
+            .connectionPool(
+                new ConnectionPool(
+                    httpClientConfig.maxIdleConnections(),
+                    httpClientConfig.keepAliveSeconds(),
+                    TimeUnit.SECONDS))
+            .addInterceptor(DownstreamCalls.countingInterceptor(downstream))
+            .addInterceptor(AccessTokenContext.authorizationInterceptor())
+            .build();
+    clients.add(client);
+    logger.info(
+        "Created HTTP transport for {} with up to {} idle connections",
+        downstream,
+        httpClientConfig.maxIdleConnections());
+    return client;
+  }
+
+  /**
+   * Create a Jersey client for a downstream service, sending requests through its own pooled OkHttp
+   * transport. Use with generated Jersey clients, e.g. Workspace Manager.
+   *
+   * @param downstream name of the downstream service, for logging
+   * @param template client built by the generated ApiClient, whose registered features (JSON,
+   *     multipart) are copied
+   */
+  public Client newJerseyClient(String downstream, Client template) {
+    ClientConfig clientConfig =
+        new ClientConfig()
+            .loadFrom(template.getConfiguration())
+            .connectorProvider(new OkHttpConnectorProvider(newOkHttpClient(downstream)));
+    return ClientBuilder.newClient(clientConfig);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    clients.forEach(client -> client.connectionPool().evictAll());
+    baseClient.dispatcher().executorService().shutdown();
+  }
+}
@@ -0,0 +1,202 @@
+package bio.terra.axonserver.service.http;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import javax.ws.rs.ProcessingException;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Pipe;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.message.internal.Statuses;
+
+/** Jersey connector that sends requests through a shared {@link OkHttpClient}. */
+class OkHttpConnector implements Connector {
+  private static final Set<String> METHODS_REQUIRING_BODY = Set.of("POST", "PUT", "PATCH");
+  /** Bytes of an entity buffered between its writer and OkHttp. */
+  private static final long ENTITY_PIPE_BYTES = 64 * 1024;
+  /** Writes request entities while they are sent. Idle threads exit after a minute. */
+  private static final ExecutorService ENTITY_WRITERS =
+      Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder()
+              .setNameFormat("okhttp-entity-writer-%d")
+              .setDaemon(true)
+              .build());
+
+  private final OkHttpClient okHttpClient;
+
+  OkHttpConnector(OkHttpClient okHttpClient) {
+    this.okHttpClient = okHttpClient;
+  }
+
+  @Override
+  public ClientResponse apply(ClientRequest request) {
+    if (request.hasEntity()) {
+      return applyWithEntity(request);
+    }
+    return send(
+        request,
+        METHODS_REQUIRING_BODY.contains(request.getMethod())
+            ? RequestBody.create(new byte[0], null)
+            : null);
+  }
+
+  /**
+   * Send a request while its entity is written. Entity writers may set headers, such as the
+   * multipart boundary, until they start writing, so the entity is written on another thread and
+   * the request is sent from this one once the headers are committed. The entity streams through a
+   * bounded pipe, so large entities, e.g. workflow sources spilled to disk, are not held in memory.
+   */
+  private ClientResponse applyWithEntity(ClientRequest request) {
+    Pipe pipe = new Pipe(ENTITY_PIPE_BYTES);
+    CompletableFuture<Integer> headersCommitted = new CompletableFuture<>();
+    AtomicReference<Throwable> writeFailure = new AtomicReference<>();
+    ENTITY_WRITERS.execute(
+        () -> {
+          request.setStreamProvider(
+              contentLength -> {
+                headersCommitted.complete(contentLength);
+                return Okio.buffer(pipe.sink()).outputStream();
+              });
+          try {
+            request.writeEntity();
+          } catch (IOException | RuntimeException | Error e) {
+            writeFailure.set(e);
+            headersCommitted.completeExceptionally(e);
+            pipe.cancel();
+          }
+        });
+    try {
+      long contentLength = headersCommitted.join();
+      return send(request, new PipedRequestBody(pipe, contentLength));
+    } catch (CompletionException | ProcessingException e) {
+      // A failed write fails the send too; report why the write failed.
+      Throwable cause = writeFailure.get();
+      if (cause == null) {
+        throw e;
+      }
+      Throwables.throwIfInstanceOf(cause, ProcessingException.class);
+      Throwables.throwIfInstanceOf(cause, Error.class);
+      throw new ProcessingException(cause);
+    } finally {
+      // Unblocks the writer if the send failed before reading the whole entity.
+      pipe.cancel();
+    }
+  }
+
+  private ClientResponse send(ClientRequest request, @Nullable RequestBody body) {
+    try {
+      return toClientResponse(
+          request, okHttpClient.newCall(toOkHttpRequest(request, body)).execute());
+    } catch (IOException e) {
+      throw new ProcessingException(e);
+    }
+  }
+
+  @Override
+  public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+    CompletableFuture<ClientResponse> future = new CompletableFuture<>();
+    try {
+      ClientResponse response = apply(request);
+      callback.response(response);
+      future.complete(response);
+    } catch (ProcessingException e) {
+      callback.failure(e);
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  @Override
+  public String getName() {
+    return "OkHttp";
+  }
+
+  @Override
+  public void close() {
+    // The OkHttpClient is shared and owned by HttpTransportFactory.
+  }
+
+  private static Request toOkHttpRequest(ClientRequest request, @Nullable RequestBody body)
+      throws IOException {
+    Request.Builder builder =
+        new Request.Builder().url(request.getUri().toURL()).method(request.getMethod(), body);
+    request
+        .getStringHeaders()
+        .forEach((name, values) -> values.forEach(value -> builder.addHeader(name, value)));
+    return builder.build();
+  }
+
+  /** An entity read from the pipe its writer writes to. It can only be sent once. */
+  private static class PipedRequestBody extends RequestBody {
+    private final Pipe pipe;
+    private final long contentLength;
+
+    PipedRequestBody(Pipe pipe, long contentLength) {
+      this.pipe = pipe;
+      this.contentLength = contentLength;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+      // Sent with the request's headers.
+      return null;
+    }
+
+    @Override
+    public long contentLength() {
+      return contentLength;
+    }
+
+    @Override
+    public boolean isOneShot() {
+      return true;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+      sink.writeAll(pipe.source());
+    }
+  }
+
+  private static ClientResponse toClientResponse(ClientRequest request, Response response) {
+    // HTTP/2 responses carry no reason phrase.
+    ClientResponse clientResponse =
+        new ClientResponse(
+            response.message().isEmpty()
+                ? Statuses.from(response.code())
+                : Statuses.from(response.code(), response.message()),
+            request);
+    Headers headers = response.headers();
+    for (String name : headers.names()) {
+      for (String value : headers.values(name)) {
+        clientResponse.getHeaders().add(name, value);
+      }
+    }
+    ResponseBody body = response.body();
+    // Closing the entity stream returns the connection to the pool.
+    clientResponse.setEntityStream(
+        body == null ? InputStream.nullInputStream() : body.byteStream());
+    return clientResponse;
+  }
+}
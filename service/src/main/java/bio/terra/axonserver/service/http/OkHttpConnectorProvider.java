@@ -0,0 +1,21 @@
+package bio.terra.axonserver.service.http;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Configuration;
+import okhttp3.OkHttpClient;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+
+/** Provides Jersey connectors backed by a single {@link OkHttpClient}. */
+public class OkHttpConnectorProvider implements ConnectorProvider {
+  private final OkHttpClient okHttpClient;
+
+  public OkHttpConnectorProvider(OkHttpClient okHttpClient) {
+    this.okHttpClient = okHttpClient;
+  }
+
+  @Override
+  public Connector getConnector(Client client, Configuration runtimeConfig) {
+    return new OkHttpConnector(okHttpClient);
+  }
+}
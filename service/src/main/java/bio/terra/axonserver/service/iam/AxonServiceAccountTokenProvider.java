@@ -0,0 +1,183 @@
+package bio.terra.axonserver.service.iam;
+
+import bio.terra.axonserver.app.configuration.SamConfiguration;
+import bio.terra.axonserver.utils.MetricsUtils;
+import bio.terra.common.exception.InternalServerErrorException;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.common.collect.ImmutableSet;
+import io.opencensus.stats.Measure.MeasureLong;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Access tokens for the Axon service account. Application default credentials are loaded once, in
+ * the background at startup, and the token is refreshed on a schedule ahead of its expiry, so
+ * callers get the cached token without blocking. Only calls made before the first load completes
+ * wait for it.
+ *
+ * <p>When there are no application default credentials, e.g. in unit tests, no token is available
+ * and {@link #getAccessToken()} throws.
+ */
+@Component
+public class AxonServiceAccountTokenProvider {
+  private static final Logger logger =
+      LoggerFactory.getLogger(AxonServiceAccountTokenProvider.class);
+
+  private static final Set<String> SAM_OAUTH_SCOPES = ImmutableSet.of("openid", "email", "profile");
+  private static final Duration FIRST_LOAD_TIMEOUT = Duration.ofSeconds(30);
+  /** Refresh interval for tokens that do not report an expiry. */
+  private static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMinutes(30);
+  private static final long AGE_REPORTING_INTERVAL_SECONDS = 60;
+
+  private static final MeasureLong REFRESH_FAILURES =
+      MetricsUtils.createCounter(
+          "axon_token/refresh_failures", "Failed Axon service account token refreshes");
+  private static final MeasureLong TOKEN_AGE =
+      MetricsUtils.createGauge(
+          "axon_token/age_seconds", "Time since the Axon service account token was refreshed", "s");
+
+  /** Source of the credentials to refresh. */
+  interface CredentialsSource {
+    GoogleCredentials load() throws IOException;
+  }
+
+  private final SamConfiguration samConfig;
+  private final ScheduledExecutorService scheduler;
+  private final CompletableFuture<Void> firstLoad = new CompletableFuture<>();
+  @Nullable private volatile GoogleCredentials credentials;
+  @Nullable private volatile AccessToken accessToken;
+  @Nullable private volatile Instant refreshedAt;
+
+  @Autowired
+  public AxonServiceAccountTokenProvider(SamConfiguration samConfig) {
+    this(samConfig, GoogleCredentials::getApplicationDefault);
+  }
+
+  AxonServiceAccountTokenProvider(SamConfiguration samConfig, CredentialsSource source) {
+    this.samConfig = samConfig;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "axon-token-refresh");
+              thread.setDaemon(true);
+              return thread;
+            });
+    scheduler.execute(() -> load(source));
+    scheduler.scheduleAtFixedRate(
+        this::recordAge,
+        AGE_REPORTING_INTERVAL_SECONDS,
+        AGE_REPORTING_INTERVAL_SECONDS,
+        TimeUnit.SECONDS);
+  }
+
+  /**
+   * Get the current Axon service account access token.
+   *
+   * @throws InternalServerErrorException if there are no credentials, or the token has expired and
+   *     could not be refreshed
+   */
+  public String getAccessToken() {
+    awaitFirstLoad();
+    AccessToken current = accessToken;
+    if (current == null) {
+      throw new InternalServerErrorException("Axon service account credentials are unavailable");
+    }
+    if (current.getExpirationTime() != null
+        && current.getExpirationTime().toInstant().isBefore(Instant.now())) {
+      throw new InternalServerErrorException("Axon service account token has expired");
+    }
+    return current.getTokenValue();
+  }
+
+  /** Whether Axon is running with service account credentials. Waits for the first load. */
+  public boolean hasCredentials() {
+    awaitFirstLoad();
+    return credentials != null;
+  }
+
+  private void awaitFirstLoad() {
+    if (firstLoad.isDone()) {
+      return;
+    }
+    try {
+      firstLoad.get(FIRST_LOAD_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InternalServerErrorException("Interrupted loading Axon service account token", e);
+    } catch (ExecutionException | TimeoutException e) {
+      throw new InternalServerErrorException("Failed to load Axon service account token", e);
+    }
+  }
+
+  private void load(CredentialsSource source) {
+    try {
+      credentials = source.load().createScoped(SAM_OAUTH_SCOPES);
+    } catch (IOException e) {
+      // Not retried: application default credentials do not appear while the server runs.
+      logger.warn("No application default credentials, Axon service account token unavailable", e);
+      firstLoad.complete(null);
+      return;
+    }
+    refresh(/*force=*/ false);
+  }
+
+  private void refresh(boolean force) {
+    Duration nextRefresh;
+    try {
+      if (force) {
+        credentials.refresh();
+      } else {
+        credentials.refreshIfExpired();
+      }
+      accessToken = credentials.getAccessToken();
+      refreshedAt = Instant.now();
+      nextRefresh = untilRefresh(accessToken);
+      recordAge();
+    } catch (IOException | RuntimeException e) {
+      MetricsUtils.record(REFRESH_FAILURES, 1);
+      nextRefresh = Duration.ofSeconds(samConfig.axonTokenRetrySeconds());
+      logger.warn("Failed to refresh Axon service account token, retrying in {}", nextRefresh, e);
+    }
+    firstLoad.complete(null);
+    scheduler.schedule(
+        () -> refresh(/*force=*/ true), nextRefresh.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private Duration untilRefresh(AccessToken token) {
+    if (token.getExpirationTime() == null) {
+      return DEFAULT_REFRESH_INTERVAL;
+    }
+    Duration untilRefresh =
+        Duration.between(Instant.now(), token.getExpirationTime().toInstant())
+            .minusSeconds(samConfig.axonTokenRefreshAheadSeconds());
+    Duration minimum = Duration.ofSeconds(samConfig.axonTokenRetrySeconds());
+    return untilRefresh.compareTo(minimum) < 0 ? minimum : untilRefresh;
+  }
+
+  private void recordAge() {
+    Instant refreshed = refreshedAt;
+    if (refreshed != null) {
+      MetricsUtils.record(TOKEN_AGE, Duration.between(refreshed, Instant.now()).toSeconds());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+}
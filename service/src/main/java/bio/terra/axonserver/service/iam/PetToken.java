@@ -0,0 +1,16 @@
+package bio.terra.axonserver.service.iam;
+
+import java.time.Instant;
+
+/**
+ * A pet service account access token and when it expires.
+ *
+ * @param accessToken the access token
+ * @param expiresAt when the token expires
+ */
+public record PetToken(String accessToken, Instant expiresAt) {
+  @Override
+  public String toString() {
+    return "PetToken[expiresAt=" + expiresAt + "]";
+  }
+}
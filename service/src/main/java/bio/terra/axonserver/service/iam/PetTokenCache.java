@@ -0,0 +1,141 @@
+package bio.terra.axonserver.service.iam;
+
+import bio.terra.axonserver.utils.CacheUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory cache of pet service account access tokens, keyed by user and project. Entries expire
+ * shortly before the token does. A token close to expiry is still returned, while a replacement is
+ * fetched in the background, so callers rarely wait on Sam. Concurrent misses for the same key
+ * share one fetch, and each entry is refreshed at most once.
+ *
+ * <p>Users are identified by the email Sam resolves their access token to, so a user whose access
+ * token changes, or who calls from several sessions, keeps sharing one entry per project.
+ */
+class PetTokenCache {
+  private static final Logger logger = LoggerFactory.getLogger(PetTokenCache.class);
+
+  /** Fetches a pet token for a project, on behalf of the caller with the given access token. */
+  interface Loader {
+    PetToken load(String projectId, String accessToken);
+  }
+
+  private record Key(String projectId, String userEmail) {}
+
+  private record Entry(PetToken token, AtomicBoolean refreshStarted) {
+    Entry(PetToken token) {
+      this(token, new AtomicBoolean());
+    }
+  }
+
+  private final Loader loader;
+  private final Executor refreshExecutor;
+  private final Clock clock;
+  private final Duration refreshAhead;
+  private final Cache<Key, Entry> cache;
+
+  PetTokenCache(
+      Loader loader,
+      Executor refreshExecutor,
+      Clock clock,
+      int maxSize,
+      Duration refreshAhead,
+      Duration expiryMargin) {
+    this.loader = loader;
+    this.refreshExecutor = refreshExecutor;
+    this.clock = clock;
+    this.refreshAhead = refreshAhead;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(
+                CacheUtils.<Key, Entry>expireAfterWrite(
+                    entry -> {
+                      Duration ttl = timeLeft(entry.token()).minus(expiryMargin);
+                      return ttl.isNegative() ? Duration.ZERO : ttl;
+                    }))
+            .recordStats(CacheUtils.metricsStatsCounter("sam_pet_token"))
+            .build();
+  }
+
+  /**
+   * @param userEmail the user's email, as Sam resolves their access token
+   * @param accessToken the user's access token, used to fetch a token on a miss
+   */
+  PetToken get(String projectId, String userEmail, String accessToken) {
+    Key key = new Key(projectId, userEmail);
+    Entry entry = cache.get(key, k -> new Entry(loader.load(projectId, accessToken)));
+    if (timeLeft(entry.token()).compareTo(refreshAhead) < 0
+        && entry.refreshStarted().compareAndSet(false, true)) {
+      refreshInBackground(key, entry, accessToken);
+    }
+    return entry.token();
+  }
+
+  /**
+   * Fetch a new token for a caller whose token is about to expire or was rejected, bypassing the
+   * refresh-ahead window in which the cache would keep returning it. If another caller has already
+   * replaced that token, the replacement is returned without calling Sam again. If Sam returns the
+   * stale token again, it is returned but no longer cached, so the next caller asks Sam again.
+   *
+   * @param staleToken the access token the caller wants replaced
+   */
+  PetToken refresh(String projectId, String userEmail, String accessToken, String staleToken) {
+    AtomicReference<PetToken> refreshed = new AtomicReference<>();
+    // Computing under the key's lock means concurrent refreshes of one token share one fetch.
+    cache
+        .asMap()
+        .compute(
+            new Key(projectId, userEmail),
+            (k, entry) -> {
+              if (entry != null && !entry.token().accessToken().equals(staleToken)) {
+                refreshed.set(entry.token());
+                return entry;
+              }
+              PetToken token = loader.load(projectId, accessToken);
+              refreshed.set(token);
+              return token.accessToken().equals(staleToken) ? null : new Entry(token);
+            });
+    return refreshed.get();
+  }
+
+  private void refreshInBackground(Key key, Entry entry, String accessToken) {
+    Runnable refresh =
+        () -> {
+          try {
+            PetToken token = loader.load(key.projectId(), accessToken);
+            // Sam may hand back the token it cached. Its expiry is only assumed from when it was
+            // first fetched, so keep that rather than extend it.
+            if (!token.accessToken().equals(entry.token().accessToken())) {
+              cache.asMap().replace(key, entry, new Entry(token));
+            }
+          } catch (RuntimeException e) {
+            // The cached token is still used until it expires.
+            logger.warn("Failed to refresh pet token for project {}", key.projectId(), e);
+          }
+        };
+    try {
+      refreshExecutor.execute(refresh);
+    } catch (RuntimeException e) {
+      logger.warn("Failed to schedule pet token refresh for project {}", key.projectId(), e);
+    }
+  }
+
+  private Duration timeLeft(PetToken token) {
+    Duration timeLeft = Duration.between(clock.instant(), token.expiresAt());
+    return timeLeft.isNegative() ? Duration.ZERO : timeLeft;
+  }
+
+  /** Drop all cached tokens. */
+  void clear() {
+    cache.invalidateAll();
+  }
+}
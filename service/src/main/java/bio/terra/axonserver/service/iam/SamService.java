@@ -2,14 +2,30 @@ package bio.terra.axonserver.service.iam;
 
 import bio.terra.axonserver.app.configuration.SamConfiguration;
 import bio.terra.axonserver.service.cloud.gcp.GcpService;
+import bio.terra.axonserver.service.exception.ServiceUnavailableException;
+import bio.terra.axonserver.service.http.AccessTokenContext;
+import bio.terra.axonserver.service.http.HttpTransportFactory;
+import bio.terra.axonserver.utils.CacheUtils;
+import bio.terra.axonserver.utils.TokenUtils;
 import bio.terra.common.exception.InternalServerErrorException;
 import bio.terra.common.iam.BearerToken;
 import bio.terra.common.sam.SamRetry;
 import bio.terra.common.sam.exception.SamExceptionFactory;
-import com.google.auth.oauth2.GoogleCredentials;
-import com.google.common.collect.ImmutableSet;
-import java.io.IOException;
-import java.util.Set;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import org.broadinstitute.dsde.workbench.client.sam.ApiClient;
 import org.broadinstitute.dsde.workbench.client.sam.ApiException;
 import org.broadinstitute.dsde.workbench.client.sam.api.GoogleApi;
@@ -18,29 +34,149 @@ import org.broadinstitute.dsde.workbench.client.sam.model.UserStatusInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
 @Component
 public class SamService {
   private static final Logger logger = LoggerFactory.getLogger(SamService.class);
-  private static final Set<String> SAM_OAUTH_SCOPES = ImmutableSet.of("openid", "email", "profile");
+  private static final int PET_TOKEN_REFRESH_THREADS = 2;
+  private static final long REGISTRATION_RETRY_SECONDS = 30;
+  /** How long a request needing the Axon service account waits for it to be registered. */
+  private static final long REGISTRATION_WAIT_SECONDS = 5;
+
   private final SamConfiguration samConfig;
-  private boolean axonServiceAccountInitialized;
+  private final AxonServiceAccountTokenProvider axonTokenProvider;
+  private final ApiClient apiClient;
+  private final ExecutorService petTokenRefreshExecutor;
+  private final PetTokenCache petTokenCache;
+  private final Cache<PetKeyKey, SecretValue> petKeyCache;
+  private final Cache<String, IdentityEntry<UserStatusInfo>> userInfoCache;
+  private final Cache<PetEmailKey, IdentityEntry<String>> petEmailCache;
+  private final ScheduledExecutorService registrationExecutor;
+  private final CompletableFuture<RegistrationState> registration = new CompletableFuture<>();
+  private final AtomicBoolean registrationStarted = new AtomicBoolean();
+
+  /** Progress of registering the Axon service account in Sam. */
+  public enum RegistrationState {
+    PENDING,
+    REGISTERED,
+    /** Registration is disabled, or Axon is not running as a service account. */
+    SKIPPED
+  }
+
+  private record PetKeyKey(String projectId, String userEmail) {}
+
+  private record PetEmailKey(String projectId, String callerFingerprint) {}
+
+  /**
+   * An identity fact looked up with a caller's token, kept no longer than the token is valid.
+   *
+   * @param tokenExpiresAt when the token expires, or null if it is not known
+   */
+  private record IdentityEntry<T>(T value, @Nullable Instant tokenExpiresAt) {}
+
+  /**
+   * Holds a secret in memory. Not serializable, and its string form never includes the secret, so
+   * it cannot end up in logs or be written out by accident.
+   */
+  private static final class SecretValue {
+    private final String value;
+
+    private SecretValue(String value) {
+      this.value = value;
+    }
+
+    @Override
+    public String toString() {
+      return "SecretValue[redacted]";
+    }
+  }
 
   @Autowired
-  public SamService(SamConfiguration samConfig) {
+  public SamService(
+      SamConfiguration samConfig,
+      HttpTransportFactory httpTransportFactory,
+      AxonServiceAccountTokenProvider axonTokenProvider) {
     this.samConfig = samConfig;
+    this.axonTokenProvider = axonTokenProvider;
+    // One client for all callers; each call passes its caller's token through AccessTokenContext.
+    this.apiClient = new ApiClient().setBasePath(samConfig.basePath());
+    apiClient.setHttpClient(httpTransportFactory.newOkHttpClient("sam"));
+    this.petTokenRefreshExecutor =
+        Executors.newFixedThreadPool(
+            PET_TOKEN_REFRESH_THREADS,
+            runnable -> {
+              Thread thread = new Thread(runnable, "pet-token-refresh");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.petTokenCache =
+        new PetTokenCache(
+            this::fetchPetToken,
+            petTokenRefreshExecutor,
+            Clock.systemUTC(),
+            samConfig.petTokenCacheMaxSize(),
+            Duration.ofSeconds(samConfig.petTokenRefreshAheadSeconds()),
+            Duration.ofSeconds(samConfig.petTokenExpiryMarginSeconds()));
+    if (!samConfig.registerAxonServiceAccount()) {
+      registration.complete(RegistrationState.SKIPPED);
+    }
+    this.registrationExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "sam-registration");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.petKeyCache =
+        Caffeine.newBuilder()
+            .maximumSize(samConfig.petKeyCacheMaxSize())
+            .expireAfterWrite(Duration.ofSeconds(samConfig.petKeyCacheTtlSeconds()))
+            .recordStats(CacheUtils.metricsStatsCounter("sam_pet_key"))
+            .build();
+    // Identity facts do not change for the life of a caller's token. Entries expire with the token
+    // where it is a JWT, so a caller whose token has expired is sent to Sam, and is refused there.
+    // Opaque tokens are only looked up in Sam, so an expired one is honored until the TTL is up.
+    Duration identityTtl = Duration.ofSeconds(samConfig.identityCacheTtlSeconds());
+    this.userInfoCache =
+        Caffeine.newBuilder()
+            .maximumSize(samConfig.identityCacheMaxSize())
+            .expireAfter(
+                CacheUtils.<String, IdentityEntry<UserStatusInfo>>expireAfterWrite(
+                    entry -> ttlWithinToken(identityTtl, entry)))
+            .recordStats(CacheUtils.metricsStatsCounter("sam_user_info"))
+            .build();
+    this.petEmailCache =
+        Caffeine.newBuilder()
+            .maximumSize(samConfig.identityCacheMaxSize())
+            .expireAfter(
+                CacheUtils.<PetEmailKey, IdentityEntry<String>>expireAfterWrite(
+                    entry -> ttlWithinToken(identityTtl, entry)))
+            .recordStats(CacheUtils.metricsStatsCounter("sam_pet_email"))
+            .build();
   }
 
-  private ApiClient getApiClient(String accessToken) {
-    ApiClient apiClient = getApiClient();
-    apiClient.setAccessToken(accessToken);
-    return apiClient;
+  private static Duration ttlWithinToken(Duration ttl, IdentityEntry<?> entry) {
+    if (entry.tokenExpiresAt() == null) {
+      return ttl;
+    }
+    Duration tokenLeft = Duration.between(Instant.now(), entry.tokenExpiresAt());
+    if (tokenLeft.isNegative()) {
+      return Duration.ZERO;
+    }
+    return tokenLeft.compareTo(ttl) < 0 ? tokenLeft : ttl;
   }
 
-  private ApiClient getApiClient() {
-    return new ApiClient().setBasePath(samConfig.basePath());
+  @PreDestroy
+  public void shutdown() {
+    petTokenRefreshExecutor.shutdownNow();
+    registrationExecutor.shutdownNow();
+    petTokenCache.clear();
+    petKeyCache.invalidateAll();
+    petKeyCache.cleanUp();
   }
 
   /**
@@ -51,77 +187,214 @@ public class SamService {
    * @return pet service account access token
    */
   public String getPetAccessToken(String projectId, BearerToken userRequest) {
+    return getPetToken(projectId, userRequest).accessToken();
+  }
+
+  /**
+   * Get a pet service account access token for a user, with its expiry. Tokens are cached in memory
+   * until shortly before they expire, and refreshed in the background ahead of that.
+   *
+   * @param projectId google project id
+   * @param userRequest user access token
+   * @return pet service account access token and its expiry
+   */
+  public PetToken getPetToken(String projectId, BearerToken userRequest) {
+    // Not memoized per request: credentials refreshing during a long request need a new token.
+    return petTokenCache.get(projectId, userEmail(userRequest), userRequest.getToken());
+  }
+
+  /**
+   * Get a new pet service account access token for a user, replacing a cached one that is about to
+   * expire or was rejected.
+   *
+   * @param projectId google project id
+   * @param userRequest user access token
+   * @param staleToken the pet access token to replace
+   * @return a pet service account access token other than staleToken, unless Sam returns it again,
+   *     in which case it is not cached
+   */
+  public PetToken refreshPetToken(String projectId, BearerToken userRequest, String staleToken) {
+    return petTokenCache.refresh(
+        projectId, userEmail(userRequest), userRequest.getToken(), staleToken);
+  }
+
+  /** The email Sam resolves a caller's token to, from the identity cache. */
+  private String userEmail(BearerToken userRequest) {
+    return getUserStatusInfo(userRequest).getUserEmail();
+  }
+
+  private PetToken fetchPetToken(String projectId, String accessToken) {
+    final String petAccessToken;
     try {
-      return new GoogleApi(getApiClient(userRequest.getToken()))
-          .getPetServiceAccountToken(projectId, GcpService.getPetScopes());
+      petAccessToken =
+          AccessTokenContext.withAccessToken(
+              accessToken,
+              () ->
+                  new GoogleApi(apiClient)
+                      .getPetServiceAccountToken(projectId, GcpService.getPetScopes()));
     } catch (ApiException apiException) {
       throw SamExceptionFactory.create("Error getting user's pet SA access token", apiException);
     }
+    // Sam does not return the expiry, and may return a token it has cached for a while, so only
+    // trust it for the configured TTL, well short of a Google token's hour.
+    return new PetToken(petAccessToken, Instant.now().plusSeconds(samConfig.petTokenTtlSeconds()));
   }
 
   /**
-   * Get registration info for a user (email, enabled status)
+   * Get registration info for a user (email, enabled status). Cached per caller for a short time,
+   * and no longer than the caller's token is valid if it is a JWT, shared by concurrent lookups.
    *
    * @param userRequest user access token
    * @return
    */
   public UserStatusInfo getUserStatusInfo(BearerToken userRequest) {
+    return userInfoCache
+        .get(
+            TokenUtils.fingerprint(userRequest.getToken()), key -> fetchUserStatusInfo(userRequest))
+        .value();
+  }
+
+  private IdentityEntry<UserStatusInfo> fetchUserStatusInfo(BearerToken userRequest) {
     try {
-      return new UsersApi(getApiClient(userRequest.getToken())).getUserStatusInfo();
+      UserStatusInfo userInfo =
+          AccessTokenContext.withAccessToken(
+              userRequest.getToken(), () -> new UsersApi(apiClient).getUserStatusInfo());
+      return new IdentityEntry<>(userInfo, TokenUtils.jwtExpiry(userRequest.getToken()));
     } catch (ApiException apiException) {
       throw SamExceptionFactory.create("Error getting user's info", apiException);
     }
   }
 
   /**
-   * Get the pet service account email for a user, within a specified project.
+   * Get the pet service account email for a user, within a specified project. Cached per caller and
+   * project for a short time, shared by concurrent lookups.
    *
    * @param projectId Google project ID
    * @param userRequest User access token
    * @return The pet service account email.
    */
   public String getPetServiceAccount(String projectId, BearerToken userRequest) {
+    return petEmailCache
+        .get(
+            new PetEmailKey(projectId, TokenUtils.fingerprint(userRequest.getToken())),
+            key -> fetchPetServiceAccount(projectId, userRequest))
+        .value();
+  }
+
+  private IdentityEntry<String> fetchPetServiceAccount(String projectId, BearerToken userRequest) {
     try {
-      return new GoogleApi(getApiClient(userRequest.getToken())).getPetServiceAccount(projectId);
+      String petEmail =
+          AccessTokenContext.withAccessToken(
+              userRequest.getToken(),
+              () -> new GoogleApi(apiClient).getPetServiceAccount(projectId));
+      return new IdentityEntry<>(petEmail, TokenUtils.jwtExpiry(userRequest.getToken()));
     } catch (ApiException apiException) {
       throw SamExceptionFactory.create("Error getting user's pet SA email.", apiException);
     }
   }
 
+  /**
+   * Get a key for a user's pet service account in a project. Keys are cached in memory for a short
+   * time, so repeated workflow submissions by the same user do not each go to Sam.
+   *
+   * @param projectId Google project ID
+   * @param userEmail user email
+   * @return the pet service account key, as JSON
+   * @throws ServiceUnavailableException if the Axon service account, which fetches the key, is not
+   *     registered in Sam within a few seconds
+   */
   public String getPetServiceAccountKey(String projectId, String userEmail) {
+    return petKeyCache.get(
+            new PetKeyKey(projectId, userEmail),
+            key -> new SecretValue(fetchPetServiceAccountKey(projectId, userEmail)))
+        .value;
+  }
+
+  private String fetchPetServiceAccountKey(String projectId, String userEmail) {
+    awaitRegistration();
     try {
-      initializeAxonServiceAccount();
-    } catch (InterruptedException e) {
-      throw new RuntimeException(e);
-    }
-    try {
-      return new GoogleApi(getApiClient(getAxonServiceAccountToken()))
-          .getUserPetServiceAccountKey(projectId, userEmail);
+      return AccessTokenContext.withAccessToken(
+          getAxonServiceAccountToken(),
+          () -> new GoogleApi(apiClient).getUserPetServiceAccountKey(projectId, userEmail));
     } catch (ApiException apiException) {
       throw SamExceptionFactory.create(
           "Error getting user's pet SA key for project.", apiException);
     }
   }
 
-  private void initializeAxonServiceAccount() throws InterruptedException {
-    if (!axonServiceAccountInitialized) {
-      final String axonAccessToken;
-      try {
-        axonAccessToken = getAxonServiceAccountToken();
-      } catch (InternalServerErrorException e) {
-        // In cases where Axon is not running as a service account (e.g. unit tests), the above call
-        // will throw. This can be ignored now and later when the credentials are used again.
-        logger.warn(
-            "Failed to register Axon service account in Sam. This is expected for tests.", e);
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    startAxonServiceAccountRegistration();
+  }
+
+  /**
+   * Start registering the Axon service account in Sam, in the background. Only the first call
+   * starts registration; every call returns the same future, which completes once the account is
+   * registered or registration is skipped. Failed attempts are retried until one succeeds.
+   */
+  public CompletableFuture<RegistrationState> startAxonServiceAccountRegistration() {
+    if (!registration.isDone() && registrationStarted.compareAndSet(false, true)) {
+      registrationExecutor.execute(this::attemptRegistration);
+    }
+    return registration;
+  }
+
+  /**
+   * Wait briefly for registration to complete, if it has started.
+   *
+   * @throws ServiceUnavailableException if it does not complete in time
+   */
+  private void awaitRegistration() {
+    if (registration.isDone()) {
+      return;
+    }
+    try {
+      if (registrationStarted.get()) {
+        registration.get(REGISTRATION_WAIT_SECONDS, TimeUnit.SECONDS);
         return;
       }
-      UsersApi usersApi = new UsersApi(getApiClient(axonAccessToken));
-      // If registering the service account fails, all we can do is to keep trying.
-      if (!axonServiceAccountRegistered(usersApi)) {
-        // retries internally
-        registerAxonServiceAccount(usersApi);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | TimeoutException e) {
+      // Not registered yet; registration keeps retrying in the background.
+    }
+    throw new ServiceUnavailableException(
+        "Axon service account registration in Sam has not completed", REGISTRATION_RETRY_SECONDS);
+  }
+
+  public RegistrationState getAxonServiceAccountRegistrationState() {
+    return registration.getNow(RegistrationState.PENDING);
+  }
+
+  private void attemptRegistration() {
+    try {
+      if (!axonTokenProvider.hasCredentials()) {
+        // Axon is not running as a service account.
+        logger.warn("Not registering Axon service account in Sam, no service account credentials");
+        registration.complete(RegistrationState.SKIPPED);
+        return;
       }
-      axonServiceAccountInitialized = true;
+      UsersApi usersApi = new UsersApi(apiClient);
+      AccessTokenContext.withAccessToken(
+          getAxonServiceAccountToken(),
+          () -> {
+            if (!axonServiceAccountRegistered(usersApi)) {
+              // retries internally
+              registerAxonServiceAccount(usersApi);
+            }
+            return null;
+          });
+      registration.complete(RegistrationState.REGISTERED);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      // If registering the service account fails, all we can do is to keep trying.
+      logger.warn(
+          "Failed to register Axon service account in Sam, retrying in {} seconds",
+          REGISTRATION_RETRY_SECONDS,
+          e);
+      registrationExecutor.schedule(
+          this::attemptRegistration, REGISTRATION_RETRY_SECONDS, TimeUnit.SECONDS);
     }
   }
 
@@ -153,15 +426,12 @@ public class SamService {
     }
   }
 
+  /**
+   * Get an access token for the Axon service account, from a token refreshed in the background.
+   *
+   * @throws InternalServerErrorException if Axon is not running with service account credentials
+   */
   public String getAxonServiceAccountToken() {
-    try {
-      GoogleCredentials creds =
-          GoogleCredentials.getApplicationDefault().createScoped(SAM_OAUTH_SCOPES);
-      creds.refreshIfExpired();
-      return creds.getAccessToken().getTokenValue();
-    } catch (IOException e) {
-      throw new InternalServerErrorException(
-          "Internal server error retrieving axon credentials", e);
-    }
+    return axonTokenProvider.getAccessToken();
   }
 }
@@ -0,0 +1,72 @@
+package bio.terra.axonserver.service.wsm;
+
+import bio.terra.axonserver.app.configuration.WsmConfiguration;
+import bio.terra.axonserver.service.iam.SamService;
+import bio.terra.common.exception.InternalServerErrorException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the GCP contexts of frequently used workspaces, configured in {@code
+ * axonserver.wsm.preloadWorkspaceIds}, once the application has started. Runs in the background
+ * and is best effort: the service is ready without it, and workspaces that are not preloaded are
+ * loaded on first use.
+ */
+@Component
+public class GcpContextPreloader {
+  private static final Logger logger = LoggerFactory.getLogger(GcpContextPreloader.class);
+
+  private final WsmConfiguration wsmConfig;
+  private final WorkspaceManagerService wsmService;
+  private final SamService samService;
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "gcp-context-preload");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  @Autowired
+  public GcpContextPreloader(
+      WsmConfiguration wsmConfig, WorkspaceManagerService wsmService, SamService samService) {
+    this.wsmConfig = wsmConfig;
+    this.wsmService = wsmService;
+    this.samService = samService;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void startPreload() {
+    List<UUID> workspaceIds = wsmConfig.preloadWorkspaceIds();
+    if (workspaceIds.isEmpty()) {
+      return;
+    }
+    executor.execute(() -> preload(workspaceIds));
+  }
+
+  private void preload(List<UUID> workspaceIds) {
+    final String accessToken;
+    try {
+      accessToken = samService.getAxonServiceAccountToken();
+    } catch (InternalServerErrorException e) {
+      logger.warn("Skipping GCP context preload, Axon service account credentials unavailable", e);
+      return;
+    }
+    int loaded = wsmService.preloadGcpContexts(workspaceIds, accessToken);
+    logger.info("Preloaded GCP contexts for {} of {} workspaces", loaded, workspaceIds.size());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
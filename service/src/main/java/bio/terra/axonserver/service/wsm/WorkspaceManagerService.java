@@ -2,6 +2,11 @@ package bio.terra.axonserver.service.wsm;
 
 import bio.terra.axonserver.app.configuration.WsmConfiguration;
 import bio.terra.axonserver.service.exception.InvalidResourceTypeException;
+import bio.terra.axonserver.service.http.AccessTokenContext;
+import bio.terra.axonserver.service.http.HttpTransportFactory;
+import bio.terra.axonserver.utils.CacheUtils;
+import bio.terra.axonserver.utils.RequestMemo;
+import bio.terra.axonserver.utils.TokenUtils;
 import bio.terra.common.exception.ForbiddenException;
 import bio.terra.workspace.api.ControlledAwsResourceApi;
 import bio.terra.workspace.api.ResourceApi;
@@ -15,35 +20,94 @@ import bio.terra.workspace.model.IamRole;
 import bio.terra.workspace.model.ResourceDescription;
 import bio.terra.workspace.model.ResourceMetadata;
 import bio.terra.workspace.model.WorkspaceDescription;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.annotations.VisibleForTesting;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 import javax.annotation.Nullable;
 import javax.ws.rs.NotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
-/** Service for interacting with the Terra Workspace Manager client. */
+/**
+ * Service for interacting with the Terra Workspace Manager client. Workspace, resource and role
+ * lookups are memoized for the duration of a request with {@link RequestMemo}.
+ */
 @Component
 public class WorkspaceManagerService {
+  private static final Logger logger = LoggerFactory.getLogger(WorkspaceManagerService.class);
 
   public static final int AWS_RESOURCE_CREDENTIAL_DURATION_MIN = 900;
   public static final int AWS_RESOURCE_CREDENTIAL_DURATION_MAX = 3600;
 
-  private final WsmConfiguration wsmConfig;
+  /**
+   * Roles the access cache can compare, lowest first. Checks against other roles, such as
+   * DISCOVERER and APPLICATION, go to WSM.
+   */
+  private static final List<IamRole> ROLE_HIERARCHY =
+      List.of(IamRole.READER, IamRole.WRITER, IamRole.OWNER);
 
-  @Autowired
-  public WorkspaceManagerService(WsmConfiguration wsmConfig) {
-    this.wsmConfig = wsmConfig;
-  }
+  private final ApiClient apiClient;
+  private final Cache<ResourceKey, ResourceLookup> resourceCache;
+  private final Cache<AccessKey, AccessDecision> accessCache;
+  private final Cache<UUID, GcpContext> gcpContextCache;
 
-  private ApiClient getApiClient(String accessToken) {
-    ApiClient apiClient = getApiClient();
-    apiClient.setAccessToken(accessToken);
-    return apiClient;
-  }
+  /**
+   * Resource lookups are cached per caller, so a cached result is only returned to a caller WSM has
+   * already authorized. The caller's access to the workspace is re-checked on every hit, through
+   * the access cache.
+   */
+  private record ResourceKey(UUID workspaceId, UUID resourceId, String callerFingerprint) {}
+
+  /** Result of a resource lookup. The resource is null if it was not found or not accessible. */
+  private record ResourceLookup(@Nullable ResourceDescription resource) {}
 
-  private ApiClient getApiClient() {
-    return new ApiClient().setBasePath(wsmConfig.basePath());
+  private record AccessKey(UUID workspaceId, String callerFingerprint) {}
+
+  /** A caller's highest role on a workspace. The role is null if the caller has no access. */
+  private record AccessDecision(@Nullable IamRole highestRole) {}
+
+  @Autowired
+  public WorkspaceManagerService(
+      WsmConfiguration wsmConfig, HttpTransportFactory httpTransportFactory) {
+    // One client for all callers; each call passes its caller's token through AccessTokenContext.
+    this.apiClient = new ApiClient().setBasePath(wsmConfig.basePath());
+    apiClient.setHttpClient(httpTransportFactory.newJerseyClient("wsm", apiClient.getHttpClient()));
+    Duration resourceTtl = Duration.ofSeconds(wsmConfig.resourceCacheTtlSeconds());
+    Duration notFoundTtl = Duration.ofSeconds(wsmConfig.resourceNotFoundCacheTtlSeconds());
+    this.resourceCache =
+        Caffeine.newBuilder()
+            .maximumSize(wsmConfig.resourceCacheMaxSize())
+            .expireAfter(
+                CacheUtils.<ResourceKey, ResourceLookup>expireAfterWrite(
+                    lookup -> lookup.resource() == null ? notFoundTtl : resourceTtl))
+            .recordStats(CacheUtils.metricsStatsCounter("wsm_resource"))
+            .build();
+    Duration accessTtl = Duration.ofSeconds(wsmConfig.accessCacheTtlSeconds());
+    Duration deniedTtl = Duration.ofSeconds(wsmConfig.accessDeniedCacheTtlSeconds());
+    this.accessCache =
+        Caffeine.newBuilder()
+            .maximumSize(wsmConfig.accessCacheMaxSize())
+            .expireAfter(
+                CacheUtils.<AccessKey, AccessDecision>expireAfterWrite(
+                    decision -> decision.highestRole() == null ? deniedTtl : accessTtl))
+            .recordStats(CacheUtils.metricsStatsCounter("wsm_access"))
+            .build();
+    // A workspace's GCP context does not change, so it is shared by all callers and kept for a
+    // long time. Callers' access is checked separately, through the access cache.
+    this.gcpContextCache =
+        Caffeine.newBuilder()
+            .maximumSize(wsmConfig.gcpContextCacheMaxSize())
+            .expireAfterWrite(Duration.ofSeconds(wsmConfig.gcpContextCacheTtlSeconds()))
+            .recordStats(CacheUtils.metricsStatsCounter("wsm_gcp_context"))
+            .build();
   }
 
   /**
@@ -58,9 +122,18 @@ public class WorkspaceManagerService {
    */
   public WorkspaceDescription getWorkspace(
       UUID workspaceId, @Nullable IamRole minimumHighestRole, String accessToken) {
+    return RequestMemo.memoize(
+        "wsm.getWorkspace",
+        Arrays.asList(workspaceId, minimumHighestRole, accessToken),
+        () -> fetchWorkspace(workspaceId, minimumHighestRole, accessToken));
+  }
+
+  private WorkspaceDescription fetchWorkspace(
+      UUID workspaceId, @Nullable IamRole minimumHighestRole, String accessToken) {
     try {
-      return new WorkspaceApi(getApiClient(accessToken))
-          .getWorkspace(workspaceId, minimumHighestRole);
+      return AccessTokenContext.withAccessToken(
+          accessToken,
+          () -> new WorkspaceApi(apiClient).getWorkspace(workspaceId, minimumHighestRole));
     } catch (ApiException apiException) {
       throw new ForbiddenException("Unable to access workspace %s.".formatted(workspaceId));
     }
@@ -76,47 +149,188 @@ public class WorkspaceManagerService {
    * @throws NotFoundException if workspace or resource does not exist
    */
   public ResourceDescription getResource(UUID workspaceId, UUID resourceId, String accessToken) {
+    return RequestMemo.memoize(
+        "wsm.getResource",
+        List.of(workspaceId, resourceId, accessToken),
+        () -> lookupResource(workspaceId, resourceId, accessToken));
+  }
+
+  private ResourceDescription lookupResource(
+      UUID workspaceId, UUID resourceId, String accessToken) {
+    ResourceKey resourceKey =
+        new ResourceKey(workspaceId, resourceId, TokenUtils.fingerprint(accessToken));
+    ResourceLookup lookup = resourceCache.getIfPresent(resourceKey);
+    if (lookup != null && lookup.resource() != null) {
+      // WSM authorized the caller when the resource was fetched, but access may have been revoked
+      // since. Check it on every hit, so however long the resource is cached, a revoked caller is
+      // refused once their cached role expires, within accessCacheTtlSeconds.
+      try {
+        checkWorkspaceReadAccess(workspaceId, accessToken);
+      } catch (ForbiddenException e) {
+        resourceCache.invalidate(resourceKey);
+        throw new NotFoundException("getResource unable to access workspace or resource.");
+      }
+    } else if (lookup == null) {
+      lookup =
+          resourceCache.get(
+              resourceKey, key -> fetchResource(workspaceId, resourceId, accessToken));
+    }
+    if (lookup.resource() == null) {
+      throw new NotFoundException("getResource unable to access workspace or resource.");
+    }
+    return lookup.resource();
+  }
+
+  private ResourceLookup fetchResource(UUID workspaceId, UUID resourceId, String accessToken) {
     try {
-      return new ResourceApi(getApiClient(accessToken)).getResource(workspaceId, resourceId);
+      return new ResourceLookup(
+          AccessTokenContext.withAccessToken(
+              accessToken, () -> new ResourceApi(apiClient).getResource(workspaceId, resourceId)));
     } catch (ApiException apiException) {
+      if (isDenied(apiException)) {
+        return new ResourceLookup(null);
+      }
       throw new NotFoundException("getResource unable to access workspace or resource.");
     }
   }
 
   /**
-   * Get the GCP context for a workspace.
+   * Whether WSM definitely refused the request. Only these answers are cached; other failures may
+   * be transient.
+   */
+  private static boolean isDenied(ApiException apiException) {
+    return apiException.getCode() == HttpStatus.NOT_FOUND.value()
+        || apiException.getCode() == HttpStatus.FORBIDDEN.value();
+  }
+
+  /**
+   * Get the GCP context for a workspace. The caller's access is checked through the access cache,
+   * and the context comes from a long-lived cache, so a workspace is only fetched if neither has
+   * seen it.
    *
    * @param workspaceId terra workspace id
    * @param accessToken user access token
-   * @return WSM GCP context
-   * @throws NotFoundException if workspace does not exist or user does not have access to workspace
+   * @return WSM GCP context, or null if the workspace has no GCP context
+   * @throws ForbiddenException if the user does not have access to workspace
    */
   public GcpContext getGcpContext(UUID workspaceId, String accessToken) {
-    return getWorkspace(workspaceId, null, accessToken).getGcpContext();
+    getHighestRole(workspaceId, /*minimumHighestRole=*/ null, accessToken);
+    // A null context is not cached, since one may be created later.
+    return gcpContextCache.get(
+        workspaceId, key -> getWorkspace(workspaceId, null, accessToken).getGcpContext());
+  }
+
+  /**
+   * Load the GCP contexts of workspaces into the cache ahead of use. Workspaces that cannot be
+   * fetched are logged and skipped.
+   *
+   * @param workspaceIds terra workspace ids
+   * @param accessToken access token that can read the workspaces
+   * @return number of contexts loaded
+   */
+  public int preloadGcpContexts(Collection<UUID> workspaceIds, String accessToken) {
+    int loaded = 0;
+    for (UUID workspaceId : workspaceIds) {
+      try {
+        cacheGcpContext(workspaceId, fetchWorkspace(workspaceId, null, accessToken));
+        loaded++;
+      } catch (RuntimeException e) {
+        logger.warn("Unable to preload GCP context for workspace {}", workspaceId, e);
+      }
+    }
+    return loaded;
+  }
+
+  private void cacheGcpContext(UUID workspaceId, WorkspaceDescription workspace) {
+    if (workspace.getGcpContext() != null) {
+      gcpContextCache.put(workspaceId, workspace.getGcpContext());
+    }
   }
 
   /**
-   * Get the highest IAM role on a workspace for a given user.
+   * Get the highest IAM role on a workspace for a given user. Answered from a short-lived
+   * per-caller cache when the required role can be compared locally.
    *
    * @param workspaceId terra workspace ID
    * @param minimumHighestRole require that user has minimum role on workspace, or null for any role
    * @param accessToken user access token
    * @return Highest IAM role of the user on the workspace
-   * @throws NotFoundException if workspace does not exist or user does not have access to workspace
-   * @throws ForbiddenException if minimumHighestRole is not null and user does not have at least
-   *     minimumHighestRole role on workspace
+   * @throws ForbiddenException if the user does not have access to the workspace, or if
+   *     minimumHighestRole is not null and user does not have at least minimumHighestRole role on
+   *     workspace
    */
   public IamRole getHighestRole(
       UUID workspaceId, @Nullable IamRole minimumHighestRole, String accessToken) {
-    return getWorkspace(workspaceId, minimumHighestRole, accessToken).getHighestRole();
+    return RequestMemo.memoize(
+        "wsm.getHighestRole",
+        Arrays.asList(workspaceId, minimumHighestRole, accessToken),
+        () -> lookupHighestRole(workspaceId, minimumHighestRole, accessToken));
+  }
+
+  private IamRole lookupHighestRole(
+      UUID workspaceId, @Nullable IamRole minimumHighestRole, String accessToken) {
+    if (minimumHighestRole != null && !ROLE_HIERARCHY.contains(minimumHighestRole)) {
+      return getWorkspace(workspaceId, minimumHighestRole, accessToken).getHighestRole();
+    }
+    IamRole highestRole =
+        accessCache
+            .get(
+                new AccessKey(workspaceId, TokenUtils.fingerprint(accessToken)),
+                key -> fetchAccessDecision(workspaceId, accessToken))
+            .highestRole();
+    if (highestRole == null) {
+      throw new ForbiddenException("Unable to access workspace %s.".formatted(workspaceId));
+    }
+    if (minimumHighestRole == null) {
+      return highestRole;
+    }
+    if (!ROLE_HIERARCHY.contains(highestRole)) {
+      // The cached role cannot be ranked against the required role; let WSM decide.
+      return getWorkspace(workspaceId, minimumHighestRole, accessToken).getHighestRole();
+    }
+    if (ROLE_HIERARCHY.indexOf(highestRole) < ROLE_HIERARCHY.indexOf(minimumHighestRole)) {
+      throw new ForbiddenException("Unable to access workspace %s.".formatted(workspaceId));
+    }
+    return highestRole;
+  }
+
+  private AccessDecision fetchAccessDecision(UUID workspaceId, String accessToken) {
+    try {
+      WorkspaceDescription workspace =
+          AccessTokenContext.withAccessToken(
+              accessToken,
+              () ->
+                  new WorkspaceApi(apiClient)
+                      .getWorkspace(workspaceId, /*minimumHighestRole=*/ null));
+      // The same response carries the GCP context; keep it so getGcpContext need not fetch it.
+      cacheGcpContext(workspaceId, workspace);
+      return new AccessDecision(workspace.getHighestRole());
+    } catch (ApiException apiException) {
+      if (isDenied(apiException)) {
+        return new AccessDecision(null);
+      }
+      throw new ForbiddenException("Unable to access workspace %s.".formatted(workspaceId));
+    }
   }
 
   public void checkWorkspaceReadAccess(UUID workspaceId, String accessToken) {
-    getWorkspace(workspaceId, IamRole.READER, accessToken);
+    getHighestRole(workspaceId, IamRole.READER, accessToken);
   }
 
   public void checkWorkspaceWriteAccess(UUID workspaceId, String accessToken) {
-    getWorkspace(workspaceId, IamRole.WRITER, accessToken);
+    getHighestRole(workspaceId, IamRole.WRITER, accessToken);
+  }
+
+  /**
+   * Drop all cached access decisions, resource descriptions and the GCP context for a workspace,
+   * for every caller.
+   *
+   * @param workspaceId terra workspace ID
+   */
+  public void invalidateWorkspace(UUID workspaceId) {
+    accessCache.asMap().keySet().removeIf(key -> key.workspaceId().equals(workspaceId));
+    resourceCache.asMap().keySet().removeIf(key -> key.workspaceId().equals(workspaceId));
+    gcpContextCache.invalidate(workspaceId);
   }
 
   @VisibleForTesting
@@ -127,8 +341,11 @@ public class WorkspaceManagerService {
       Integer duration,
       String accessToken) {
     try {
-      return new ControlledAwsResourceApi(getApiClient(accessToken))
-          .getAwsS3StorageFolderCredential(workspaceId, resourceId, accessScope, duration);
+      return AccessTokenContext.withAccessToken(
+          accessToken,
+          () ->
+              new ControlledAwsResourceApi(apiClient)
+                  .getAwsS3StorageFolderCredential(workspaceId, resourceId, accessScope, duration));
     } catch (ApiException e) {
       throw new NotFoundException(
           "getAwsS3StorageFolderCredential unable to access workspace or resource.");
@@ -143,8 +360,12 @@ public class WorkspaceManagerService {
       Integer duration,
       String accessToken) {
     try {
-      return new ControlledAwsResourceApi(getApiClient(accessToken))
-          .getAwsSageMakerNotebookCredential(workspaceId, resourceId, accessScope, duration);
+      return AccessTokenContext.withAccessToken(
+          accessToken,
+          () ->
+              new ControlledAwsResourceApi(apiClient)
+                  .getAwsSageMakerNotebookCredential(
+                      workspaceId, resourceId, accessScope, duration));
     } catch (ApiException e) {
       throw new NotFoundException(
           "getAwsSageMakerNotebookCredential unable to access workspace or resource.");
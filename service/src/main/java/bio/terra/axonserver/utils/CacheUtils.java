@@ -0,0 +1,102 @@
+package bio.terra.axonserver.utils;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.tags.TagKey;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/** Helpers for building Caffeine caches. */
+public class CacheUtils {
+  private static final TagKey CACHE_KEY = TagKey.create("cache");
+  private static final TagKey RESULT_KEY = TagKey.create("result");
+
+  private static final MeasureLong REQUESTS =
+      MetricsUtils.createCounter("cache/requests", "Cache lookups", CACHE_KEY, RESULT_KEY);
+
+  private CacheUtils() {}
+
+  /**
+   * Stats counter that also exports hits and misses as metrics, tagged with the cache name. Pass to
+   * {@code Caffeine.recordStats}.
+   */
+  public static Supplier<StatsCounter> metricsStatsCounter(String cacheName) {
+    return () -> new MetricsStatsCounter(cacheName);
+  }
+
+  /** Expire each entry a fixed time after it is written, where the time depends on the value. */
+  public static <K, V> Expiry<K, V> expireAfterWrite(Function<? super V, Duration> ttl) {
+    return new Expiry<>() {
+      @Override
+      public long expireAfterCreate(K key, V value, long currentTime) {
+        return ttl.apply(value).toNanos();
+      }
+
+      @Override
+      public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+        return ttl.apply(value).toNanos();
+      }
+
+      @Override
+      public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+        return currentDuration;
+      }
+    };
+  }
+
+  /** Delegates to Caffeine's own counter, which backs {@code Cache.stats()}. */
+  private static class MetricsStatsCounter implements StatsCounter {
+    private final StatsCounter delegate = new ConcurrentStatsCounter();
+    private final Map<TagKey, String> hitTags;
+    private final Map<TagKey, String> missTags;
+
+    MetricsStatsCounter(String cacheName) {
+      hitTags = Map.of(CACHE_KEY, cacheName, RESULT_KEY, "hit");
+      missTags = Map.of(CACHE_KEY, cacheName, RESULT_KEY, "miss");
+    }
+
+    @Override
+    public void recordHits(int count) {
+      delegate.recordHits(count);
+      MetricsUtils.record(REQUESTS, count, hitTags);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+      delegate.recordMisses(count);
+      MetricsUtils.record(REQUESTS, count, missTags);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+      delegate.recordLoadSuccess(loadTime);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+      delegate.recordLoadFailure(loadTime);
+    }
+
+    @Override
+    @Deprecated
+    public void recordEviction() {
+      delegate.recordEviction();
+    }
+
+    @Override
+    public void recordEviction(int weight, RemovalCause cause) {
+      delegate.recordEviction(weight, cause);
+    }
+
+    @Override
+    public CacheStats snapshot() {
+      return delegate.snapshot();
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package bio.terra.axonserver.utils;
+
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.Measure;
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.stats.Stats;
+import io.opencensus.stats.StatsRecorder;
+import io.opencensus.stats.View;
+import io.opencensus.tags.TagContextBuilder;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import io.opencensus.tags.Tagger;
+import io.opencensus.tags.Tags;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helpers for defining and recording OpenCensus metrics. Views registered here are exported by the
+ * terra-common-lib Prometheus exporter.
+ */
+public class MetricsUtils {
+  private static final String METRICS_PREFIX = "axonserver/";
+
+  private static final StatsRecorder statsRecorder = Stats.getStatsRecorder();
+  private static final Tagger tagger = Tags.getTagger();
+
+  /** Bucket boundaries, in milliseconds, for latency distributions. */
+  private static final Aggregation LATENCY_DISTRIBUTION =
+      Aggregation.Distribution.create(
+          BucketBoundaries.create(
+              List.of(
+                  0.0, 1.0, 5.0, 10.0, 25.0, 50.0, 100.0, 250.0, 500.0, 1000.0, 2500.0, 5000.0,
+                  10000.0, 30000.0, 60000.0, 120000.0)));
+
+  /** Bucket boundaries for distributions of small counts. */
+  private static final Aggregation COUNT_DISTRIBUTION =
+      Aggregation.Distribution.create(
+          BucketBoundaries.create(List.of(0.0, 1.0, 2.0, 3.0, 4.0, 6.0, 8.0, 12.0, 16.0, 32.0)));
+
+  /** Bucket boundaries, in bytes, for distributions of sizes: powers of 4 from 1 KiB to 16 GiB. */
+  private static final Aggregation SIZE_DISTRIBUTION =
+      Aggregation.Distribution.create(
+          BucketBoundaries.create(
+              List.of(
+                  0.0, 1024.0, 4096.0, 16384.0, 65536.0, 262144.0, 1048576.0, 4194304.0,
+                  16777216.0, 67108864.0, 268435456.0, 1073741824.0, 4294967296.0,
+                  17179869184.0)));
+
+  private MetricsUtils() {}
+
+  /** Create a counter. Recorded values are summed. */
+  public static MeasureLong createCounter(String name, String description, TagKey... tagKeys) {
+    MeasureLong measure = MeasureLong.create(METRICS_PREFIX + name, description, "1");
+    registerView(measure, Aggregation.Sum.create(), tagKeys);
+    return measure;
+  }
+
+  /** Create a gauge. The most recently recorded value is reported. */
+  public static MeasureLong createGauge(
+      String name, String description, String unit, TagKey... tagKeys) {
+    MeasureLong measure = MeasureLong.create(METRICS_PREFIX + name, description, unit);
+    registerView(measure, Aggregation.LastValue.create(), tagKeys);
+    return measure;
+  }
+
+  /** Create a distribution of latencies, recorded in milliseconds. */
+  public static MeasureDouble createLatencyDistribution(
+      String name, String description, TagKey... tagKeys) {
+    MeasureDouble measure = MeasureDouble.create(METRICS_PREFIX + name, description, "ms");
+    registerView(measure, LATENCY_DISTRIBUTION, tagKeys);
+    return measure;
+  }
+
+  /** Create a distribution of small counts, e.g. calls made per request. */
+  public static MeasureLong createCountDistribution(
+      String name, String description, TagKey... tagKeys) {
+    MeasureLong measure = MeasureLong.create(METRICS_PREFIX + name, description, "1");
+    registerView(measure, COUNT_DISTRIBUTION, tagKeys);
+    return measure;
+  }
+
+  /** Create a distribution of sizes, recorded in bytes. */
+  public static MeasureLong createSizeDistribution(
+      String name, String description, TagKey... tagKeys) {
+    MeasureLong measure = MeasureLong.create(METRICS_PREFIX + name, description, "By");
+    registerView(measure, SIZE_DISTRIBUTION, tagKeys);
+    return measure;
+  }
+
+  public static void record(MeasureLong measure, long value) {
+    record(measure, value, Map.of());
+  }
+
+  public static void record(MeasureLong measure, long value, Map<TagKey, String> tags) {
+    statsRecorder.newMeasureMap().put(measure, value).record(buildTags(tags).build());
+  }
+
+  public static void record(MeasureDouble measure, double value, Map<TagKey, String> tags) {
+    statsRecorder.newMeasureMap().put(measure, value).record(buildTags(tags).build());
+  }
+
+  private static TagContextBuilder buildTags(Map<TagKey, String> tags) {
+    TagContextBuilder builder = tagger.emptyBuilder();
+    tags.forEach((key, value) -> builder.putLocal(key, TagValue.create(value)));
+    return builder;
+  }
+
+  private static void registerView(Measure measure, Aggregation aggregation, TagKey... tagKeys) {
+    Stats.getViewManager()
+        .registerView(
+            View.create(
+                View.Name.create(measure.getName()),
+                measure.getDescription(),
+                measure,
+                aggregation,
+                List.of(tagKeys)));
+  }
+}
@@ -0,0 +1,100 @@
+package bio.terra.axonserver.utils;
+
+import com.google.common.base.Throwables;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.tags.TagKey;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Memoizes lookups for the duration of the current HTTP request, so a lookup that is repeated while
+ * serving one request only runs once. Values live in a request attribute and are dropped with the
+ * request. Outside a request, e.g. on a background thread, lookups are not memoized.
+ *
+ * <p>Concurrent calls for the same lookup in one request, e.g. from workflow submission stages,
+ * share a single run. Failed lookups are not memoized; the exception is thrown to every caller
+ * waiting on that run, and the next call tries again.
+ */
+public class RequestMemo {
+  private static final String VALUES_ATTRIBUTE = RequestMemo.class.getName() + ".values";
+
+  private static final TagKey OPERATION_KEY = TagKey.create("operation");
+  private static final MeasureLong HITS =
+      MetricsUtils.createCounter(
+          "request_memo/hits", "Lookups answered from the request memo", OPERATION_KEY);
+
+  private record Key(String operation, List<?> args) {}
+
+  private RequestMemo() {}
+
+  /**
+   * Run a lookup, or return its result if it already ran with the same arguments in this request.
+   *
+   * @param operation name of the lookup, e.g. "wsm.getResource"
+   * @param args arguments identifying the lookup. May contain nulls.
+   * @param lookup the lookup to run on a miss
+   * @return the result of the lookup, which may be null
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> T memoize(String operation, List<?> args, Supplier<T> lookup) {
+    Map<Key, CompletableFuture<Object>> values = getValues();
+    if (values == null) {
+      return lookup.get();
+    }
+    Key key = new Key(operation, args);
+    // Only the future is created under the map's lock; the lookup runs outside it, as lookups may
+    // themselves memoize and ConcurrentHashMap does not allow recursive updates.
+    CompletableFuture<Object> created = new CompletableFuture<>();
+    CompletableFuture<Object> value = values.computeIfAbsent(key, k -> created);
+    if (value != created) {
+      MetricsUtils.record(HITS, 1, Map.of(OPERATION_KEY, operation));
+      return (T) await(value);
+    }
+    try {
+      T result = lookup.get();
+      created.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      values.remove(key, created);
+      created.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /** Wait for a lookup running on another thread, rethrowing its failure as is. */
+  private static Object await(CompletableFuture<Object> value) {
+    try {
+      return value.join();
+    } catch (CompletionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  private static Map<Key, CompletableFuture<Object>> getValues() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return null;
+    }
+    // Lookups for one request may run on several threads; they must all share one map.
+    synchronized (attributes) {
+      Map<Key, CompletableFuture<Object>> values =
+          (Map<Key, CompletableFuture<Object>>)
+              attributes.getAttribute(VALUES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+      if (values == null) {
+        values = new ConcurrentHashMap<>();
+        attributes.setAttribute(VALUES_ATTRIBUTE, values, RequestAttributes.SCOPE_REQUEST);
+      }
+      return values;
+    }
+  }
+}
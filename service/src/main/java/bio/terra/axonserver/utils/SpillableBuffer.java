@@ -0,0 +1,112 @@
+package bio.terra.axonserver.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import javax.annotation.Nullable;
+import org.apache.commons.lang3.SystemUtils;
+
+/**
+ * A buffer that holds its content in memory up to a threshold, and moves it to a temp file readable
+ * only by the owner once it grows past it. The temp file, if any, is deleted on close.
+ *
+ * <p>Written once through {@link #outputStream()}, then read any number of times through {@link
+ * #openInputStream()}. Not thread-safe.
+ */
+public class SpillableBuffer implements AutoCloseable {
+  private final long threshold;
+  private final String filePrefix;
+
+  private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+  @Nullable private Path file;
+  private OutputStream out;
+  private long size;
+
+  /**
+   * @param threshold number of bytes held in memory before the content is moved to disk
+   * @param filePrefix prefix of the temp file name
+   */
+  public SpillableBuffer(long threshold, String filePrefix) {
+    this.threshold = threshold;
+    this.filePrefix = filePrefix;
+    this.out = memory;
+  }
+
+  /** Stream to write the content to. Closing it is optional. */
+  public OutputStream outputStream() {
+    return new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        if (file == null && size + len > threshold) {
+          spill();
+        }
+        out.write(b, off, len);
+        size += len;
+      }
+
+      @Override
+      public void flush() throws IOException {
+        out.flush();
+      }
+
+      @Override
+      public void close() throws IOException {
+        out.flush();
+      }
+    };
+  }
+
+  private void spill() throws IOException {
+    file =
+        SystemUtils.IS_OS_UNIX
+            ? Files.createTempFile(
+                filePrefix,
+                null,
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")))
+            : Files.createTempFile(filePrefix, null);
+    OutputStream fileOut = Files.newOutputStream(file);
+    memory.writeTo(fileOut);
+    memory = null;
+    out = fileOut;
+  }
+
+  /** Stream to read the content written so far. */
+  public InputStream openInputStream() throws IOException {
+    if (file == null) {
+      return new ByteArrayInputStream(memory.toByteArray());
+    }
+    out.flush();
+    return Files.newInputStream(file);
+  }
+
+  /** Number of bytes written. */
+  public long size() {
+    return size;
+  }
+
+  /** Whether the content has been moved to disk. */
+  public boolean isSpilled() {
+    return file != null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (file != null) {
+      try {
+        out.close();
+      } finally {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+}
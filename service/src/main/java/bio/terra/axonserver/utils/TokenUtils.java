@@ -0,0 +1,48 @@
+package bio.terra.axonserver.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+public class TokenUtils {
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private TokenUtils() {}
+
+  /**
+   * Stable, non-reversible identifier for an access token, for keying per-caller cache entries
+   * without keeping the token itself as a key.
+   */
+  public static String fingerprint(String accessToken) {
+    return Hashing.sha256()
+        .hashString(Objects.requireNonNullElse(accessToken, ""), StandardCharsets.UTF_8)
+        .toString();
+  }
+
+  /**
+   * When a JWT access token expires, from its exp claim. The token is not verified, so only use the
+   * expiry for a token a downstream service has accepted.
+   *
+   * @return the expiry, or null if the token is not a JWT with an expiry, e.g. an opaque Google
+   *     access token
+   */
+  @Nullable
+  public static Instant jwtExpiry(String accessToken) {
+    String[] parts = Objects.requireNonNullElse(accessToken, "").split("\\.");
+    if (parts.length != 3) {
+      return null;
+    }
+    try {
+      JsonNode exp = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1])).get("exp");
+      return exp != null && exp.canConvertToLong() ? Instant.ofEpochSecond(exp.asLong()) : null;
+    } catch (IllegalArgumentException | IOException e) {
+      return null;
+    }
+  }
+}
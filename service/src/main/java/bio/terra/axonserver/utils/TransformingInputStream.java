@@ -0,0 +1,75 @@
+package bio.terra.axonserver.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import javax.annotation.Nullable;
+
+/**
+ * An InputStream that produces its content in chunks, pulled on demand as the caller reads.
+ * Subclasses transform a source stream incrementally, so only one chunk of output is held in memory
+ * at a time.
+ */
+public abstract class TransformingInputStream extends InputStream {
+
+  private final InputStream source;
+  private byte[] chunk = new byte[0];
+  private int position;
+  private boolean finished;
+
+  protected TransformingInputStream(InputStream source) {
+    this.source = source;
+  }
+
+  /**
+   * Produce the next chunk of output.
+   *
+   * @return the next chunk, possibly empty, or null once the output is complete
+   */
+  @Nullable
+  protected abstract byte[] nextChunk() throws IOException;
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+    return chunk[position++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    if (!fill()) {
+      return -1;
+    }
+    int count = Math.min(length, chunk.length - position);
+    System.arraycopy(chunk, position, buffer, offset, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    finished = true;
+    source.close();
+  }
+
+  /** Make sure there is unread output in the current chunk, returning false at end of output. */
+  private boolean fill() throws IOException {
+    while (position >= chunk.length) {
+      if (finished) {
+        return false;
+      }
+      byte[] next = nextChunk();
+      if (next == null) {
+        finished = true;
+        return false;
+      }
+      chunk = next;
+      position = 0;
+    }
+    return true;
+  }
+}
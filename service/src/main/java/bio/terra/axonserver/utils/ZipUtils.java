@@ -0,0 +1,61 @@
+package bio.terra.axonserver.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Helpers for writing reproducible zips of WDL files. The same files always give the same bytes:
+ * entries are written in name order, with a fixed timestamp and no other varying metadata.
+ */
+public class ZipUtils {
+  /**
+   * Compression level for WDL files. They are small and mostly text, so the highest level costs
+   * little more CPU than the default while shrinking the upload further.
+   */
+  public static final int WDL_COMPRESSION_LEVEL = Deflater.BEST_COMPRESSION;
+
+  /**
+   * Timestamp of every entry: the earliest a zip can record. Set as local time, so it does not
+   * depend on the time zone.
+   */
+  private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(1980, 1, 1, 0, 0);
+
+  private ZipUtils() {}
+
+  /** A zip stream for WDL files, to write with {@link #putEntry}. */
+  private static ZipOutputStream newWdlZip(OutputStream destination) {
+    ZipOutputStream zip = new ZipOutputStream(destination);
+    zip.setLevel(WDL_COMPRESSION_LEVEL);
+    return zip;
+  }
+
+  /** Write one file to a zip, with a fixed timestamp. */
+  private static void putEntry(ZipOutputStream zip, String name, byte[] content)
+      throws IOException {
+    ZipEntry entry = new ZipEntry(name);
+    entry.setTimeLocal(ENTRY_TIME);
+    zip.putNextEntry(entry);
+    zip.write(content);
+    zip.closeEntry();
+  }
+
+  /**
+   * Zip files by their paths, in path order, whatever the order of the map.
+   *
+   * @param destination stream the zip is written to. Left open.
+   */
+  public static void writeWdlZip(Map<String, byte[]> files, OutputStream destination)
+      throws IOException {
+    ZipOutputStream zip = newWdlZip(destination);
+    for (Map.Entry<String, byte[]> file : new TreeMap<>(files).entrySet()) {
+      putEntry(zip, file.getKey(), file.getValue());
+    }
+    zip.finish();
+  }
+}
@@ -0,0 +1,52 @@
+package bio.terra.axonserver.app.controller;
+
+import static bio.terra.axonserver.testutils.MockMvcUtils.USER_REQUEST;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+
+import bio.terra.axonserver.service.wsm.WorkspaceManagerService;
+import bio.terra.axonserver.testutils.BaseUnitTest;
+import bio.terra.axonserver.testutils.MockMvcUtils;
+import bio.terra.common.exception.ForbiddenException;
+import bio.terra.workspace.model.IamRole;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+public class AdminControllerTest extends BaseUnitTest {
+  @Autowired private MockMvc mockMvc;
+
+  @MockBean private WorkspaceManagerService wsmService;
+
+  private final UUID workspaceId = UUID.randomUUID();
+  private static final String WORKSPACE_CACHE_PATH_FORMAT = "/api/admin/v1/workspaces/%s/cache";
+
+  @Test
+  void invalidateWorkspaceCache() throws Exception {
+    mockMvc
+        .perform(
+            MockMvcUtils.addAuth(
+                delete(WORKSPACE_CACHE_PATH_FORMAT.formatted(workspaceId)), USER_REQUEST))
+        .andExpect(MockMvcResultMatchers.status().isNoContent());
+
+    Mockito.verify(wsmService).invalidateWorkspace(workspaceId);
+  }
+
+  @Test
+  void invalidateWorkspaceCache_notOwner_throws403() throws Exception {
+    Mockito.doThrow(new ForbiddenException("Not an owner"))
+        .when(wsmService)
+        .getWorkspace(workspaceId, IamRole.OWNER, USER_REQUEST.getToken());
+
+    mockMvc
+        .perform(
+            MockMvcUtils.addAuth(
+                delete(WORKSPACE_CACHE_PATH_FORMAT.formatted(workspaceId)), USER_REQUEST))
+        .andExpect(MockMvcResultMatchers.status().isForbidden());
+
+    Mockito.verify(wsmService, Mockito.never()).invalidateWorkspace(workspaceId);
+  }
+}
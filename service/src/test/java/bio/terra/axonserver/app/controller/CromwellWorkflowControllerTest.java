@@ -8,10 +8,15 @@ import bio.terra.axonserver.model.ApiWorkflowIdAndLabel;
 import bio.terra.axonserver.model.ApiWorkflowIdAndStatus;
 import bio.terra.axonserver.model.ApiWorkflowMetadataResponse;
 import bio.terra.axonserver.model.ApiWorkflowParsedInputsResponse;
+import bio.terra.axonserver.model.ApiWorkflowParsedOutputsResponse;
 import bio.terra.axonserver.model.ApiWorkflowQueryResponse;
 import bio.terra.axonserver.model.ApiWorkflowQueryResult;
+import bio.terra.axonserver.model.ApiWorkflowStatuses;
+import bio.terra.axonserver.model.ApiWorkflowValidationResponse;
 import bio.terra.axonserver.service.cromwellworkflow.CromwellWorkflowService;
+import bio.terra.axonserver.service.cromwellworkflow.CromwellWorkflowService.WorkflowRead;
 import bio.terra.axonserver.service.cromwellworkflow.WorkflowReservedLabelKeys;
+import bio.terra.axonserver.service.cromwellworkflow.WomtoolService.WorkflowDescription;
 import bio.terra.axonserver.service.wsm.WorkspaceManagerService;
 import bio.terra.axonserver.testutils.BaseUnitTest;
 import bio.terra.axonserver.testutils.MockMvcUtils;
@@ -30,9 +35,11 @@ import io.swagger.client.model.CromwellApiWorkflowQueryResult;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -51,6 +58,7 @@ public class CromwellWorkflowControllerTest extends BaseUnitTest {
   private final UUID workflowId = UUID.randomUUID();
   private final String DEFAULT_WORKFLOW_STATUS = "Submitted";
   private final Date DEFAULT_WORKFLOW_SUBMISSION_DATE = new Date(0);
+  private static final String FAKE_GCS_PATH = "gs%3A%2F%2Ffake-bucket%2Fpath%2Fto%2Fobject";
 
   private final Map<String, String> DEFAULT_WORKFLOW_LABELS =
       ImmutableMap.of(
@@ -67,6 +75,22 @@ public class CromwellWorkflowControllerTest extends BaseUnitTest {
       "/api/workspaces/%s/cromwell/workflows/%s/metadata";
   private final String CROMWELL_WORKFLOW_QUERY_PATH_FORMAT =
       "/api/workspaces/%s/cromwell/workflows/query";
+  private final String CROMWELL_WORKFLOW_STATUSES_PATH_FORMAT =
+      "/api/workspaces/%s/cromwell/workflows/statuses?id=%s";
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // Reads check access first, then read, against the stubbed checks and reads below.
+    Mockito.when(
+            cromwellWorkflowService.readWithWorkflowAccess(
+                Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              cromwellWorkflowService.validateWorkspaceAccessAndWorkflowLabelMatches(
+                  invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+              return invocation.<WorkflowRead<?>>getArgument(3).read();
+            });
+  }
 
   @Test
   void status_noWorkspaceAccess_throws403() throws Exception {
@@ -113,6 +137,39 @@ public class CromwellWorkflowControllerTest extends BaseUnitTest {
         USER_REQUEST, CROMWELL_WORKFLOW_QUERY_PATH_FORMAT.formatted(workspaceId), 403);
   }
 
+  @Test
+  void statuses_noWorkspaceAccess_throws403() throws Exception {
+    Mockito.doThrow(new ForbiddenException("No workspace access"))
+        .when(wsmService)
+        .checkWorkspaceReadAccess(workspaceId, USER_REQUEST.getToken());
+
+    mockMvcUtils.getSerializedResponseForGetExpect(
+        USER_REQUEST,
+        CROMWELL_WORKFLOW_STATUSES_PATH_FORMAT.formatted(workspaceId, workflowId),
+        403);
+  }
+
+  @Test
+  void statuses() throws Exception {
+    // Stub the workspace access check. The query is restricted to only workflows containing the
+    // corresponding workspace id label.
+    Mockito.doNothing()
+        .when(wsmService)
+        .checkWorkspaceReadAccess(workspaceId, USER_REQUEST.getToken());
+
+    Mockito.when(cromwellWorkflowService.getStatuses(workspaceId, List.of(workflowId)))
+        .thenReturn(Map.of(workflowId, DEFAULT_WORKFLOW_STATUS));
+
+    String serializedResponse =
+        mockMvcUtils.getSerializedResponseForGet(
+            USER_REQUEST,
+            CROMWELL_WORKFLOW_STATUSES_PATH_FORMAT.formatted(workspaceId, workflowId));
+    ApiWorkflowStatuses result =
+        objectMapper.readValue(serializedResponse, ApiWorkflowStatuses.class);
+    Assertions.assertEquals(
+        Map.of(workflowId.toString(), DEFAULT_WORKFLOW_STATUS), result.getStatuses());
+  }
+
   @Test
   void status() throws Exception {
     // Stub the workspace access check, and workspace id label matching.
@@ -297,6 +354,64 @@ public class CromwellWorkflowControllerTest extends BaseUnitTest {
     Assertions.assertEquals(result.getInputs(), fake_parse_results);
   }
 
+  @Test
+  void parseOutputs() throws Exception {
+    Mockito.doNothing()
+        .when(wsmService)
+        .checkWorkspaceReadAccess(workspaceId, USER_REQUEST.getToken());
+    Map<String, String> fakeOutputs = ImmutableMap.of("main.output", "String");
+    Mockito.when(
+            cromwellWorkflowService.parseOutputs(
+                Mockito.eq(workspaceId),
+                /*workflowGcsUri=*/ Mockito.anyString(),
+                Mockito.eq(USER_REQUEST)))
+        .thenReturn(fakeOutputs);
+
+    String serializedResponse =
+        mockMvcUtils.getSerializedResponseForGet(
+            USER_REQUEST,
+            "/api/workspaces/%s/cromwell/parseOutputs/%s".formatted(workspaceId, FAKE_GCS_PATH));
+    ApiWorkflowParsedOutputsResponse result =
+        objectMapper.readValue(serializedResponse, ApiWorkflowParsedOutputsResponse.class);
+    Assertions.assertEquals(fakeOutputs, result.getOutputs());
+  }
+
+  @Test
+  void validate() throws Exception {
+    Mockito.doNothing()
+        .when(wsmService)
+        .checkWorkspaceReadAccess(workspaceId, USER_REQUEST.getToken());
+    Mockito.when(
+            cromwellWorkflowService.describeWorkflow(
+                Mockito.eq(workspaceId),
+                /*workflowGcsUri=*/ Mockito.anyString(),
+                Mockito.eq(USER_REQUEST)))
+        .thenReturn(new WorkflowDescription(List.of("Unknown task"), null, null));
+
+    String serializedResponse =
+        mockMvcUtils.getSerializedResponseForGet(
+            USER_REQUEST,
+            "/api/workspaces/%s/cromwell/validate/%s".formatted(workspaceId, FAKE_GCS_PATH));
+    ApiWorkflowValidationResponse result =
+        objectMapper.readValue(serializedResponse, ApiWorkflowValidationResponse.class);
+    Assertions.assertFalse(result.isValid());
+    Assertions.assertEquals(List.of("Unknown task"), result.getErrors());
+  }
+
+  @Test
+  void validate_noWorkspaceAccess_throws403() throws Exception {
+    Mockito.doThrow(new ForbiddenException("No workspace access"))
+        .when(wsmService)
+        .checkWorkspaceReadAccess(workspaceId, USER_REQUEST.getToken());
+
+    mockMvcUtils.getSerializedResponseForGetExpect(
+        USER_REQUEST,
+        "/api/workspaces/%s/cromwell/validate/%s".formatted(workspaceId, FAKE_GCS_PATH),
+        403);
+    Mockito.verify(cromwellWorkflowService, Mockito.never())
+        .describeWorkflow(Mockito.any(), Mockito.any(), Mockito.any());
+  }
+
   @Test
   void submit() throws Exception {
     // Stub the workspace access check. The query is restricted to only workflows containing the
@@ -0,0 +1,76 @@
+package bio.terra.axonserver.app.controller;
+
+import static bio.terra.axonserver.testutils.MockMvcUtils.USER_REQUEST;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import bio.terra.axonserver.service.file.FileService;
+import bio.terra.axonserver.service.wsm.WorkspaceManagerService;
+import bio.terra.axonserver.testutils.BaseUnitTest;
+import bio.terra.axonserver.testutils.MockMvcUtils;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+public class GetFileControllerTest extends BaseUnitTest {
+  @Autowired private MockMvc mockMvc;
+
+  @MockBean private FileService fileService;
+  @MockBean private WorkspaceManagerService wsmService;
+
+  private final UUID workspaceId = UUID.randomUUID();
+  private final UUID resourceId = UUID.randomUUID();
+  private static final String FILE_IN_BUCKET_PATH_FORMAT =
+      "/api/workspaces/v1/%s/resources/%s/file/objects/%s";
+
+  @Test
+  void getFileInBucket_convertToPlain_servesTextPlain() throws Exception {
+    mockConvertedFile("run.log.gz", "plain", "Workflow succeeded");
+
+    mockMvc
+        .perform(
+            MockMvcUtils.addAuth(
+                get(FILE_IN_BUCKET_PATH_FORMAT.formatted(workspaceId, resourceId, "run.log.gz"))
+                    .queryParam("convertTo", "plain"),
+                USER_REQUEST))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.content().contentType(MediaType.TEXT_PLAIN))
+        .andExpect(MockMvcResultMatchers.content().string("Workflow succeeded"));
+  }
+
+  @Test
+  void getFileInBucket_convertToHtml_servesTextHtml() throws Exception {
+    mockConvertedFile("notes.md", "html", "<h1>Notes</h1>");
+
+    mockMvc
+        .perform(
+            MockMvcUtils.addAuth(
+                get(FILE_IN_BUCKET_PATH_FORMAT.formatted(workspaceId, resourceId, "notes.md"))
+                    .queryParam("convertTo", "html"),
+                USER_REQUEST))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.content().contentType(MediaType.TEXT_HTML))
+        .andExpect(MockMvcResultMatchers.content().string("<h1>Notes</h1>"));
+  }
+
+  private void mockConvertedFile(String objectPath, String convertTo, String content) {
+    Mockito.when(
+            fileService.getFile(
+                any(),
+                eq(workspaceId),
+                eq(resourceId),
+                eq(objectPath),
+                eq(convertTo),
+                any(),
+                any()))
+        .thenReturn(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -1,14 +1,18 @@
 package bio.terra.axonserver.app.controller;
 
+import static org.mockito.Mockito.doReturn;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import bio.terra.axonserver.app.configuration.CliConfiguration;
 import bio.terra.axonserver.app.configuration.VersionConfiguration;
+import bio.terra.axonserver.service.iam.SamService;
+import bio.terra.axonserver.service.iam.SamService.RegistrationState;
 import bio.terra.axonserver.testutils.BaseUnitTest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 class PublicApiControllerTest extends BaseUnitTest {
@@ -17,12 +21,19 @@ class PublicApiControllerTest extends BaseUnitTest {
 
   @Autowired private VersionConfiguration versionConfiguration;
   @Autowired private CliConfiguration cliConfiguration;
+  @SpyBean private SamService samService;
 
   @Test
   void testStatus() throws Exception {
     this.mockMvc.perform(get("/status")).andExpect(status().isOk());
   }
 
+  @Test
+  void testStatus_registrationPending() throws Exception {
+    doReturn(RegistrationState.PENDING).when(samService).getAxonServiceAccountRegistrationState();
+    this.mockMvc.perform(get("/status")).andExpect(status().isServiceUnavailable());
+  }
+
   @Test
   void testVersion() throws Exception {
     this.mockMvc
@@ -0,0 +1,126 @@
+package bio.terra.axonserver.service.calhoun;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.axonserver.app.configuration.CalhounConfiguration;
+import bio.terra.axonserver.service.convert.ConversionPriority;
+import bio.terra.axonserver.service.exception.TooManyRequestsException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConversionSchedulerTest {
+  private ExecutorService executor;
+  private CountDownLatch holdSlot;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newCachedThreadPool();
+    holdSlot = new CountDownLatch(1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    holdSlot.countDown();
+    executor.shutdownNow();
+  }
+
+  private static ConversionScheduler scheduler(int maxQueued, int maxWaitSeconds) {
+    return new ConversionScheduler(
+        new CalhounConfiguration("http://localhost", 1, maxQueued, maxWaitSeconds, 7));
+  }
+
+  /** Occupy the only slot until holdSlot is released. */
+  private Future<?> occupySlot(ConversionScheduler scheduler) throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    Future<?> future =
+        executor.submit(
+            () ->
+                scheduler.run(
+                    ConversionPriority.INTERACTIVE,
+                    1L,
+                    () -> {
+                      started.countDown();
+                      try {
+                        return holdSlot.await(30, TimeUnit.SECONDS);
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                      }
+                    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    return future;
+  }
+
+  private Future<?> submit(
+      ConversionScheduler scheduler,
+      ConversionPriority priority,
+      Long sizeBytes,
+      String name,
+      List<String> order) {
+    return executor.submit(() -> scheduler.run(priority, sizeBytes, () -> order.add(name)));
+  }
+
+  private static void awaitQueueLength(ConversionScheduler scheduler, int length)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (scheduler.getQueueLength() < length && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(length, scheduler.getQueueLength());
+  }
+
+  @Test
+  void run_queueFull_rejectsWithRetryAfter() throws InterruptedException {
+    ConversionScheduler scheduler = scheduler(0, 10);
+    occupySlot(scheduler);
+
+    TooManyRequestsException exception =
+        assertThrows(
+            TooManyRequestsException.class,
+            () -> scheduler.run(ConversionPriority.INTERACTIVE, 1L, () -> "converted"));
+    assertEquals(7, exception.getRetryAfterSeconds());
+  }
+
+  @Test
+  void run_waitTimesOut_rejects() throws InterruptedException {
+    ConversionScheduler scheduler = scheduler(5, 1);
+    occupySlot(scheduler);
+
+    assertThrows(
+        TooManyRequestsException.class,
+        () -> scheduler.run(ConversionPriority.INTERACTIVE, 1L, () -> "converted"));
+    assertEquals(0, scheduler.getQueueLength());
+  }
+
+  @Test
+  void run_admitsInteractiveAndSmallFirst() throws Exception {
+    ConversionScheduler scheduler = scheduler(10, 30);
+    Future<?> holder = occupySlot(scheduler);
+
+    List<String> order = new CopyOnWriteArrayList<>();
+    List<Future<?>> queued =
+        List.of(
+            submit(scheduler, ConversionPriority.PREFETCH, 1L, "prefetch", order),
+            submit(scheduler, ConversionPriority.INTERACTIVE, null, "unknown", order),
+            submit(scheduler, ConversionPriority.INTERACTIVE, 1000L, "large", order),
+            submit(scheduler, ConversionPriority.INTERACTIVE, 10L, "small", order));
+    awaitQueueLength(scheduler, 4);
+
+    holdSlot.countDown();
+    holder.get(5, TimeUnit.SECONDS);
+    for (Future<?> future : queued) {
+      future.get(5, TimeUnit.SECONDS);
+    }
+    assertEquals(List.of("small", "large", "unknown", "prefetch"), order);
+  }
+}
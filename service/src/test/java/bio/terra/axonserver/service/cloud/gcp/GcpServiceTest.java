@@ -0,0 +1,103 @@
+package bio.terra.axonserver.service.cloud.gcp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.terra.axonserver.app.configuration.SamConfiguration;
+import bio.terra.axonserver.service.iam.PetToken;
+import bio.terra.axonserver.service.iam.SamService;
+import bio.terra.axonserver.service.wsm.WorkspaceManagerService;
+import bio.terra.common.iam.BearerToken;
+import bio.terra.workspace.model.GcpContext;
+import com.google.auth.oauth2.GoogleCredentials;
+import java.time.Instant;
+import java.util.UUID;
+import org.broadinstitute.dsde.workbench.client.sam.model.UserStatusInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GcpServiceTest {
+  private static final UUID WORKSPACE_ID = UUID.randomUUID();
+  private static final UUID OTHER_WORKSPACE_ID = UUID.randomUUID();
+  private static final BearerToken USER = new BearerToken("user-token");
+  private static final BearerToken USER_LATER = new BearerToken("user-token-later");
+  private static final BearerToken OTHER_USER = new BearerToken("other-user-token");
+
+  private final WorkspaceManagerService wsmService = mock(WorkspaceManagerService.class);
+  private final SamService samService = mock(SamService.class);
+  private GcpService gcpService;
+
+  @BeforeEach
+  void setUp() {
+    when(wsmService.getGcpContext(eq(WORKSPACE_ID), any()))
+        .thenReturn(new GcpContext().projectId("my-project"));
+    when(wsmService.getGcpContext(eq(OTHER_WORKSPACE_ID), any()))
+        .thenReturn(new GcpContext().projectId("other-project"));
+    when(samService.getUserStatusInfo(USER))
+        .thenReturn(new UserStatusInfo().userEmail("user@test"));
+    when(samService.getUserStatusInfo(USER_LATER))
+        .thenReturn(new UserStatusInfo().userEmail("user@test"));
+    when(samService.getUserStatusInfo(OTHER_USER))
+        .thenReturn(new UserStatusInfo().userEmail("other@test"));
+    when(samService.getPetToken(any(), any()))
+        .thenReturn(new PetToken("pet-token", Instant.now().plusSeconds(900)));
+    gcpService =
+        new GcpService(
+            wsmService,
+            samService,
+            new SamConfiguration(
+                "http://sam",
+                "resource-id",
+                /*petTokenCacheMaxSize=*/ 100,
+                /*petTokenRefreshAheadSeconds=*/ 300,
+                /*petTokenExpiryMarginSeconds=*/ 60,
+                /*petTokenTtlSeconds=*/ 900,
+                /*petKeyCacheTtlSeconds=*/ 300,
+                /*petKeyCacheMaxSize=*/ 100,
+                /*axonTokenRefreshAheadSeconds=*/ 600,
+                /*axonTokenRetrySeconds=*/ 30,
+                /*registerAxonServiceAccount=*/ false,
+                /*identityCacheTtlSeconds=*/ 600,
+                /*identityCacheMaxSize=*/ 100));
+  }
+
+  @Test
+  void getPetSACredentials_sharedAcrossRequestsOfOneUser() {
+    GoogleCredentials first = gcpService.getPetSACredentials(WORKSPACE_ID, USER);
+    GoogleCredentials second = gcpService.getPetSACredentials(WORKSPACE_ID, USER_LATER);
+
+    assertSame(first, second);
+    verify(samService, times(1)).getPetToken(any(), any());
+    // Access to the workspace is checked for every request.
+    verify(wsmService).getGcpContext(WORKSPACE_ID, USER.getToken());
+    verify(wsmService).getGcpContext(WORKSPACE_ID, USER_LATER.getToken());
+  }
+
+  @Test
+  void getPetSACredentials_separatePerUserAndProject() {
+    GoogleCredentials credentials = gcpService.getPetSACredentials(WORKSPACE_ID, USER);
+
+    assertNotSame(credentials, gcpService.getPetSACredentials(WORKSPACE_ID, OTHER_USER));
+    assertNotSame(credentials, gcpService.getPetSACredentials(OTHER_WORKSPACE_ID, USER));
+    verify(samService, times(3)).getPetToken(any(), any());
+  }
+
+  @Test
+  void getPetSACredentials_refreshesWithLatestUserToken() throws Exception {
+    when(samService.refreshPetToken("my-project", USER_LATER, "pet-token"))
+        .thenReturn(new PetToken("fresh-token", Instant.now().plusSeconds(900)));
+    GoogleCredentials credentials = gcpService.getPetSACredentials(WORKSPACE_ID, USER);
+    gcpService.getPetSACredentials(WORKSPACE_ID, USER_LATER);
+
+    credentials.refresh();
+
+    assertEquals("fresh-token", credentials.getAccessToken().getTokenValue());
+  }
+}
@@ -0,0 +1,55 @@
+package bio.terra.axonserver.service.cloud.gcp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import bio.terra.axonserver.service.iam.PetToken;
+import bio.terra.axonserver.service.iam.SamService;
+import bio.terra.common.iam.BearerToken;
+import java.time.Instant;
+import java.util.Date;
+import org.junit.jupiter.api.Test;
+
+public class PetServiceAccountCredentialsTest {
+  private static final String PROJECT_ID = "my-project";
+  private static final BearerToken USER = new BearerToken("user-token");
+
+  private final SamService samService = mock(SamService.class);
+
+  @Test
+  void refresh_replacesTokenWithExpiry() throws Exception {
+    Instant laterExpiry = Instant.now().plusSeconds(3600);
+    when(samService.getPetToken(PROJECT_ID, USER))
+        .thenReturn(new PetToken("expiring-token", Instant.now().plusSeconds(30)));
+    when(samService.refreshPetToken(PROJECT_ID, USER, "expiring-token"))
+        .thenReturn(new PetToken("fresh-token", laterExpiry));
+
+    PetServiceAccountCredentials credentials =
+        PetServiceAccountCredentials.create(samService, PROJECT_ID, USER);
+    assertEquals("expiring-token", credentials.getAccessToken().getTokenValue());
+
+    // The first token is inside the credentials' refresh margin, so it is replaced on use. The
+    // cache would still return it, so the credentials ask for a new one.
+    credentials.refreshIfExpired();
+    assertEquals("fresh-token", credentials.getAccessToken().getTokenValue());
+    assertEquals(Date.from(laterExpiry), credentials.getAccessToken().getExpirationTime());
+
+    credentials.refreshIfExpired();
+    verify(samService, times(1)).getPetToken(PROJECT_ID, USER);
+    verify(samService, times(1)).refreshPetToken(PROJECT_ID, USER, "expiring-token");
+  }
+
+  @Test
+  void toString_omitsToken() {
+    when(samService.getPetToken(PROJECT_ID, USER))
+        .thenReturn(new PetToken("secret-token", Instant.now().plusSeconds(3600)));
+
+    PetServiceAccountCredentials credentials =
+        PetServiceAccountCredentials.create(samService, PROJECT_ID, USER);
+    assertFalse(credentials.toString().contains("secret-token"));
+  }
+}
@@ -0,0 +1,123 @@
+package bio.terra.axonserver.service.convert;
+
+import static bio.terra.axonserver.testutils.MockMvcUtils.USER_REQUEST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.axonserver.service.exception.InvalidConvertToFormat;
+import bio.terra.axonserver.testutils.BaseUnitTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class ConvertServiceTest extends BaseUnitTest {
+  @Autowired private ConvertService convertService;
+  @Autowired private ConverterRegistry converterRegistry;
+
+  private static InputStream toStream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String readAll(InputStream stream) throws IOException {
+    try (stream) {
+      return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Test
+  void registry_declaresConverterProperties() {
+    FileConverter calhoun = converterRegistry.find("ipynb", "html").orElseThrow();
+    assertEquals(ConversionCost.HIGH, calhoun.getCost());
+    assertFalse(calhoun.isStreaming());
+
+    FileConverter csv = converterRegistry.find("CSV", "HTML").orElseThrow();
+    assertEquals(ConversionCost.LOW, csv.getCost());
+    assertTrue(csv.isStreaming());
+    assertTrue(csv.isCacheable());
+
+    assertTrue(converterRegistry.find("csv", "json").isEmpty());
+
+    assertEquals(Optional.of("text/plain"), converterRegistry.getMediaType("plain"));
+    assertEquals(Optional.of("text/html"), converterRegistry.getMediaType("HTML"));
+    assertTrue(converterRegistry.getMediaType("docx").isEmpty());
+  }
+
+  @Test
+  void convertFile_unknownFormat_throws() {
+    assertThrows(
+        InvalidConvertToFormat.class,
+        () -> convertService.convertFile(toStream("a"), "txt", "docx", USER_REQUEST));
+  }
+
+  @Test
+  void convertFile_unsupportedExtension_throws() {
+    assertThrows(
+        InvalidConvertToFormat.class,
+        () -> convertService.convertFile(toStream("a"), "txt", "html", USER_REQUEST));
+  }
+
+  @Test
+  void convertFile_csvToHtml() throws IOException {
+    String html =
+        readAll(
+            convertService.convertFile(
+                toStream("name,value\n\"a,b\",<1>\nc,2\n"), "csv", "html", USER_REQUEST));
+    assertTrue(html.contains("<thead>\n<tr><th>name</th><th>value</th></tr>\n</thead>"));
+    assertTrue(html.contains("<tr><td>a,b</td><td>&lt;1&gt;</td></tr>"));
+    assertTrue(html.contains("<tr><td>c</td><td>2</td></tr>"));
+    assertTrue(html.endsWith("</html>\n"));
+  }
+
+  @Test
+  void convertFile_tsvToHtml() throws IOException {
+    String html =
+        readAll(convertService.convertFile(toStream("a\tb\n1\t2\n"), "tsv", "html", USER_REQUEST));
+    assertTrue(html.contains("<tr><td>1</td><td>2</td></tr>"));
+  }
+
+  @Test
+  void convertFile_markdownToHtml() throws IOException {
+    String html =
+        readAll(
+            convertService.convertFile(
+                toStream("# Title\n\n*text* <script>x</script>\n"), "md", "html", USER_REQUEST));
+    assertTrue(html.contains("<h1>Title</h1>"));
+    assertTrue(html.contains("<em>text</em>"));
+    assertFalse(html.contains("<script>"));
+  }
+
+  @Test
+  void convertFile_prettyJson() throws IOException {
+    String json =
+        readAll(
+            convertService.convertFile(
+                toStream("{\"a\":[1,2],\"b\":{\"c\":\"d\"}}"), "json", "json", USER_REQUEST));
+    assertTrue(json.contains("\"a\" : [ 1, 2 ]"));
+    assertTrue(json.contains("\n  \"b\" : {\n    \"c\" : \"d\"\n  }"));
+  }
+
+  @Test
+  void convertFile_gzipToPlain() throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write("hello gzip".getBytes(StandardCharsets.UTF_8));
+    }
+    String plain =
+        readAll(
+            convertService.convertFile(
+                new ByteArrayInputStream(compressed.toByteArray()), "gz", "plain", USER_REQUEST));
+    assertEquals("hello gzip", plain);
+
+    assertThrows(
+        InvalidConvertToFormat.class,
+        () -> convertService.convertFile(toStream("not gzip"), "gz", "plain", USER_REQUEST));
+  }
+}
@@ -0,0 +1,280 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import bio.terra.axonserver.app.configuration.CromwellConfiguration;
+import bio.terra.axonserver.app.configuration.HttpClientConfiguration;
+import bio.terra.axonserver.service.cloud.gcp.GcpService;
+import bio.terra.axonserver.service.file.FileService;
+import bio.terra.axonserver.service.http.HttpTransportFactory;
+import bio.terra.axonserver.service.iam.SamService;
+import bio.terra.axonserver.service.wsm.WorkspaceManagerService;
+import bio.terra.axonserver.testutils.Benchmark;
+import bio.terra.axonserver.testutils.StubHttpServer;
+import bio.terra.common.iam.BearerToken;
+import bio.terra.workspace.model.GcpContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.broadinstitute.dsde.workbench.client.sam.model.UserStatusInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Latency of workflow operations with stub Sam, WSM, GCS and Cromwell that each add latency to
+ * every call, running their stages one after another and concurrently.
+ */
+@Tag("benchmark")
+public class CromwellWorkflowServiceBenchmarkTest {
+  private static final int WARMUP_ITERATIONS = 5;
+  private static final int ITERATIONS = 50;
+  private static final int POLLED_WORKFLOWS = 5;
+  private static final long DOWNSTREAM_LATENCY_MILLIS = 20;
+
+  private static final UUID WORKSPACE_ID = UUID.randomUUID();
+  private static final BearerToken TOKEN = new BearerToken("user-token");
+  private static final String WORKFLOW_GCS_URI = "gs://my-bucket/workflows/main.wdl";
+  private static final String WDL = "version 1.0\nworkflow main {}\n";
+
+  private StubHttpServer cromwell;
+  private HttpTransportFactory httpTransportFactory;
+  private final List<CromwellWorkflowService> services = new ArrayList<>();
+
+  private static <T> Answer<T> slow(T value) {
+    return invocation -> {
+      Thread.sleep(DOWNSTREAM_LATENCY_MILLIS);
+      return value;
+    };
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    cromwell =
+        StubHttpServer.start()
+            .handle(
+                "/api/workflows/",
+                exchange -> {
+                  try {
+                    Thread.sleep(DOWNSTREAM_LATENCY_MILLIS);
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  String path = exchange.getRequestURI().getPath();
+                  if (path.endsWith("/labels")) {
+                    StubHttpServer.sendJson(
+                        exchange,
+                        200,
+                        "{\"id\": \"%s\", \"labels\": {\"%s\": \"%s\"}}"
+                            .formatted(
+                                UUID.randomUUID(),
+                                WorkflowReservedLabelKeys.WORKSPACE_ID_LABEL_KEY,
+                                WORKSPACE_ID));
+                  } else if (path.endsWith("/status")) {
+                    StubHttpServer.sendJson(
+                        exchange,
+                        200,
+                        "{\"id\": \"%s\", \"status\": \"Running\"}".formatted(UUID.randomUUID()));
+                  } else {
+                    StubHttpServer.sendJson(
+                        exchange,
+                        201,
+                        "{\"id\": \"%s\", \"status\": \"Submitted\"}".formatted(UUID.randomUUID()));
+                  }
+                });
+    httpTransportFactory = new HttpTransportFactory(new HttpClientConfiguration(5, 60, 5, 30, 30));
+  }
+
+  @AfterEach
+  void tearDown() {
+    services.forEach(CromwellWorkflowService::shutdown);
+    httpTransportFactory.shutdown();
+    cromwell.close();
+  }
+
+  private CromwellWorkflowService newService(
+      int stageThreads, boolean concurrentReadChecks, int ownershipCacheTtlSeconds) {
+    WorkspaceManagerService wsmService = mock(WorkspaceManagerService.class);
+    when(wsmService.getGcpContext(WORKSPACE_ID, TOKEN.getToken()))
+        .thenAnswer(slow(new GcpContext().projectId("my-project")));
+    doAnswer(slow(null)).when(wsmService).checkWorkspaceReadAccess(WORKSPACE_ID, TOKEN.getToken());
+
+    SamService samService = mock(SamService.class);
+    when(samService.getUserStatusInfo(any()))
+        .thenAnswer(slow(new UserStatusInfo().userEmail("user@test")));
+    when(samService.getPetServiceAccountKey("my-project", "user@test"))
+        .thenAnswer(slow("{\"type\": \"service_account\"}"));
+    when(samService.getPetServiceAccount(eq("my-project"), any()))
+        .thenAnswer(slow("pet@my-project.iam.gserviceaccount.com"));
+
+    FileService fileService = mock(FileService.class);
+    when(fileService.getFile(any(), eq(WORKSPACE_ID), anyString(), any()))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(DOWNSTREAM_LATENCY_MILLIS);
+              return new ByteArrayInputStream(WDL.getBytes(StandardCharsets.UTF_8));
+            });
+
+    CromwellWorkflowService service =
+        new CromwellWorkflowService(
+            new CromwellConfiguration(
+                cromwell.getBaseUrl(),
+                stageThreads,
+                100,
+                concurrentReadChecks,
+                /*readCheckThreads=*/ 16,
+                ownershipCacheTtlSeconds,
+                100,
+                /*ownershipCacheFile=*/ "",
+                /*maxStatusBatchSize=*/ 100,
+                /*submissionMemoryThresholdBytes=*/ 1024 * 1024,
+                /*dependencyThreads=*/ 4,
+                /*dependencyParallelism=*/ 4,
+                /*dependencyMemoryBytes=*/ 1024 * 1024,
+                /*maxWdlImports=*/ 100,
+                /*bundleCacheDir=*/ "",
+                /*bundleCacheMaxBytes=*/ 0),
+            fileService,
+            wsmService,
+            samService,
+            mock(GcpService.class),
+            new WomtoolService(WomtoolServiceTest.config(2, 8, /*parseTimeoutSeconds=*/ 60)),
+            new ObjectMapper(),
+            httpTransportFactory);
+    services.add(service);
+    return service;
+  }
+
+  private static void submit(CromwellWorkflowService service) throws Exception {
+    Map<String, Object> options = new HashMap<>();
+    options.put(WorkflowRequiredOptionsKeys.JES_GCS_ROOT, "gs://my-bucket/executions");
+    service.submitWorkflow(
+        WORKSPACE_ID,
+        WORKFLOW_GCS_URI,
+        /*workflowUrl=*/ null,
+        /*workflowOnHold=*/ false,
+        new HashMap<>(Map.of("main.input", "value")),
+        options,
+        "WDL",
+        "1.0",
+        new HashMap<>(),
+        /*requestedWorkflowId=*/ null,
+        TOKEN);
+  }
+
+  @Test
+  void concurrentStages_reduceSubmissionLatency() throws Exception {
+    CromwellWorkflowService sequential =
+        newService(
+            /*stageThreads=*/ 0, /*concurrentReadChecks=*/ false, /*ownershipCacheTtlSeconds=*/ 0);
+    Benchmark.Result sequentialResult =
+        Benchmark.run(
+            "submission, stages in sequence",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> submit(sequential));
+
+    CromwellWorkflowService concurrent =
+        newService(
+            /*stageThreads=*/ 16, /*concurrentReadChecks=*/ false, /*ownershipCacheTtlSeconds=*/ 0);
+    Benchmark.Result concurrentResult =
+        Benchmark.run(
+            "submission, independent stages concurrently",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> submit(concurrent));
+
+    assertTrue(
+        concurrentResult.p50Millis() < sequentialResult.p50Millis(),
+        "Expected concurrent stages to be faster: %s vs %s"
+            .formatted(concurrentResult, sequentialResult));
+  }
+
+  /** A UI refresh polls the status of each workflow shown. */
+  private static void pollStatuses(CromwellWorkflowService service, List<UUID> workflowIds)
+      throws Exception {
+    for (UUID workflowId : workflowIds) {
+      service.readWithWorkflowAccess(
+          workflowId, WORKSPACE_ID, TOKEN.getToken(), () -> service.getStatus(workflowId));
+    }
+  }
+
+  private static List<UUID> newWorkflowIds() {
+    return Stream.generate(UUID::randomUUID).limit(POLLED_WORKFLOWS).toList();
+  }
+
+  @Test
+  void concurrentReadChecks_reducePollingLatency() throws Exception {
+    CromwellWorkflowService sequential =
+        newService(
+            /*stageThreads=*/ 16, /*concurrentReadChecks=*/ false, /*ownershipCacheTtlSeconds=*/ 0);
+    Benchmark.Result sequentialResult =
+        Benchmark.run(
+            "status polling, checks before read",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> pollStatuses(sequential, newWorkflowIds()));
+
+    CromwellWorkflowService concurrent =
+        newService(
+            /*stageThreads=*/ 16, /*concurrentReadChecks=*/ true, /*ownershipCacheTtlSeconds=*/ 0);
+    Benchmark.Result concurrentResult =
+        Benchmark.run(
+            "status polling, checks alongside read",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> pollStatuses(concurrent, newWorkflowIds()));
+
+    assertTrue(
+        concurrentResult.p50Millis() < sequentialResult.p50Millis(),
+        "Expected concurrent checks to be faster: %s vs %s"
+            .formatted(concurrentResult, sequentialResult));
+  }
+
+  /** Repeat polls of the same workflows, which the UI makes until they finish. */
+  @Test
+  void ownershipCache_reducesRepeatPollLatency() throws Exception {
+    List<UUID> workflowIds = newWorkflowIds();
+
+    CromwellWorkflowService uncached =
+        newService(
+            /*stageThreads=*/ 0, /*concurrentReadChecks=*/ false, /*ownershipCacheTtlSeconds=*/ 0);
+    Benchmark.Result uncachedResult =
+        Benchmark.run(
+            "repeat status polling, labels read every time",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> pollStatuses(uncached, workflowIds));
+
+    CromwellWorkflowService cached =
+        newService(
+            /*stageThreads=*/ 0,
+            /*concurrentReadChecks=*/ false,
+            /*ownershipCacheTtlSeconds=*/ 3600);
+    Benchmark.Result cachedResult =
+        Benchmark.run(
+            "repeat status polling, workspace remembered",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> pollStatuses(cached, workflowIds));
+
+    assertTrue(
+        cachedResult.p50Millis() < uncachedResult.p50Millis(),
+        "Expected remembered workspaces to be faster: %s vs %s"
+            .formatted(cachedResult, uncachedResult));
+  }
+}
@@ -0,0 +1,279 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import bio.terra.axonserver.app.configuration.CromwellConfiguration;
+import bio.terra.axonserver.app.configuration.HttpClientConfiguration;
+import bio.terra.axonserver.service.cloud.gcp.GcpService;
+import bio.terra.axonserver.service.file.FileService;
+import bio.terra.axonserver.service.http.HttpTransportFactory;
+import bio.terra.axonserver.service.iam.SamService;
+import bio.terra.axonserver.service.wsm.WorkspaceManagerService;
+import bio.terra.axonserver.testutils.StubHttpServer;
+import bio.terra.common.exception.BadRequestException;
+import bio.terra.common.exception.ForbiddenException;
+import bio.terra.common.iam.BearerToken;
+import bio.terra.cromwell.client.ApiException;
+import bio.terra.workspace.model.GcpContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.client.model.CromwellApiWorkflowIdAndStatus;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.broadinstitute.dsde.workbench.client.sam.model.UserStatusInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CromwellWorkflowServiceTest {
+  private static final String TOKEN = "user-token";
+
+  private final UUID workspaceId = UUID.randomUUID();
+  private final UUID workflowId = UUID.randomUUID();
+  private final UUID otherWorkflowId = UUID.randomUUID();
+
+  private StubHttpServer cromwell;
+  private HttpTransportFactory httpTransportFactory;
+  private WorkspaceManagerService wsmService;
+  private SamService samService;
+  private FileService fileService;
+  private CromwellWorkflowService service;
+  private final List<String> queryStrings = new CopyOnWriteArrayList<>();
+  private final List<String> submissions = new CopyOnWriteArrayList<>();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    String labelsPath = "/api/workflows/v1/%s/labels";
+    cromwell =
+        StubHttpServer.start()
+            .respondJson(
+                labelsPath.formatted(workflowId),
+                "{\"id\": \"%s\", \"labels\": {\"%s\": \"%s\"}}"
+                    .formatted(
+                        workflowId, WorkflowReservedLabelKeys.WORKSPACE_ID_LABEL_KEY, workspaceId))
+            .respondJson(
+                labelsPath.formatted(otherWorkflowId),
+                "{\"id\": \"%s\", \"labels\": {\"%s\": \"%s\"}}"
+                    .formatted(
+                        otherWorkflowId,
+                        WorkflowReservedLabelKeys.WORKSPACE_ID_LABEL_KEY,
+                        UUID.randomUUID()))
+            .handle(
+                "/api/workflows/v1/query",
+                exchange -> {
+                  queryStrings.add(exchange.getRequestURI().getQuery());
+                  StubHttpServer.sendJson(
+                      exchange,
+                      200,
+                      ("{\"results\": [{\"id\": \"%s\", \"status\": \"Running\"}],"
+                              + " \"totalResultsCount\": 1}")
+                          .formatted(workflowId));
+                })
+            .handle(
+                "/api/workflows/v1",
+                exchange -> {
+                  submissions.add(
+                      new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+                  StubHttpServer.sendJson(
+                      exchange,
+                      201,
+                      "{\"id\": \"%s\", \"status\": \"Submitted\"}".formatted(workflowId));
+                });
+    httpTransportFactory = new HttpTransportFactory(new HttpClientConfiguration(2, 30, 5, 5, 5));
+    wsmService = mock(WorkspaceManagerService.class);
+    samService = mock(SamService.class);
+    fileService = mock(FileService.class);
+    service =
+        new CromwellWorkflowService(
+            new CromwellConfiguration(
+                cromwell.getBaseUrl(),
+                4,
+                10,
+                /*concurrentReadChecks=*/ true,
+                /*readCheckThreads=*/ 4,
+                3600,
+                100,
+                /*ownershipCacheFile=*/ "",
+                /*maxStatusBatchSize=*/ 2,
+                /*submissionMemoryThresholdBytes=*/ 1024 * 1024,
+                /*dependencyThreads=*/ 4,
+                /*dependencyParallelism=*/ 4,
+                /*dependencyMemoryBytes=*/ 1024 * 1024,
+                /*maxWdlImports=*/ 100,
+                /*bundleCacheDir=*/ "",
+                /*bundleCacheMaxBytes=*/ 0),
+            fileService,
+            wsmService,
+            samService,
+            mock(GcpService.class),
+            new WomtoolService(WomtoolServiceTest.config(2, 8, /*parseTimeoutSeconds=*/ 60)),
+            new ObjectMapper(),
+            httpTransportFactory);
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.shutdown();
+    httpTransportFactory.shutdown();
+    cromwell.close();
+  }
+
+  @Test
+  void readWithWorkflowAccess_checksPass_returnsRead() throws Exception {
+    assertEquals(
+        "status", service.readWithWorkflowAccess(workflowId, workspaceId, TOKEN, () -> "status"));
+  }
+
+  @Test
+  void readWithWorkflowAccess_noWorkspaceAccess_withholdsRead() {
+    doThrow(new ForbiddenException("No workspace access"))
+        .when(wsmService)
+        .checkWorkspaceReadAccess(workspaceId, TOKEN);
+
+    assertThrows(
+        ForbiddenException.class,
+        () -> service.readWithWorkflowAccess(workflowId, workspaceId, TOKEN, () -> "status"));
+  }
+
+  @Test
+  void readWithWorkflowAccess_labelMismatch_withholdsRead() {
+    assertThrows(
+        BadRequestException.class,
+        () -> service.readWithWorkflowAccess(otherWorkflowId, workspaceId, TOKEN, () -> "status"));
+  }
+
+  @Test
+  void readWithWorkflowAccess_noAccessAndLabelMismatch_reportsAccess() {
+    doThrow(new ForbiddenException("No workspace access"))
+        .when(wsmService)
+        .checkWorkspaceReadAccess(workspaceId, TOKEN);
+
+    assertThrows(
+        ForbiddenException.class,
+        () -> service.readWithWorkflowAccess(otherWorkflowId, workspaceId, TOKEN, () -> "status"));
+  }
+
+  @Test
+  void readWithWorkflowAccess_noWorkspaceAccessAndReadFails_reportsAccess() {
+    doThrow(new ForbiddenException("No workspace access"))
+        .when(wsmService)
+        .checkWorkspaceReadAccess(workspaceId, TOKEN);
+
+    assertThrows(
+        ForbiddenException.class,
+        () ->
+            service.readWithWorkflowAccess(
+                workflowId,
+                workspaceId,
+                TOKEN,
+                () -> {
+                  throw new ApiException(404, "Unrecognized workflow ID");
+                }));
+  }
+
+  @Test
+  void readWithWorkflowAccess_repeatRead_skipsLabelLookup() throws Exception {
+    service.readWithWorkflowAccess(workflowId, workspaceId, TOKEN, () -> "status");
+    int labelLookups = cromwell.getRequestCount();
+
+    service.readWithWorkflowAccess(workflowId, workspaceId, TOKEN, () -> "status");
+
+    assertEquals(1, labelLookups);
+    assertEquals(labelLookups, cromwell.getRequestCount());
+  }
+
+  @Test
+  void readWithWorkflowAccess_rememberedOtherWorkspace_withholdsRead() throws Exception {
+    service.readWithWorkflowAccess(workflowId, workspaceId, TOKEN, () -> "status");
+
+    assertThrows(
+        BadRequestException.class,
+        () -> service.readWithWorkflowAccess(workflowId, UUID.randomUUID(), TOKEN, () -> "status"));
+    assertEquals(1, cromwell.getRequestCount());
+  }
+
+  @Test
+  void getStatuses_singleQueryFilteredByIdAndWorkspace() throws Exception {
+    UUID missingWorkflowId = UUID.randomUUID();
+
+    Map<UUID, String> statuses =
+        service.getStatuses(workspaceId, List.of(workflowId, missingWorkflowId, workflowId));
+
+    assertEquals(Map.of(workflowId, "Running"), statuses);
+    assertEquals(1, queryStrings.size());
+    String query = queryStrings.get(0);
+    assertTrue(query.contains("id=" + workflowId), query);
+    assertTrue(query.contains("id=" + missingWorkflowId), query);
+    assertTrue(
+        query.contains(
+            "label=%s:%s".formatted(WorkflowReservedLabelKeys.WORKSPACE_ID_LABEL_KEY, workspaceId)),
+        query);
+  }
+
+  @Test
+  void getStatuses_remembersOwner() throws Exception {
+    service.getStatuses(workspaceId, List.of(workflowId));
+    int requests = cromwell.getRequestCount();
+
+    service.readWithWorkflowAccess(workflowId, workspaceId, TOKEN, () -> "status");
+
+    assertEquals(requests, cromwell.getRequestCount());
+  }
+
+  @Test
+  void getStatuses_tooManyWorkflows_throws() {
+    assertThrows(
+        BadRequestException.class,
+        () ->
+            service.getStatuses(
+                workspaceId, List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID())));
+  }
+
+  @Test
+  void submitWorkflow_streamsPartsWithoutDependencies() throws Exception {
+    BearerToken token = new BearerToken(TOKEN);
+    String wdl = "version 1.0\nworkflow main {}\n";
+    when(wsmService.getGcpContext(workspaceId, TOKEN))
+        .thenReturn(new GcpContext().projectId("my-project"));
+    when(samService.getUserStatusInfo(token))
+        .thenReturn(new UserStatusInfo().userEmail("user@test"));
+    when(samService.getPetServiceAccountKey("my-project", "user@test")).thenReturn("{}");
+    when(samService.getPetServiceAccount("my-project", token)).thenReturn("pet@test");
+    when(fileService.getFile(token, workspaceId, "gs://my-bucket/main.wdl", null))
+        .thenReturn(new ByteArrayInputStream(wdl.getBytes(StandardCharsets.UTF_8)));
+
+    CromwellApiWorkflowIdAndStatus submitted =
+        service.submitWorkflow(
+            workspaceId,
+            "gs://my-bucket/main.wdl",
+            /*workflowUrl=*/ null,
+            /*workflowOnHold=*/ false,
+            new HashMap<>(Map.of("main.input", "value")),
+            new HashMap<>(Map.of(WorkflowRequiredOptionsKeys.JES_GCS_ROOT, "gs://my-bucket/runs")),
+            "WDL",
+            "1.0",
+            new HashMap<>(),
+            /*requestedWorkflowId=*/ null,
+            token);
+
+    assertEquals(workflowId.toString(), submitted.getId());
+    assertEquals(1, submissions.size());
+    String body = submissions.get(0);
+    assertTrue(body.contains("name=\"workflowSource\""), body);
+    assertTrue(body.contains(wdl), body);
+    assertTrue(body.contains("{\"main.input\":\"value\"}"), body);
+    assertTrue(body.contains(workspaceId.toString()), body);
+    assertFalse(body.contains("name=\"workflowDependencies\""), body);
+    assertFalse(body.contains("name=\"workflowUrl\""), body);
+  }
+}
@@ -0,0 +1,153 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.axonserver.service.cromwellworkflow.WdlImportResolver.WdlImportGraph;
+import bio.terra.axonserver.testutils.Benchmark;
+import bio.terra.axonserver.testutils.FakeGcsServer;
+import bio.terra.axonserver.utils.ZipUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.storage.Storage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zeroturnaround.zip.ZipUtil;
+
+/**
+ * Preparing the dependencies of a large pipeline repo for submission: the time and peak disk use of
+ * zipping them, through temp files or straight from memory, and the latency of getting them from a
+ * fake GCS that adds latency to every request, with and without the bundle cache.
+ */
+@Tag("benchmark")
+public class WdlBundleBenchmarkTest {
+  private static final int WARMUP_ITERATIONS = 2;
+  private static final int ITERATIONS = 10;
+  private static final int TASK_FILES = 200;
+  private static final long GCS_LATENCY_MILLIS = 10;
+  private static final String BUCKET = "my-bucket";
+  private static final String MAIN_URI = "gs://my-bucket/repo/workflows/main.wdl";
+  private static final String TASK = "task task {\n  command { echo hello }\n}\n";
+
+  @TempDir Path tempDir;
+
+  private FakeGcsServer gcsServer;
+  private Storage gcs;
+  private byte[] mainSource;
+  private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+  @BeforeEach
+  void setUp() throws Exception {
+    gcsServer = FakeGcsServer.start(GCS_LATENCY_MILLIS);
+    byte[] task = TASK.repeat(50).getBytes(StandardCharsets.UTF_8);
+    StringBuilder main = new StringBuilder("version 1.0\n");
+    for (int i = 0; i < TASK_FILES; i++) {
+      gcsServer.put(BUCKET, "repo/tasks/task-%d.wdl".formatted(i), task);
+      main.append("import \"../tasks/task-%d.wdl\" as task%d\n".formatted(i, i));
+    }
+    mainSource = main.append("workflow main {}\n").toString().getBytes(StandardCharsets.UTF_8);
+    gcs = gcsServer.storage();
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+    gcsServer.close();
+  }
+
+  private WdlImportResolver newResolver() {
+    return new WdlImportResolver(
+        () -> gcs, new WdlImportResolver.FetchLimits(executor, 8, 32 << 20), TASK_FILES + 1);
+  }
+
+  private void getBundle(WdlBundleCache cache) throws IOException {
+    cache.get(MAIN_URI, mainSource, () -> gcs, newResolver());
+  }
+
+  private static long directorySize(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      long size = 0;
+      for (Path file : files.filter(Files::isRegularFile).toList()) {
+        size += Files.size(file);
+      }
+      return size;
+    }
+  }
+
+  /** Write the files to a temp dir, zip it to a temp file and read that back for upload. */
+  private byte[] zipThroughDisk(Map<String, byte[]> files, AtomicLong peakDiskBytes)
+      throws IOException {
+    Path workDir = Files.createTempDirectory(tempDir, "deps-");
+    Path filesDir = Files.createDirectory(workDir.resolve("files"));
+    for (Map.Entry<String, byte[]> file : files.entrySet()) {
+      Path localFile = filesDir.resolve(file.getKey());
+      Files.createDirectories(localFile.getParent());
+      Files.write(localFile, file.getValue());
+    }
+    Path zipFile = workDir.resolve("deps.zip");
+    ZipUtil.pack(filesDir.toFile(), zipFile.toFile());
+    byte[] zip = Files.readAllBytes(zipFile);
+    peakDiskBytes.accumulateAndGet(directorySize(workDir), Math::max);
+    return zip;
+  }
+
+  @Test
+  void zipFromMemory_avoidsDisk() throws Exception {
+    WdlImportGraph graph = newResolver().resolve(MAIN_URI, mainSource);
+    AtomicLong peakDiskBytes = new AtomicLong();
+    Benchmark.Result diskResult =
+        Benchmark.run(
+            "zip %d WDLs through temp files".formatted(graph.files().size()),
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> zipThroughDisk(graph.files(), peakDiskBytes));
+
+    Benchmark.Result memoryResult =
+        Benchmark.run(
+            "zip %d WDLs from memory".formatted(graph.files().size()),
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> ZipUtils.writeWdlZip(graph.files(), new ByteArrayOutputStream()));
+
+    // Zipping from memory writes nothing to disk.
+    assertTrue(
+        peakDiskBytes.get() > 0,
+        "Expected zipping through temp files to use disk: %s vs %s, peak %d bytes"
+            .formatted(diskResult, memoryResult, peakDiskBytes.get()));
+  }
+
+  @Test
+  void cachedBundle_reducesLatency() throws Exception {
+    WdlBundleCache uncached = new WdlBundleCache(null, 0, new ObjectMapper());
+    Benchmark.Result uncachedResult =
+        Benchmark.run(
+            "bundle %d WDLs, uncached".formatted(TASK_FILES + 1),
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> getBundle(uncached));
+
+    WdlBundleCache cached =
+        new WdlBundleCache(tempDir.resolve("bundles"), 1 << 30, new ObjectMapper());
+    Benchmark.Result cachedResult =
+        Benchmark.run(
+            "bundle %d WDLs, cached".formatted(TASK_FILES + 1),
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> getBundle(cached));
+
+    assertTrue(
+        cachedResult.p50Millis() < uncachedResult.p50Millis(),
+        "Expected cached bundles to be faster: %s vs %s".formatted(cachedResult, uncachedResult));
+  }
+}
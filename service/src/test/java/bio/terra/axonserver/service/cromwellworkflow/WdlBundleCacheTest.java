@@ -0,0 +1,198 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import bio.terra.axonserver.service.cromwellworkflow.WdlBundleCache.WdlBundle;
+import bio.terra.axonserver.testutils.FakeGcsServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.storage.Storage;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class WdlBundleCacheTest {
+  private static final String BUCKET = "my-bucket";
+  private static final String MAIN_URI = "gs://my-bucket/repo/workflows/main.wdl";
+  private static final byte[] MAIN =
+      wdl("import \"../tasks/align.wdl\"\nimport \"../tasks/sort.wdl\"\nworkflow main {}\n");
+
+  @TempDir Path cacheDir;
+  private FakeGcsServer gcsServer;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    gcsServer =
+        FakeGcsServer.start(/*latencyMillis=*/ 0)
+            .put(BUCKET, "repo/tasks/align.wdl", wdl("task align {}\n"))
+            .put(BUCKET, "repo/tasks/sort.wdl", wdl("task sort {}\n"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    gcsServer.close();
+  }
+
+  private static byte[] wdl(String source) {
+    return source.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private WdlBundleCache newCache(long maxBytes) {
+    return new WdlBundleCache(cacheDir, maxBytes, new ObjectMapper());
+  }
+
+  private WdlBundle get(WdlBundleCache cache, String mainUri, byte[] mainSource)
+      throws IOException {
+    Storage storage = gcsServer.storage();
+    Supplier<Storage> gcs = () -> storage;
+    return cache.get(
+        mainUri,
+        mainSource,
+        gcs,
+        new WdlImportResolver(
+            gcs, new WdlImportResolver.FetchLimits(MoreExecutors.directExecutor(), 2, 1024), 10));
+  }
+
+  private List<Path> cachedFiles() throws IOException {
+    try (Stream<Path> files = Files.list(cacheDir)) {
+      return files.toList();
+    }
+  }
+
+  @Test
+  void get_unchanged_reusesBundleAfterOneBatch() throws IOException {
+    WdlBundleCache cache = newCache(1024 * 1024);
+    WdlBundle first = get(cache, MAIN_URI, MAIN);
+    int requests = gcsServer.getRequestCount();
+
+    WdlBundle second = get(cache, MAIN_URI, MAIN);
+
+    assertEquals(requests + 1, gcsServer.getRequestCount());
+    assertNotNull(second.dependencies());
+    assertArrayEquals(first.dependencies(), second.dependencies());
+    assertArrayEquals(first.mainSource(), second.mainSource());
+    assertEquals("workflows/main.wdl", second.mainPath());
+  }
+
+  @Test
+  void get_importChanged_rebuildsBundle() throws IOException {
+    WdlBundleCache cache = newCache(1024 * 1024);
+    WdlBundle first = get(cache, MAIN_URI, MAIN);
+    gcsServer.put(BUCKET, "repo/tasks/sort.wdl", wdl("task sort { command {} }\n"));
+    int requests = gcsServer.getRequestCount();
+
+    WdlBundle second = get(cache, MAIN_URI, MAIN);
+
+    // The batch, then both imports fetched again.
+    assertEquals(requests + 5, gcsServer.getRequestCount());
+    assertFalse(Arrays.equals(first.dependencies(), second.dependencies()));
+  }
+
+  @Test
+  void get_mainChanged_rebuildsBundle() throws IOException {
+    WdlBundleCache cache = newCache(1024 * 1024);
+    get(cache, MAIN_URI, MAIN);
+    int requests = gcsServer.getRequestCount();
+
+    get(cache, MAIN_URI, wdl("import \"../tasks/align.wdl\"\nworkflow main {}\n"));
+
+    assertEquals(requests + 2, gcsServer.getRequestCount());
+  }
+
+  @Test
+  void get_afterRestart_reusesBundle() throws IOException {
+    WdlBundle first = get(newCache(1024 * 1024), MAIN_URI, MAIN);
+    int requests = gcsServer.getRequestCount();
+
+    WdlBundle second = get(newCache(1024 * 1024), MAIN_URI, MAIN);
+
+    assertEquals(requests + 1, gcsServer.getRequestCount());
+    assertArrayEquals(first.dependencies(), second.dependencies());
+  }
+
+  @Test
+  void get_afterRestart_keepsUrlImports() throws IOException {
+    String urlImport = "https://example.com/tasks/qc.wdl";
+    byte[] main = wdl("import \"" + urlImport + "\"\n" + new String(MAIN, StandardCharsets.UTF_8));
+    assertEquals(Set.of(urlImport), get(newCache(1024 * 1024), MAIN_URI, main).urlImports());
+    int requests = gcsServer.getRequestCount();
+
+    WdlBundle second = get(newCache(1024 * 1024), MAIN_URI, main);
+
+    assertEquals(requests + 1, gcsServer.getRequestCount());
+    assertEquals(Set.of(urlImport), second.urlImports());
+  }
+
+  @Test
+  void get_overMaxBytes_evictsLeastRecentlyUsed() throws IOException {
+    String otherUri = "gs://my-bucket/repo/workflows/copy.wdl";
+    int bundleBytes = get(newCache(0), MAIN_URI, MAIN).dependencies().length;
+    WdlBundleCache cache = newCache(bundleBytes * 3 / 2);
+    get(cache, MAIN_URI, MAIN);
+
+    get(cache, otherUri, MAIN);
+    int requests = gcsServer.getRequestCount();
+
+    assertEquals(2, cachedFiles().size());
+    get(cache, otherUri, MAIN);
+    assertEquals(requests + 1, gcsServer.getRequestCount());
+    get(cache, MAIN_URI, MAIN);
+    assertEquals(requests + 1 + 4, gcsServer.getRequestCount());
+  }
+
+  @Test
+  void get_noImports_notCached() throws IOException {
+    WdlBundleCache cache = newCache(1024 * 1024);
+
+    WdlBundle bundle = get(cache, MAIN_URI, wdl("workflow main {}\n"));
+
+    assertNull(bundle.dependencies());
+    assertEquals("main.wdl", bundle.mainPath());
+    assertEquals(List.of(), cachedFiles());
+  }
+
+  @Test
+  void get_noDirectory_fetchesEveryTime() throws IOException {
+    WdlBundleCache cache = new WdlBundleCache(null, 1024 * 1024, new ObjectMapper());
+    get(cache, MAIN_URI, MAIN);
+    int requests = gcsServer.getRequestCount();
+
+    WdlBundle second = get(cache, MAIN_URI, MAIN);
+
+    // Both imports fetched again, with no batch lookup first.
+    assertEquals(2 * requests, gcsServer.getRequestCount());
+    assertNotNull(second.dependencies());
+  }
+
+  @Test
+  void newCache_directoryReadableOnlyByOwner() throws IOException {
+    assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+    Path created = cacheDir.resolve("created");
+    Path shared = Files.createDirectory(cacheDir.resolve("shared"));
+    Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+    new WdlBundleCache(created, 1024, new ObjectMapper());
+    new WdlBundleCache(shared, 1024, new ObjectMapper());
+
+    assertEquals(
+        "rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(created)));
+    assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(shared)));
+  }
+}
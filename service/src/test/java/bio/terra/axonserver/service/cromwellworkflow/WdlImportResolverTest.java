@@ -0,0 +1,150 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.axonserver.service.cromwellworkflow.WdlImportResolver.WdlImportGraph;
+import bio.terra.axonserver.testutils.FakeGcsServer;
+import bio.terra.common.exception.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WdlImportResolverTest {
+  private static final String BUCKET = "my-bucket";
+  private static final String MAIN_URI = "gs://my-bucket/repo/workflows/main.wdl";
+  private static final String MAIN =
+      """
+      version 1.0
+      import "tasks/align.wdl" as align
+      import "../common/util.wdl"
+      import "https://example.com/lib.wdl" as lib
+      workflow main {}
+      """;
+
+  private FakeGcsServer gcsServer;
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @BeforeEach
+  void setUp() throws Exception {
+    gcsServer =
+        FakeGcsServer.start(/*latencyMillis=*/ 0)
+            .put(
+                BUCKET,
+                "repo/workflows/tasks/align.wdl",
+                wdl("import \"../../common/util.wdl\"\nimport 'sort.wdl'\n"))
+            .put(BUCKET, "repo/workflows/tasks/sort.wdl", wdl("task sort {}\n"))
+            .put(BUCKET, "repo/common/util.wdl", wdl("import \"../workflows/tasks/align.wdl\"\n"))
+            .put(BUCKET, "repo/unrelated/other.wdl", wdl("task other {}\n"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+    gcsServer.close();
+  }
+
+  private static byte[] wdl(String source) {
+    return source.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private WdlImportResolver newResolver(int maxFiles) {
+    return new WdlImportResolver(
+        gcsServer::storage, new WdlImportResolver.FetchLimits(executor, 2, 1024), maxFiles);
+  }
+
+  private WdlImportResolver newResolver(int parallelism, int memoryBytes) {
+    return new WdlImportResolver(
+        gcsServer::storage,
+        new WdlImportResolver.FetchLimits(executor, parallelism, memoryBytes),
+        10);
+  }
+
+  @Test
+  void resolve_fetchesOnlyReachableFiles() {
+    WdlImportGraph graph = newResolver(10).resolve(MAIN_URI, wdl(MAIN));
+
+    assertEquals(
+        List.of(
+            "workflows/main.wdl",
+            "workflows/tasks/align.wdl",
+            "common/util.wdl",
+            "workflows/tasks/sort.wdl"),
+        List.copyOf(graph.files().keySet()));
+    assertEquals("workflows/main.wdl", graph.mainPath());
+    assertEquals(Set.of("https://example.com/lib.wdl"), graph.urlImports());
+    assertEquals("repo/", graph.root());
+    assertEquals(
+        Map.of(
+            "repo/workflows/tasks/align.wdl",
+            1L,
+            "repo/workflows/tasks/sort.wdl",
+            2L,
+            "repo/common/util.wdl",
+            3L),
+        graph.generations());
+    // Metadata, then the content of that generation, for each import.
+    assertEquals(6, gcsServer.getRequestCount());
+  }
+
+  @Test
+  void resolve_rewritesMainImportsToRoot() {
+    WdlImportGraph graph = newResolver(10).resolve(MAIN_URI, wdl(MAIN));
+
+    assertEquals(
+        List.of("workflows/tasks/align.wdl", "common/util.wdl", "https://example.com/lib.wdl"),
+        WdlImportResolver.imports(graph.mainSource()));
+  }
+
+  @Test
+  void resolve_noImports_skipsGcs() {
+    WdlImportResolver resolver =
+        new WdlImportResolver(
+            () -> {
+              throw new AssertionError("GCS client created");
+            },
+            new WdlImportResolver.FetchLimits(executor, 2, 1024),
+            10);
+
+    WdlImportGraph graph = resolver.resolve(MAIN_URI, wdl("workflow main {}\n"));
+
+    assertFalse(graph.hasDependencies());
+    assertEquals("main.wdl", graph.mainPath());
+  }
+
+  @Test
+  void resolve_missingImport_throws() {
+    assertThrows(
+        BadRequestException.class,
+        () -> newResolver(10).resolve(MAIN_URI, wdl("import \"missing.wdl\"\n")));
+  }
+
+  @Test
+  void resolve_importOutsideBucket_throws() {
+    assertThrows(
+        BadRequestException.class,
+        () -> newResolver(10).resolve(MAIN_URI, wdl("import \"../../../escape.wdl\"\n")));
+  }
+
+  @Test
+  void resolve_tooManyFiles_throws() {
+    assertThrows(BadRequestException.class, () -> newResolver(2).resolve(MAIN_URI, wdl(MAIN)));
+  }
+
+  @Test
+  void resolve_tooManyBytes_failsBeforeReadingContent() {
+    // Room for the main file, but not for the first import.
+    WdlImportResolver resolver = newResolver(/*parallelism=*/ 1, MAIN.length() + 10);
+
+    assertThrows(BadRequestException.class, () -> resolver.resolve(MAIN_URI, wdl(MAIN)));
+    // Only the first import's metadata is read; no content, and no further imports.
+    assertEquals(1, gcsServer.getRequestCount());
+  }
+}
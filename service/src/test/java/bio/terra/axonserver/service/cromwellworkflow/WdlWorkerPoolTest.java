@@ -0,0 +1,92 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.axonserver.service.exception.TooManyRequestsException;
+import bio.terra.axonserver.service.exception.WdlParseTimeoutException;
+import bio.terra.axonserver.testutils.FakeWdlWorker;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseRequest;
+import bio.terra.common.exception.InternalServerErrorException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Runs the pool against {@link FakeWdlWorker} processes. */
+public class WdlWorkerPoolTest {
+  private WdlWorkerPool pool;
+
+  private void startPool(int workers, int queueSize, int parseTimeoutSeconds) {
+    pool =
+        new WdlWorkerPool(
+            WomtoolServiceTest.config(workers, queueSize, parseTimeoutSeconds),
+            FakeWdlWorker.class.getName());
+  }
+
+  @AfterEach
+  void tearDown() {
+    pool.close();
+  }
+
+  private static ParseRequest request(String mainPath) {
+    return new ParseRequest(
+        mainPath, "version 1.0\nworkflow main {}\n".getBytes(StandardCharsets.UTF_8), null);
+  }
+
+  @Test
+  void parse_validWorkflow() {
+    startPool(/*workers=*/ 1, /*queueSize=*/ 0, /*parseTimeoutSeconds=*/ 10);
+
+    assertTrue(pool.parse(request("main.wdl")).errors().isEmpty());
+    assertTrue(pool.parse(request("main.wdl")).errors().isEmpty());
+  }
+
+  @Test
+  void parse_hangs_killsWorkerAfterTimeout() {
+    startPool(/*workers=*/ 1, /*queueSize=*/ 0, /*parseTimeoutSeconds=*/ 1);
+
+    assertThrows(WdlParseTimeoutException.class, () -> pool.parse(request(FakeWdlWorker.HANG)));
+    // The hung worker was replaced.
+    assertTrue(pool.parse(request("main.wdl")).errors().isEmpty());
+  }
+
+  @Test
+  void parse_workerCrashes_replacesWorker() {
+    startPool(/*workers=*/ 1, /*queueSize=*/ 0, /*parseTimeoutSeconds=*/ 10);
+
+    assertThrows(
+        InternalServerErrorException.class, () -> pool.parse(request(FakeWdlWorker.CRASH)));
+    assertTrue(pool.parse(request("main.wdl")).errors().isEmpty());
+  }
+
+  @Test
+  void parse_workerFails_throws() {
+    startPool(/*workers=*/ 1, /*queueSize=*/ 0, /*parseTimeoutSeconds=*/ 10);
+
+    InternalServerErrorException e =
+        assertThrows(
+            InternalServerErrorException.class, () -> pool.parse(request(FakeWdlWorker.FAIL)));
+    assertEquals("Womtool threw", e.getMessage());
+    assertTrue(pool.parse(request("main.wdl")).errors().isEmpty());
+  }
+
+  @Test
+  void parse_poolBusy_rejected() throws Exception {
+    startPool(/*workers=*/ 1, /*queueSize=*/ 0, /*parseTimeoutSeconds=*/ 2);
+    CompletableFuture<?> hung =
+        CompletableFuture.runAsync(() -> pool.parse(request(FakeWdlWorker.HANG)));
+    while (pool.inFlight() == 0) {
+      Thread.sleep(10);
+    }
+
+    TooManyRequestsException e =
+        assertThrows(TooManyRequestsException.class, () -> pool.parse(request("main.wdl")));
+    assertEquals(5, e.getRetryAfterSeconds());
+    ExecutionException hungException = assertThrows(ExecutionException.class, hung::get);
+    assertInstanceOf(WdlParseTimeoutException.class, hungException.getCause());
+  }
+}
@@ -0,0 +1,183 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.axonserver.app.configuration.WomtoolConfiguration;
+import bio.terra.axonserver.service.cromwellworkflow.WdlBundleCache.WdlBundle;
+import bio.terra.axonserver.service.cromwellworkflow.WomtoolService.WorkflowDescription;
+import bio.terra.axonserver.service.exception.WdlParseTimeoutException;
+import bio.terra.axonserver.testutils.FakeWdlWorker;
+import bio.terra.axonserver.utils.ZipUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Parses with real WDL workers, started from the test classpath. */
+public class WomtoolServiceTest {
+  private static final String MAIN =
+      """
+      version 1.0
+      import "tasks/hello.wdl" as hello
+      workflow main {
+        input {
+          String name
+          Int? count
+        }
+        call hello.hello { input: name = name }
+        output {
+          String greeting = hello.greeting
+        }
+      }
+      """;
+  private static final String HELLO =
+      """
+      version 1.0
+      task hello {
+        input {
+          String name
+        }
+        command { echo "Hello ~{name}" }
+        output {
+          String greeting = read_string(stdout())
+        }
+      }
+      """;
+
+  private final WomtoolService womtoolService =
+      new WomtoolService(config(/*workers=*/ 2, /*queueSize=*/ 8, /*parseTimeoutSeconds=*/ 60));
+
+  /** Configuration for workers started from the test classpath, cold. */
+  static WomtoolConfiguration config(int workers, int queueSize, int parseTimeoutSeconds) {
+    return new WomtoolConfiguration(
+        /*parseCacheMaxSize=*/ 10,
+        workers,
+        queueSize,
+        parseTimeoutSeconds,
+        /*timedOutCacheSeconds=*/ 60,
+        /*retryAfterSeconds=*/ 5,
+        /*warmUp=*/ false,
+        System.getProperty("java.class.path"),
+        /*workerJvmOptions=*/ List.of("-Xmx512m"),
+        /*workerStartTimeoutSeconds=*/ 60,
+        /*healthCheckIntervalSeconds=*/ 60);
+  }
+
+  @AfterEach
+  void tearDown() {
+    womtoolService.shutdown();
+  }
+
+  private static byte[] wdl(String source) {
+    return source.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static WdlBundle bundle(String main, String hello) throws IOException {
+    ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    ZipUtils.writeWdlZip(Map.of("main.wdl", wdl(main), "tasks/hello.wdl", wdl(hello)), zip);
+    return new WdlBundle("main.wdl", wdl(main), zip.toByteArray(), Set.of());
+  }
+
+  @Test
+  void describe_validWorkflow_parsesInputsAndOutputs() throws IOException {
+    WorkflowDescription description = womtoolService.describe(bundle(MAIN, HELLO));
+
+    assertTrue(description.valid());
+    assertEquals(Set.of("main.name", "main.count"), description.inputs().keySet());
+    assertEquals(Map.of("main.greeting", "String"), description.outputs());
+  }
+
+  @Test
+  void describe_sameWorkflow_parsesOnce() throws IOException {
+    WorkflowDescription first = womtoolService.describe(bundle(MAIN, HELLO));
+
+    assertSame(first, womtoolService.describe(bundle(MAIN, HELLO)));
+  }
+
+  @Test
+  void describe_importChanged_parsesAgain() throws IOException {
+    WorkflowDescription first = womtoolService.describe(bundle(MAIN, HELLO));
+
+    WorkflowDescription second =
+        womtoolService.describe(bundle(MAIN, HELLO.replace("String name", "String name\n")));
+
+    assertTrue(second.valid());
+    assertNotSame(first, second);
+  }
+
+  @Test
+  void describe_invalidWorkflow_reportsErrors() throws IOException {
+    WorkflowDescription description =
+        womtoolService.describe(bundle(MAIN, HELLO.replace("task hello", "task goodbye")));
+
+    assertFalse(description.valid());
+    assertFalse(description.errors().isEmpty());
+    assertNull(description.inputs());
+  }
+
+  @Test
+  void describe_invalidWorkflow_parsesAgain() throws IOException {
+    String invalidHello = HELLO.replace("task hello", "task goodbye");
+    WorkflowDescription first = womtoolService.describe(bundle(MAIN, invalidHello));
+
+    assertNotSame(first, womtoolService.describe(bundle(MAIN, invalidHello)));
+  }
+
+  @Test
+  void describe_urlImports_parsesAgain() throws IOException {
+    WdlBundle bundle = bundle(MAIN, HELLO);
+    WdlBundle withUrlImports =
+        new WdlBundle(
+            bundle.mainPath(),
+            bundle.mainSource(),
+            bundle.dependencies(),
+            Set.of("https://example.com/tasks.wdl"));
+    WorkflowDescription first = womtoolService.describe(withUrlImports);
+
+    assertTrue(first.valid());
+    assertNotSame(first, womtoolService.describe(withUrlImports));
+  }
+
+  @Test
+  void describe_noImports() throws IOException {
+    WorkflowDescription description =
+        womtoolService.describe(
+            new WdlBundle(
+                "main.wdl",
+                wdl("version 1.0\nworkflow main {\n  input {\n    String name\n  }\n}\n"),
+                null,
+                Set.of()));
+
+    assertEquals(Set.of("main.name"), description.inputs().keySet());
+    assertEquals(Map.of(), description.outputs());
+  }
+
+  @Test
+  void describe_timedOut_rejectsRepeatsWithoutParsing() {
+    WomtoolConfiguration config =
+        config(/*workers=*/ 1, /*queueSize=*/ 0, /*parseTimeoutSeconds=*/ 1);
+    WomtoolService fakeWomtool =
+        new WomtoolService(config, new WdlWorkerPool(config, FakeWdlWorker.class.getName()));
+    WdlBundle hang = new WdlBundle(FakeWdlWorker.HANG, wdl("workflow main {}\n"), null, Set.of());
+    try {
+      assertThrows(WdlParseTimeoutException.class, () -> fakeWomtool.describe(hang));
+
+      long start = System.nanoTime();
+      assertThrows(WdlParseTimeoutException.class, () -> fakeWomtool.describe(hang));
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    } finally {
+      fakeWomtool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package bio.terra.axonserver.service.cromwellworkflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class WorkflowOwnershipCacheTest {
+  private static final Duration TTL = Duration.ofDays(1);
+  private static final Clock CLOCK =
+      Clock.fixed(Instant.parse("2023-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+  @TempDir Path tempDir;
+
+  private final UUID workflowId = UUID.randomUUID();
+  private final UUID workspaceId = UUID.randomUUID();
+
+  @Test
+  void inMemory_remembersOwner() {
+    try (WorkflowOwnershipCache cache = new WorkflowOwnershipCache(10, TTL, null, CLOCK)) {
+      assertNull(cache.get(workflowId));
+      cache.put(workflowId, workspaceId);
+      assertEquals(workspaceId, cache.get(workflowId));
+    }
+  }
+
+  @Test
+  void persisted_survivesRestart() {
+    Path file = tempDir.resolve("owners/owners.csv");
+    try (WorkflowOwnershipCache cache = new WorkflowOwnershipCache(10, TTL, file, CLOCK)) {
+      cache.put(workflowId, workspaceId);
+    }
+
+    try (WorkflowOwnershipCache restarted = new WorkflowOwnershipCache(10, TTL, file, CLOCK)) {
+      assertEquals(workspaceId, restarted.get(workflowId));
+    }
+  }
+
+  @Test
+  void persisted_manyPuts_allSurviveRestart() {
+    Path file = tempDir.resolve("owners.csv");
+    Map<UUID, UUID> owners = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      owners.put(UUID.randomUUID(), UUID.randomUUID());
+    }
+    try (WorkflowOwnershipCache cache = new WorkflowOwnershipCache(1000, TTL, file, CLOCK)) {
+      owners.forEach(cache::put);
+    }
+
+    try (WorkflowOwnershipCache restarted = new WorkflowOwnershipCache(1000, TTL, file, CLOCK)) {
+      owners.forEach(
+          (workflowId, workspaceId) -> assertEquals(workspaceId, restarted.get(workflowId)));
+    }
+  }
+
+  @Test
+  void persisted_expiredOwnerNotLoaded() {
+    Path file = tempDir.resolve("owners.csv");
+    try (WorkflowOwnershipCache cache = new WorkflowOwnershipCache(10, TTL, file, CLOCK)) {
+      cache.put(workflowId, workspaceId);
+    }
+
+    Clock later = Clock.offset(CLOCK, TTL.plusMinutes(1));
+    try (WorkflowOwnershipCache restarted = new WorkflowOwnershipCache(10, TTL, file, later)) {
+      assertNull(restarted.get(workflowId));
+    }
+  }
+
+  @Test
+  void persisted_skipsPartialLine() throws Exception {
+    Path file = tempDir.resolve("owners.csv");
+    String line = "%s,%s,%d".formatted(workflowId, workspaceId, CLOCK.instant().getEpochSecond());
+    Files.writeString(file, line + "\n" + UUID.randomUUID() + ",not-a", StandardCharsets.UTF_8);
+
+    try (WorkflowOwnershipCache cache = new WorkflowOwnershipCache(10, TTL, file, CLOCK)) {
+      assertEquals(workspaceId, cache.get(workflowId));
+    }
+  }
+
+  @Test
+  void persisted_compactsFile() throws Exception {
+    Path file = tempDir.resolve("owners.csv");
+    int maxSize = 5;
+    try (WorkflowOwnershipCache cache = new WorkflowOwnershipCache(maxSize, TTL, file, CLOCK)) {
+      for (int i = 0; i < 4 * maxSize; i++) {
+        cache.put(UUID.randomUUID(), workspaceId);
+      }
+    }
+
+    assertTrue(Files.readAllLines(file).size() <= 2 * maxSize);
+  }
+}
@@ -0,0 +1,77 @@
+package bio.terra.axonserver.service.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.axonserver.app.configuration.HttpClientConfiguration;
+import bio.terra.axonserver.testutils.FakeGcsServer;
+import bio.terra.axonserver.testutils.StubHttpServer;
+import java.util.Map;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class DownstreamCallsTest {
+  private StubHttpServer server;
+  private HttpTransportFactory httpTransportFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = StubHttpServer.start().respondJson("/", "{}");
+    httpTransportFactory = new HttpTransportFactory(new HttpClientConfiguration(2, 30, 5, 5, 5));
+  }
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+    httpTransportFactory.shutdown();
+    server.close();
+  }
+
+  private void call(OkHttpClient client) throws Exception {
+    try (Response response =
+        client.newCall(new Request.Builder().url(server.getBaseUrl() + "/").build()).execute()) {
+      assertEquals(200, response.code());
+    }
+  }
+
+  @Test
+  void getRequestCounts_countsCallsPerDownstream() throws Exception {
+    OkHttpClient wsm = httpTransportFactory.newOkHttpClient("wsm");
+    OkHttpClient sam = httpTransportFactory.newOkHttpClient("sam");
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+
+    call(wsm);
+    call(wsm);
+    call(sam);
+
+    assertEquals(Map.of("sam", 1, "wsm", 2), DownstreamCalls.getRequestCounts());
+  }
+
+  @Test
+  void getRequestCounts_countsGcsCalls() throws Exception {
+    try (FakeGcsServer gcs = FakeGcsServer.start(/*latencyMillis=*/ 0)) {
+      gcs.put("bucket", "object", new byte[] {1});
+      RequestContextHolder.setRequestAttributes(
+          new ServletRequestAttributes(new MockHttpServletRequest()));
+
+      gcs.storage().get("bucket", "object");
+
+      assertEquals(Map.of("gcs", gcs.getRequestCount()), DownstreamCalls.getRequestCounts());
+    }
+  }
+
+  @Test
+  void getRequestCounts_outsideRequest_isEmpty() throws Exception {
+    call(httpTransportFactory.newOkHttpClient("wsm"));
+
+    assertTrue(DownstreamCalls.getRequestCounts().isEmpty());
+  }
+}
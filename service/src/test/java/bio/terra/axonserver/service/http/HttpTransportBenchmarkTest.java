@@ -0,0 +1,72 @@
+package bio.terra.axonserver.service.http;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.axonserver.app.configuration.HttpClientConfiguration;
+import bio.terra.axonserver.testutils.Benchmark;
+import bio.terra.axonserver.testutils.StubHttpServer;
+import bio.terra.cromwell.api.WorkflowsApi;
+import bio.terra.cromwell.client.ApiClient;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares a generated client built per call, as services used to, against one client built once on
+ * the pooled transport, with the caller's token passed per call.
+ */
+@Tag("benchmark")
+public class HttpTransportBenchmarkTest {
+  private static final int WARMUP_ITERATIONS = 50;
+  private static final int ITERATIONS = 500;
+
+  private final String workflowId = UUID.randomUUID().toString();
+  private StubHttpServer server;
+  private HttpTransportFactory httpTransportFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server =
+        StubHttpServer.start()
+            .respondJson(
+                "/api/workflows", "{\"id\":\"%s\",\"status\":\"Running\"}".formatted(workflowId));
+    httpTransportFactory = new HttpTransportFactory(new HttpClientConfiguration(5, 60, 5, 30, 30));
+  }
+
+  @AfterEach
+  void tearDown() {
+    httpTransportFactory.shutdown();
+    server.close();
+  }
+
+  @Test
+  void pooledTransport_reducesPerCallLatency() throws Exception {
+    Benchmark.Result perCall =
+        Benchmark.run(
+            "client per call",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () ->
+                new WorkflowsApi(new ApiClient().setBasePath(server.getBaseUrl()))
+                    .status("v1", workflowId));
+
+    ApiClient sharedClient = new ApiClient().setBasePath(server.getBaseUrl());
+    sharedClient.setHttpClient(
+        httpTransportFactory.newJerseyClient("cromwell", sharedClient.getHttpClient()));
+    WorkflowsApi workflowsApi = new WorkflowsApi(sharedClient);
+    Benchmark.Result pooled =
+        Benchmark.run(
+            "shared client on pooled transport",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () ->
+                AccessTokenContext.withAccessToken(
+                    "token", () -> workflowsApi.status("v1", workflowId)));
+
+    assertTrue(
+        pooled.p50Millis() < perCall.p50Millis(),
+        "Expected pooled transport to be faster: %s vs %s".formatted(pooled, perCall));
+  }
+}
@@ -0,0 +1,215 @@
+package bio.terra.axonserver.service.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.axonserver.app.configuration.HttpClientConfiguration;
+import bio.terra.axonserver.testutils.StubHttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import okhttp3.OkHttpClient;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.media.multipart.FormDataMultiPart;
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OkHttpConnectorTest {
+  private StubHttpServer server;
+  private HttpTransportFactory httpTransportFactory;
+  private OkHttpClient okHttpClient;
+  private Client client;
+  private final AtomicLong receivedBytes = new AtomicLong();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server =
+        StubHttpServer.start()
+            .handle(
+                "/echo",
+                exchange -> {
+                  String body =
+                      new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                  String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+                  exchange.getResponseHeaders().add("X-Method", exchange.getRequestMethod());
+                  if (authorization != null) {
+                    exchange.getResponseHeaders().add("X-Authorization", authorization);
+                  }
+                  StubHttpServer.sendJson(exchange, 201, "{\"echo\":\"" + body + "\"}");
+                })
+            .handle(
+                "/multipart",
+                exchange -> {
+                  String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                  String body =
+                      new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                  String boundary = contentType.substring(contentType.indexOf("boundary=") + 9);
+                  StubHttpServer.sendJson(
+                      exchange, 200, "{\"bodyHasBoundary\":" + body.contains(boundary) + "}");
+                })
+            .handle(
+                "/count",
+                exchange -> {
+                  long count =
+                      exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+                  receivedBytes.set(count);
+                  StubHttpServer.sendJson(exchange, 200, "{\"count\":" + count + "}");
+                });
+    httpTransportFactory = new HttpTransportFactory(new HttpClientConfiguration(2, 30, 5, 5, 5));
+    okHttpClient = httpTransportFactory.newOkHttpClient("test");
+    client =
+        ClientBuilder.newClient(
+            new ClientConfig()
+                .register(MultiPartFeature.class)
+                .connectorProvider(new OkHttpConnectorProvider(okHttpClient)));
+  }
+
+  @AfterEach
+  void tearDown() {
+    client.close();
+    httpTransportFactory.shutdown();
+    server.close();
+  }
+
+  @Test
+  void apply_sendsEntityAndHeaders() {
+    try (Response response =
+        client
+            .target(server.getBaseUrl())
+            .path("echo")
+            .request(MediaType.APPLICATION_JSON)
+            .header("Authorization", "Bearer token")
+            .post(Entity.text("hello"))) {
+      assertEquals(201, response.getStatus());
+      assertEquals("POST", response.getHeaderString("X-Method"));
+      assertEquals("Bearer token", response.getHeaderString("X-Authorization"));
+      assertEquals("{\"echo\":\"hello\"}", response.readEntity(String.class));
+    }
+  }
+
+  @Test
+  void apply_sendsCallersAccessToken() {
+    for (String token : new String[] {"alice-token", "bob-token"}) {
+      try (Response response =
+          AccessTokenContext.withAccessToken(
+              token, () -> client.target(server.getBaseUrl()).path("echo").request().get())) {
+        assertEquals("Bearer " + token, response.getHeaderString("X-Authorization"));
+      }
+    }
+    try (Response response = client.target(server.getBaseUrl()).path("echo").request().get()) {
+      assertNull(response.getHeaderString("X-Authorization"));
+    }
+  }
+
+  @Test
+  void apply_reusesConnection() {
+    for (int i = 0; i < 3; i++) {
+      try (Response response = client.target(server.getBaseUrl()).path("echo").request().get()) {
+        assertEquals("{\"echo\":\"\"}", response.readEntity(String.class));
+      }
+    }
+    assertEquals(3, server.getRequestCount());
+    assertEquals(1, okHttpClient.connectionPool().connectionCount());
+  }
+
+  @Test
+  void apply_sendsHeadersSetWhileWritingEntity() {
+    try (FormDataMultiPart multiPart = new FormDataMultiPart().field("name", "value");
+        Response response =
+            client
+                .target(server.getBaseUrl())
+                .path("multipart")
+                .request()
+                .post(Entity.entity(multiPart, MediaType.MULTIPART_FORM_DATA_TYPE))) {
+      assertEquals("{\"bodyHasBoundary\":true}", response.readEntity(String.class));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Test
+  void apply_streamsEntityLargerThanHeap() throws Exception {
+    // Four times the heap of the JVM posting it, so it cannot be buffered in memory.
+    long entityBytes = 256L * 1024 * 1024;
+    Process process =
+        new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx64m",
+                "-cp",
+                System.getProperty("java.class.path"),
+                PostLargeEntity.class.getName(),
+                server.getBaseUrl(),
+                Long.toString(entityBytes))
+            .inheritIO()
+            .start();
+    assertTrue(process.waitFor(2, TimeUnit.MINUTES), "Timed out posting the entity");
+
+    assertEquals(0, process.exitValue());
+    assertEquals(entityBytes, receivedBytes.get());
+  }
+
+  /** Posts an entity of the given size, e.g. in a JVM with a heap smaller than the entity. */
+  public static class PostLargeEntity {
+    public static void main(String[] args) {
+      HttpTransportFactory httpTransportFactory =
+          new HttpTransportFactory(new HttpClientConfiguration(2, 30, 60, 60, 5));
+      Client client =
+          ClientBuilder.newClient(
+              new ClientConfig()
+                  .connectorProvider(
+                      new OkHttpConnectorProvider(httpTransportFactory.newOkHttpClient("test"))));
+      InputStream entity = new ZeroInputStream(Long.parseLong(args[1]));
+      try (Response response =
+          client
+              .target(args[0])
+              .path("count")
+              .request()
+              .post(Entity.entity(entity, MediaType.APPLICATION_OCTET_STREAM_TYPE))) {
+        System.exit(response.getStatus() == 200 ? 0 : 1);
+      }
+    }
+  }
+
+  /** Zeros, without holding them in memory. */
+  private static class ZeroInputStream extends InputStream {
+    private long remaining;
+
+    ZeroInputStream(long size) {
+      this.remaining = size;
+    }
+
+    @Override
+    public int read() {
+      if (remaining == 0) {
+        return -1;
+      }
+      remaining--;
+      return 0;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (remaining == 0) {
+        return -1;
+      }
+      int read = (int) Math.min(len, remaining);
+      Arrays.fill(b, off, off + read, (byte) 0);
+      remaining -= read;
+      return read;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package bio.terra.axonserver.service.iam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.axonserver.app.configuration.SamConfiguration;
+import bio.terra.common.exception.InternalServerErrorException;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class AxonServiceAccountTokenProviderTest {
+  private static final int REFRESH_AHEAD_SECONDS = 600;
+
+  private AxonServiceAccountTokenProvider provider;
+
+  /** Issues numbered tokens that are due for refresh a second after they are issued. */
+  private static class ShortLivedCredentials extends GoogleCredentials {
+    private final AtomicInteger refreshes = new AtomicInteger();
+
+    @Override
+    public AccessToken refreshAccessToken() {
+      return new AccessToken(
+          "axon-token-" + refreshes.incrementAndGet(),
+          Date.from(Instant.now().plusSeconds(REFRESH_AHEAD_SECONDS + 1)));
+    }
+  }
+
+  private static SamConfiguration samConfig() {
+    return new SamConfiguration(
+        "http://sam",
+        "resource-id",
+        100,
+        600,
+        60,
+        3600,
+        300,
+        100,
+        REFRESH_AHEAD_SECONDS,
+        /*axonTokenRetrySeconds=*/ 1,
+        /*registerAxonServiceAccount=*/ false,
+        600,
+        100);
+  }
+
+  @AfterEach
+  void tearDown() {
+    provider.shutdown();
+  }
+
+  @Test
+  void getAccessToken_refreshedAheadOfExpiry() throws Exception {
+    provider = new AxonServiceAccountTokenProvider(samConfig(), ShortLivedCredentials::new);
+    assertEquals("axon-token-1", provider.getAccessToken());
+
+    Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+    while (provider.getAccessToken().equals("axon-token-1")) {
+      assertTrue(Instant.now().isBefore(deadline), "token was not refreshed");
+      Thread.sleep(50);
+    }
+    assertEquals("axon-token-2", provider.getAccessToken());
+  }
+
+  @Test
+  void getAccessToken_noApplicationDefaultCredentials_throws() {
+    provider =
+        new AxonServiceAccountTokenProvider(
+            samConfig(),
+            () -> {
+              throw new IOException("no credentials");
+            });
+    assertThrows(InternalServerErrorException.class, provider::getAccessToken);
+  }
+}
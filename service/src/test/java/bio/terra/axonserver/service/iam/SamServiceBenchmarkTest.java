@@ -0,0 +1,167 @@
+package bio.terra.axonserver.service.iam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import bio.terra.axonserver.app.configuration.HttpClientConfiguration;
+import bio.terra.axonserver.app.configuration.SamConfiguration;
+import bio.terra.axonserver.service.http.HttpTransportFactory;
+import bio.terra.axonserver.service.iam.SamService.RegistrationState;
+import bio.terra.axonserver.testutils.Benchmark;
+import bio.terra.axonserver.testutils.StubHttpServer;
+import com.sun.net.httpserver.HttpHandler;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Latency of the Sam calls made when submitting a workflow, against a stub Sam that adds latency to
+ * every request.
+ */
+@Tag("benchmark")
+public class SamServiceBenchmarkTest {
+  private static final int WARMUP_ITERATIONS = 5;
+  private static final int ITERATIONS = 100;
+  private static final int COLD_START_ITERATIONS = 20;
+  private static final long SAM_LATENCY_MILLIS = 20;
+
+  private StubHttpServer sam;
+  private HttpTransportFactory httpTransportFactory;
+  private final List<SamService> samServices = new ArrayList<>();
+
+  private static HttpHandler slowJson(String json) {
+    return exchange -> {
+      try {
+        Thread.sleep(SAM_LATENCY_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      StubHttpServer.sendJson(exchange, 200, json);
+    };
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    sam =
+        StubHttpServer.start()
+            .handle(
+                "/register/user/",
+                slowJson(
+                    "{\"userSubjectId\": \"1\", \"userEmail\": \"axon@test\", \"enabled\": true}"))
+            .handle(
+                "/api/google/v1/petServiceAccount/", slowJson("{\"type\": \"service_account\"}"));
+    httpTransportFactory = new HttpTransportFactory(new HttpClientConfiguration(5, 60, 5, 30, 30));
+  }
+
+  @AfterEach
+  void tearDown() {
+    samServices.forEach(SamService::shutdown);
+    httpTransportFactory.shutdown();
+    sam.close();
+  }
+
+  private SamService newSamService(int petKeyCacheTtlSeconds) {
+    SamConfiguration samConfig =
+        new SamConfiguration(
+            sam.getBaseUrl(),
+            "resource-id",
+            100,
+            600,
+            60,
+            3600,
+            petKeyCacheTtlSeconds,
+            100,
+            600,
+            30,
+            true,
+            600,
+            100);
+    // There are no application default credentials in tests.
+    AxonServiceAccountTokenProvider axonTokenProvider = mock(AxonServiceAccountTokenProvider.class);
+    when(axonTokenProvider.hasCredentials()).thenReturn(true);
+    when(axonTokenProvider.getAccessToken()).thenReturn("axon-token");
+    SamService samService = new SamService(samConfig, httpTransportFactory, axonTokenProvider);
+    samServices.add(samService);
+    return samService;
+  }
+
+  private static void awaitRegistration(SamService samService) throws Exception {
+    assertEquals(
+        RegistrationState.REGISTERED,
+        samService.startAxonServiceAccountRegistration().get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void petKeyCache_reducesSubmissionLatency() throws Exception {
+    SamService uncached = newSamService(/*petKeyCacheTtlSeconds=*/ 0);
+    awaitRegistration(uncached);
+    Benchmark.Result withoutCache =
+        Benchmark.run(
+            "pet key without cache",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> uncached.getPetServiceAccountKey("my-project", "user@test"));
+
+    SamService cached = newSamService(/*petKeyCacheTtlSeconds=*/ 300);
+    awaitRegistration(cached);
+    Benchmark.Result withCache =
+        Benchmark.run(
+            "pet key with cache",
+            WARMUP_ITERATIONS,
+            ITERATIONS,
+            () -> cached.getPetServiceAccountKey("my-project", "user@test"));
+
+    assertTrue(
+        withCache.p50Millis() < withoutCache.p50Millis(),
+        "Expected cached lookups to be faster: %s vs %s".formatted(withCache, withoutCache));
+  }
+
+  /**
+   * The first submission after startup. Registering on the request path, as before, adds the Sam
+   * status check to that submission; registering at startup takes it off.
+   */
+  @Test
+  void eagerRegistration_reducesColdStartLatency() throws Exception {
+    Deque<SamService> lazy = new ArrayDeque<>();
+    Deque<SamService> eager = new ArrayDeque<>();
+    for (int i = 0; i < COLD_START_ITERATIONS; i++) {
+      lazy.add(newSamService(/*petKeyCacheTtlSeconds=*/ 300));
+      SamService eagerService = newSamService(/*petKeyCacheTtlSeconds=*/ 300);
+      awaitRegistration(eagerService);
+      eager.add(eagerService);
+    }
+
+    Benchmark.Result registeredOnRequest =
+        Benchmark.run(
+            "first submission, registering on request",
+            0,
+            COLD_START_ITERATIONS,
+            () -> {
+              SamService samService = lazy.pop();
+              CompletableFuture<RegistrationState> registration =
+                  samService.startAxonServiceAccountRegistration();
+              registration.get(10, TimeUnit.SECONDS);
+              samService.getPetServiceAccountKey("my-project", "user@test");
+            });
+    Benchmark.Result registeredAtStartup =
+        Benchmark.run(
+            "first submission, registered at startup",
+            0,
+            COLD_START_ITERATIONS,
+            () -> eager.pop().getPetServiceAccountKey("my-project", "user@test"));
+
+    assertTrue(
+        registeredAtStartup.p50Millis() < registeredOnRequest.p50Millis(),
+        "Expected eager registration to be faster: %s vs %s"
+            .formatted(registeredAtStartup, registeredOnRequest));
+  }
+}
@@ -0,0 +1,166 @@
+package bio.terra.axonserver.service.iam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import bio.terra.axonserver.app.configuration.HttpClientConfiguration;
+import bio.terra.axonserver.app.configuration.SamConfiguration;
+import bio.terra.axonserver.service.http.HttpTransportFactory;
+import bio.terra.axonserver.testutils.StubHttpServer;
+import bio.terra.common.iam.BearerToken;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Caching of user info and pet service account emails, against a stub Sam. */
+public class SamServiceIdentityCacheTest {
+  private static final BearerToken USER = new BearerToken("user-token");
+
+  private final AtomicInteger userInfoCalls = new AtomicInteger();
+  private final AtomicInteger petEmailCalls = new AtomicInteger();
+
+  private StubHttpServer sam;
+  private HttpTransportFactory httpTransportFactory;
+  private SamService samService;
+
+  private static void sleep() {
+    try {
+      // Slow enough for concurrent lookups to overlap.
+      Thread.sleep(100);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    sam =
+        StubHttpServer.start()
+            .handle(
+                "/register/user/v2/self/info",
+                exchange -> {
+                  userInfoCalls.incrementAndGet();
+                  sleep();
+                  StubHttpServer.sendJson(
+                      exchange,
+                      200,
+                      "{\"userSubjectId\": \"1\", \"userEmail\": \"user@test\","
+                          + " \"enabled\": true}");
+                })
+            .handle(
+                "/api/google/v1/user/petServiceAccount/",
+                exchange -> {
+                  petEmailCalls.incrementAndGet();
+                  sleep();
+                  StubHttpServer.sendJson(exchange, 200, "\"pet@my-project.iam\"");
+                });
+    httpTransportFactory = new HttpTransportFactory(new HttpClientConfiguration(2, 30, 5, 5, 5));
+    samService =
+        new SamService(
+            new SamConfiguration(
+                sam.getBaseUrl(),
+                "resource-id",
+                100,
+                600,
+                60,
+                3600,
+                300,
+                100,
+                600,
+                30,
+                /*registerAxonServiceAccount=*/ false,
+                /*identityCacheTtlSeconds=*/ 600,
+                /*identityCacheMaxSize=*/ 100),
+            httpTransportFactory,
+            mock(AxonServiceAccountTokenProvider.class));
+  }
+
+  @AfterEach
+  void tearDown() {
+    samService.shutdown();
+    httpTransportFactory.shutdown();
+    sam.close();
+  }
+
+  @Test
+  void identityLookups_concurrentCallersShareOneCall() throws Exception {
+    ExecutorService callers = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> emails = new ArrayList<>();
+      List<Future<String>> petEmails = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        emails.add(callers.submit(() -> samService.getUserStatusInfo(USER).getUserEmail()));
+        petEmails.add(callers.submit(() -> samService.getPetServiceAccount("my-project", USER)));
+      }
+      for (int i = 0; i < 8; i++) {
+        assertEquals("user@test", emails.get(i).get());
+        assertEquals("pet@my-project.iam", petEmails.get(i).get());
+      }
+    } finally {
+      callers.shutdownNow();
+    }
+    assertEquals(1, userInfoCalls.get());
+    assertEquals(1, petEmailCalls.get());
+  }
+
+  @Test
+  void identityLookups_cachedPerCallerAndProject() {
+    samService.getPetServiceAccount("my-project", USER);
+    samService.getPetServiceAccount("other-project", USER);
+    samService.getPetServiceAccount("my-project", new BearerToken("other-token"));
+    samService.getPetServiceAccount("my-project", USER);
+    assertEquals(3, petEmailCalls.get());
+
+    samService.getUserStatusInfo(USER);
+    samService.getUserStatusInfo(new BearerToken("other-token"));
+    samService.getUserStatusInfo(USER);
+    assertEquals(2, userInfoCalls.get());
+  }
+
+  /** A JWT that expires at the given time. Only its payload is read, so it is left unsigned. */
+  private static BearerToken jwt(Instant expiresAt) {
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    String payload = "{\"sub\": \"user\", \"exp\": %d}".formatted(expiresAt.getEpochSecond());
+    return new BearerToken(
+        encoder.encodeToString("{\"alg\": \"none\"}".getBytes(StandardCharsets.UTF_8))
+            + "."
+            + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+            + ".signature");
+  }
+
+  @Test
+  void identityLookups_opaqueToken_cachedForTtl() {
+    // Nothing is known about when an opaque token expires, so only the identity TTL bounds it.
+    samService.getUserStatusInfo(USER);
+    samService.getPetServiceAccount("my-project", USER);
+    samService.getUserStatusInfo(USER);
+    samService.getPetServiceAccount("my-project", USER);
+    assertEquals(1, userInfoCalls.get());
+    assertEquals(1, petEmailCalls.get());
+  }
+
+  @Test
+  void identityLookups_expireWithToken() throws Exception {
+    BearerToken expiring = jwt(Instant.now().plusSeconds(1));
+    samService.getUserStatusInfo(expiring);
+    samService.getPetServiceAccount("my-project", expiring);
+    samService.getUserStatusInfo(expiring);
+    assertEquals(1, userInfoCalls.get());
+
+    // The identity TTL is ten minutes, but the token has expired.
+    Thread.sleep(1500);
+    samService.getUserStatusInfo(expiring);
+    samService.getPetServiceAccount("my-project", expiring);
+    assertEquals(2, userInfoCalls.get());
+    assertEquals(2, petEmailCalls.get());
+  }
+}
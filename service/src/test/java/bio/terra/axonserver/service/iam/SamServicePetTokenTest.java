@@ -0,0 +1,179 @@
+package bio.terra.axonserver.service.iam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import bio.terra.axonserver.app.configuration.HttpClientConfiguration;
+import bio.terra.axonserver.app.configuration.SamConfiguration;
+import bio.terra.axonserver.service.http.HttpTransportFactory;
+import bio.terra.axonserver.testutils.StubHttpServer;
+import bio.terra.common.iam.BearerToken;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Caching of pet service account tokens, against a stub Sam. */
+public class SamServicePetTokenTest {
+  private static final String PROJECT_ID = "my-project";
+  private static final BearerToken USER = new BearerToken("user-token");
+
+  private final AtomicInteger samCalls = new AtomicInteger();
+  /** Whether the stub Sam keeps returning its first token, as Sam does while it caches one. */
+  private volatile boolean samReturnsCachedToken;
+
+  private StubHttpServer server;
+  private HttpTransportFactory httpTransportFactory;
+  private SamService samService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server =
+        StubHttpServer.start()
+            .handle(
+                "/register/user/v2/self/info",
+                exchange -> {
+                  // Tokens starting "user-token" all belong to the same user.
+                  String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+                  String email =
+                      authorization.startsWith("Bearer user") ? "user@test" : "other@test";
+                  StubHttpServer.sendJson(
+                      exchange,
+                      200,
+                      "{\"userSubjectId\": \"1\", \"userEmail\": \"%s\", \"enabled\": true}"
+                          .formatted(email));
+                })
+            .handle(
+                "/api/google/v1/user/petServiceAccount/",
+                exchange -> {
+                  int call = samCalls.incrementAndGet();
+                  try {
+                    // Slow enough for concurrent misses to overlap.
+                    Thread.sleep(100);
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  int version = samReturnsCachedToken ? 1 : call;
+                  StubHttpServer.sendJson(exchange, 200, "\"pet-token-" + version + "\"");
+                });
+    httpTransportFactory = new HttpTransportFactory(new HttpClientConfiguration(2, 30, 5, 5, 5));
+    samService = newSamService(/*petTokenTtlSeconds=*/ 900);
+  }
+
+  private SamService newSamService(int petTokenTtlSeconds) {
+    return new SamService(
+        new SamConfiguration(
+            server.getBaseUrl(),
+            "resource-id",
+            100,
+            /*petTokenRefreshAheadSeconds=*/ 600,
+            /*petTokenExpiryMarginSeconds=*/ 60,
+            petTokenTtlSeconds,
+            /*petKeyCacheTtlSeconds=*/ 300,
+            /*petKeyCacheMaxSize=*/ 100,
+            /*axonTokenRefreshAheadSeconds=*/ 600,
+            /*axonTokenRetrySeconds=*/ 30,
+            /*registerAxonServiceAccount=*/ false,
+            /*identityCacheTtlSeconds=*/ 600,
+            /*identityCacheMaxSize=*/ 100),
+        httpTransportFactory,
+        mock(AxonServiceAccountTokenProvider.class));
+  }
+
+  @AfterEach
+  void tearDown() {
+    samService.shutdown();
+    httpTransportFactory.shutdown();
+    server.close();
+  }
+
+  @Test
+  void getPetToken_trustedForConfiguredTtl() {
+    Instant before = Instant.now();
+    PetToken token = samService.getPetToken(PROJECT_ID, USER);
+    assertEquals("pet-token-1", token.accessToken());
+    assertFalse(token.expiresAt().isBefore(before.plusSeconds(900)));
+    assertTrue(token.expiresAt().isBefore(Instant.now().plusSeconds(901)));
+    // Only Sam is called, for the user's email and the token; the expiry is not looked up.
+    assertEquals(2, server.getRequestCount());
+  }
+
+  @Test
+  void getPetAccessToken_pollingWorkload_callsSamOnce() throws Exception {
+    ExecutorService pollers = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> tokens = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        tokens.add(pollers.submit(() -> samService.getPetAccessToken(PROJECT_ID, USER)));
+      }
+      for (Future<String> token : tokens) {
+        assertEquals("pet-token-1", token.get());
+      }
+    } finally {
+      pollers.shutdownNow();
+    }
+    // Without the cache, every poll would call Sam.
+    assertEquals(1, samCalls.get());
+
+    samService.getPetAccessToken("other-project", USER);
+    samService.getPetAccessToken(PROJECT_ID, new BearerToken("other-user-token"));
+    assertEquals(3, samCalls.get());
+  }
+
+  @Test
+  void getPetAccessToken_sameUserNewAccessToken_sharesEntry() {
+    assertEquals("pet-token-1", samService.getPetAccessToken(PROJECT_ID, USER));
+    assertEquals(
+        "pet-token-1", samService.getPetAccessToken(PROJECT_ID, new BearerToken("user-token-2")));
+    assertEquals(1, samCalls.get());
+  }
+
+  @Test
+  void getPetAccessToken_nearExpiry_refreshesInBackground() throws Exception {
+    // Tokens are assumed to live for less than the refresh window, so each one is refreshed.
+    samService.shutdown();
+    samService = newSamService(/*petTokenTtlSeconds=*/ 300);
+    assertEquals("pet-token-1", samService.getPetAccessToken(PROJECT_ID, USER));
+
+    // Within the refresh window: the cached token is returned while a new one is fetched.
+    assertEquals("pet-token-1", samService.getPetAccessToken(PROJECT_ID, USER));
+    Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+    while (!samService.getPetAccessToken(PROJECT_ID, USER).equals("pet-token-2")) {
+      assertTrue(Instant.now().isBefore(deadline), "pet token was not refreshed");
+      Thread.sleep(20);
+    }
+  }
+
+  @Test
+  void refreshPetToken_bypassesCachedToken() {
+    assertEquals("pet-token-1", samService.getPetAccessToken(PROJECT_ID, USER));
+
+    assertEquals(
+        "pet-token-2", samService.refreshPetToken(PROJECT_ID, USER, "pet-token-1").accessToken());
+    assertEquals("pet-token-2", samService.getPetAccessToken(PROJECT_ID, USER));
+    // The stale token was already replaced, so a second refresh of it does not call Sam.
+    assertEquals(
+        "pet-token-2", samService.refreshPetToken(PROJECT_ID, USER, "pet-token-1").accessToken());
+    assertEquals(2, samCalls.get());
+  }
+
+  @Test
+  void refreshPetToken_samReturnsRejectedToken_dropsIt() {
+    samReturnsCachedToken = true;
+    assertEquals("pet-token-1", samService.getPetAccessToken(PROJECT_ID, USER));
+    assertEquals(
+        "pet-token-1", samService.refreshPetToken(PROJECT_ID, USER, "pet-token-1").accessToken());
+    // The rejected token is not cached, so the next caller asks Sam again.
+    samService.getPetAccessToken(PROJECT_ID, USER);
+    assertEquals(3, samCalls.get());
+  }
+}
@@ -0,0 +1,124 @@
+package bio.terra.axonserver.service.iam;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import bio.terra.axonserver.app.configuration.HttpClientConfiguration;
+import bio.terra.axonserver.app.configuration.SamConfiguration;
+import bio.terra.axonserver.service.exception.ServiceUnavailableException;
+import bio.terra.axonserver.service.http.HttpTransportFactory;
+import bio.terra.axonserver.service.iam.SamService.RegistrationState;
+import bio.terra.axonserver.testutils.StubHttpServer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Startup registration of the Axon service account, against a stub Sam. */
+public class SamServiceRegistrationTest {
+  private final AtomicInteger statusChecks = new AtomicInteger();
+  private final AtomicInteger registrations = new AtomicInteger();
+
+  private StubHttpServer sam;
+  private HttpTransportFactory httpTransportFactory;
+  private AxonServiceAccountTokenProvider axonTokenProvider;
+  private SamService samService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    sam =
+        StubHttpServer.start()
+            .handle(
+                "/register/user/v2/self/info",
+                exchange -> {
+                  statusChecks.incrementAndGet();
+                  StubHttpServer.sendJson(exchange, 404, "{\"message\": \"not found\"}");
+                })
+            .handle(
+                "/register/user/v2/self",
+                exchange -> {
+                  registrations.incrementAndGet();
+                  StubHttpServer.sendJson(
+                      exchange,
+                      201,
+                      "{\"userInfo\": {\"userSubjectId\": \"1\", \"userEmail\": \"axon@test\"},"
+                          + " \"enabled\": {\"ldap\": true, \"allUsersGroup\": true,"
+                          + " \"google\": true}}");
+                });
+    httpTransportFactory = new HttpTransportFactory(new HttpClientConfiguration(2, 30, 5, 5, 5));
+    axonTokenProvider = mock(AxonServiceAccountTokenProvider.class);
+    when(axonTokenProvider.getAccessToken()).thenReturn("axon-token");
+  }
+
+  @AfterEach
+  void tearDown() {
+    samService.shutdown();
+    httpTransportFactory.shutdown();
+    sam.close();
+  }
+
+  private SamService newSamService(boolean registerAxonServiceAccount) {
+    return new SamService(
+        new SamConfiguration(
+            sam.getBaseUrl(),
+            "resource-id",
+            100,
+            600,
+            60,
+            3600,
+            300,
+            100,
+            600,
+            30,
+            registerAxonServiceAccount,
+            600,
+            100),
+        httpTransportFactory,
+        axonTokenProvider);
+  }
+
+  @Test
+  void startRegistration_registersOnce() throws Exception {
+    when(axonTokenProvider.hasCredentials()).thenReturn(true);
+    samService = newSamService(true);
+    assertEquals(RegistrationState.PENDING, samService.getAxonServiceAccountRegistrationState());
+
+    CompletableFuture<RegistrationState> first = samService.startAxonServiceAccountRegistration();
+    CompletableFuture<RegistrationState> second = samService.startAxonServiceAccountRegistration();
+    assertSame(first, second);
+    assertEquals(RegistrationState.REGISTERED, first.get(10, TimeUnit.SECONDS));
+    assertEquals(1, statusChecks.get());
+    assertEquals(1, registrations.get());
+  }
+
+  @Test
+  void startRegistration_noCredentials_skipped() throws Exception {
+    when(axonTokenProvider.hasCredentials()).thenReturn(false);
+    samService = newSamService(true);
+    assertEquals(
+        RegistrationState.SKIPPED,
+        samService.startAxonServiceAccountRegistration().get(10, TimeUnit.SECONDS));
+    assertEquals(0, statusChecks.get());
+  }
+
+  @Test
+  void getPetServiceAccountKey_beforeRegistration_unavailable() {
+    samService = newSamService(true);
+    ServiceUnavailableException e =
+        assertThrows(
+            ServiceUnavailableException.class,
+            () -> samService.getPetServiceAccountKey("my-project", "user@test"));
+    assertEquals(30, e.getRetryAfterSeconds());
+  }
+
+  @Test
+  void registrationDisabled_readyImmediately() {
+    samService = newSamService(false);
+    assertEquals(RegistrationState.SKIPPED, samService.getAxonServiceAccountRegistrationState());
+  }
+}
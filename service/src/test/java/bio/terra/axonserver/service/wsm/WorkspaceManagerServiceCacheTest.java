@@ -0,0 +1,173 @@
+package bio.terra.axonserver.service.wsm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.axonserver.app.configuration.HttpClientConfiguration;
+import bio.terra.axonserver.app.configuration.WsmConfiguration;
+import bio.terra.axonserver.service.http.HttpTransportFactory;
+import bio.terra.axonserver.testutils.StubHttpServer;
+import bio.terra.common.exception.ForbiddenException;
+import bio.terra.workspace.model.IamRole;
+import bio.terra.workspace.model.ResourceDescription;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.ws.rs.NotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Caching of WSM lookups, against a stub Workspace Manager. */
+public class WorkspaceManagerServiceCacheTest {
+  private static final String TOKEN = "token";
+  private static final String DENIED_TOKEN = "denied-token";
+  private final UUID workspaceId = UUID.randomUUID();
+  private final UUID resourceId = UUID.randomUUID();
+  private final UUID missingResourceId = UUID.randomUUID();
+  private final AtomicBoolean revoked = new AtomicBoolean();
+
+  private StubHttpServer wsm;
+  private HttpTransportFactory httpTransportFactory;
+  private WorkspaceManagerService wsmService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    String resourceJson =
+        """
+        {"metadata": {"workspaceId": "%s", "resourceId": "%s", "name": "bucket",
+          "resourceType": "GCS_BUCKET"},
+         "resourceAttributes": {"gcpGcsBucket": {"bucketName": "my-bucket"}}}
+        """
+            .formatted(workspaceId, resourceId);
+    String workspaceJson =
+        """
+        {"id": "%s", "highestRole": "WRITER", "gcpContext": {"projectId": "my-project"}}
+        """
+            .formatted(workspaceId);
+    wsm =
+        StubHttpServer.start()
+            .handle(
+                "/api/workspaces/v1/",
+                exchange -> {
+                  String path = exchange.getRequestURI().getPath();
+                  String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+                  if (authorization.endsWith(DENIED_TOKEN) || revoked.get()) {
+                    StubHttpServer.sendJson(exchange, 403, "{\"message\": \"forbidden\"}");
+                  } else if (path.endsWith(missingResourceId.toString())) {
+                    StubHttpServer.sendJson(exchange, 404, "{\"message\": \"not found\"}");
+                  } else if (path.contains("/resources/")) {
+                    StubHttpServer.sendJson(exchange, 200, resourceJson);
+                  } else {
+                    StubHttpServer.sendJson(exchange, 200, workspaceJson);
+                  }
+                });
+    httpTransportFactory = new HttpTransportFactory(new HttpClientConfiguration(2, 30, 5, 5, 5));
+    wsmService =
+        new WorkspaceManagerService(
+            new WsmConfiguration(wsm.getBaseUrl(), 60, 60, 100, 60, 60, 100, 3600, 100, List.of()),
+            httpTransportFactory);
+  }
+
+  @AfterEach
+  void tearDown() {
+    httpTransportFactory.shutdown();
+    wsm.close();
+  }
+
+  @Test
+  void getResource_cachedPerCaller() {
+    ResourceDescription resource = wsmService.getResource(workspaceId, resourceId, TOKEN);
+    assertEquals("my-bucket", resource.getResourceAttributes().getGcpGcsBucket().getBucketName());
+    // A hit re-checks the caller's access, which is then cached too.
+    wsmService.getResource(workspaceId, resourceId, TOKEN);
+    wsmService.getResource(workspaceId, resourceId, TOKEN);
+    assertEquals(2, wsm.getRequestCount());
+
+    // A different caller is authorized by WSM separately.
+    wsmService.getResource(workspaceId, resourceId, "other-token");
+    assertEquals(3, wsm.getRequestCount());
+  }
+
+  @Test
+  void getResource_accessRevokedWhileCached_notFound() {
+    // Resources are cached for a minute; access decisions are not cached at all.
+    wsmService =
+        new WorkspaceManagerService(
+            new WsmConfiguration(wsm.getBaseUrl(), 60, 60, 100, 0, 0, 100, 3600, 100, List.of()),
+            httpTransportFactory);
+    wsmService.getResource(workspaceId, resourceId, TOKEN);
+
+    revoked.set(true);
+    assertThrows(
+        NotFoundException.class, () -> wsmService.getResource(workspaceId, resourceId, TOKEN));
+    // The refused resource was dropped, so it is fetched again once access is restored.
+    revoked.set(false);
+    wsmService.getResource(workspaceId, resourceId, TOKEN);
+    assertEquals(3, wsm.getRequestCount());
+  }
+
+  @Test
+  void getResource_notFoundIsCached() {
+    assertThrows(
+        NotFoundException.class,
+        () -> wsmService.getResource(workspaceId, missingResourceId, TOKEN));
+    assertThrows(
+        NotFoundException.class,
+        () -> wsmService.getResource(workspaceId, missingResourceId, TOKEN));
+    assertEquals(1, wsm.getRequestCount());
+  }
+
+  @Test
+  void accessChecks_answeredFromOneEntry() {
+    wsmService.checkWorkspaceReadAccess(workspaceId, TOKEN);
+    wsmService.checkWorkspaceWriteAccess(workspaceId, TOKEN);
+    assertEquals(IamRole.WRITER, wsmService.getHighestRole(workspaceId, null, TOKEN));
+    assertThrows(
+        ForbiddenException.class,
+        () -> wsmService.getHighestRole(workspaceId, IamRole.OWNER, TOKEN));
+    assertEquals(1, wsm.getRequestCount());
+  }
+
+  @Test
+  void accessChecks_forbiddenIsCached() {
+    assertThrows(
+        ForbiddenException.class,
+        () -> wsmService.checkWorkspaceReadAccess(workspaceId, DENIED_TOKEN));
+    assertThrows(
+        ForbiddenException.class,
+        () -> wsmService.checkWorkspaceReadAccess(workspaceId, DENIED_TOKEN));
+    assertEquals(1, wsm.getRequestCount());
+  }
+
+  @Test
+  void invalidateWorkspace_dropsEntriesForAllCallers() {
+    wsmService.checkWorkspaceReadAccess(workspaceId, TOKEN);
+    wsmService.getResource(workspaceId, resourceId, TOKEN);
+    assertEquals(2, wsm.getRequestCount());
+
+    wsmService.invalidateWorkspace(workspaceId);
+    wsmService.checkWorkspaceReadAccess(workspaceId, TOKEN);
+    wsmService.getResource(workspaceId, resourceId, TOKEN);
+    assertEquals(4, wsm.getRequestCount());
+  }
+
+  @Test
+  void getGcpContext_reusesAccessCheckResponse() {
+    assertEquals("my-project", wsmService.getGcpContext(workspaceId, TOKEN).getProjectId());
+    assertEquals("my-project", wsmService.getGcpContext(workspaceId, TOKEN).getProjectId());
+    assertEquals(1, wsm.getRequestCount());
+
+    // Another caller's access is still checked, but the context is shared.
+    wsmService.getGcpContext(workspaceId, "other-token");
+    assertEquals(2, wsm.getRequestCount());
+  }
+
+  @Test
+  void getGcpContext_preloadedContextStillChecksAccess() {
+    assertEquals(1, wsmService.preloadGcpContexts(List.of(workspaceId), "axon-token"));
+    assertThrows(
+        ForbiddenException.class, () -> wsmService.getGcpContext(workspaceId, DENIED_TOKEN));
+    assertEquals(2, wsm.getRequestCount());
+  }
+}
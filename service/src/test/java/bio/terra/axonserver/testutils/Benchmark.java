@@ -0,0 +1,56 @@
+package bio.terra.axonserver.testutils;
+
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Minimal latency benchmark harness for tests tagged "benchmark". Runs a task sequentially and
+ * reports percentiles; run the benchmark Gradle task to see the output.
+ */
+public class Benchmark {
+  private static final Logger logger = LoggerFactory.getLogger(Benchmark.class);
+
+  @FunctionalInterface
+  public interface Task {
+    void run() throws Exception;
+  }
+
+  public record Result(
+      String name, int iterations, double meanMillis, double p50Millis, double p99Millis) {
+    @Override
+    public String toString() {
+      return "%s: %d iterations, mean %.3f ms, p50 %.3f ms, p99 %.3f ms"
+          .formatted(name, iterations, meanMillis, p50Millis, p99Millis);
+    }
+  }
+
+  private Benchmark() {}
+
+  public static Result run(String name, int warmupIterations, int iterations, Task task)
+      throws Exception {
+    for (int i = 0; i < warmupIterations; i++) {
+      task.run();
+    }
+    long[] samples = new long[iterations];
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      task.run();
+      samples[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(samples);
+    Result result =
+        new Result(
+            name,
+            iterations,
+            toMillis(Arrays.stream(samples).average().orElse(0)),
+            toMillis(samples[iterations / 2]),
+            toMillis(samples[Math.min(iterations - 1, (int) Math.ceil(iterations * 0.99) - 1)]));
+    logger.info("Benchmark {}", result);
+    return result;
+  }
+
+  private static double toMillis(double nanos) {
+    return nanos / 1_000_000.0;
+  }
+}
@@ -0,0 +1,201 @@
+package bio.terra.axonserver.testutils;
+
+import bio.terra.axonserver.service.http.DownstreamCalls;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the GCS JSON API, serving object listings, metadata, batches of metadata
+ * requests and downloads from memory. Each put of an object creates a new generation, and only the
+ * latest is kept. Every request waits a fixed latency first.
+ */
+public class FakeGcsServer implements AutoCloseable {
+  private static final String API_PATH = "/storage/v1/b/";
+  private static final String DOWNLOAD_PATH = "/download" + API_PATH;
+  private static final String BATCH_PATH = "/batch/storage/v1";
+  private static final String BATCH_BOUNDARY = "batch_response";
+  private static final Pattern BATCH_REQUEST_LINE =
+      Pattern.compile("^GET (\\S+) HTTP/1\\.1", Pattern.MULTILINE);
+
+  private final StubHttpServer server;
+  private final long latencyMillis;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private record StoredObject(byte[] content, long generation) {}
+
+  /** Objects, keyed by "bucket/name". */
+  private final Map<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+
+  private final AtomicLong generations = new AtomicLong();
+
+  private FakeGcsServer(long latencyMillis) throws IOException {
+    this.latencyMillis = latencyMillis;
+    this.server = StubHttpServer.start().handle("/", this::handle);
+  }
+
+  public static FakeGcsServer start(long latencyMillis) throws IOException {
+    return new FakeGcsServer(latencyMillis);
+  }
+
+  public FakeGcsServer put(String bucket, String name, byte[] content) {
+    objects.put(bucket + "/" + name, new StoredObject(content, generations.incrementAndGet()));
+    return this;
+  }
+
+  /** A client for this server, on the same transport as the server's clients. */
+  public Storage storage() {
+    return StorageOptions.newBuilder()
+        .setHost(server.getBaseUrl())
+        .setTransportOptions(DownstreamCalls.GCS_TRANSPORT_OPTIONS)
+        .setProjectId("fake-project")
+        .setCredentials(NoCredentials.getInstance())
+        .build()
+        .getService();
+  }
+
+  public int getRequestCount() {
+    return server.getRequestCount();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      Thread.sleep(latencyMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    String path = exchange.getRequestURI().getRawPath();
+    if (path.equals(BATCH_PATH)) {
+      batch(exchange);
+      return;
+    }
+    Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    boolean download = path.startsWith(DOWNLOAD_PATH);
+    String rest = path.substring((download ? DOWNLOAD_PATH : API_PATH).length());
+    String[] bucketAndObject = rest.split("/o/?", 2);
+    String bucket = decode(bucketAndObject[0]);
+    String name = bucketAndObject.length > 1 ? decode(bucketAndObject[1]) : "";
+
+    if (name.isEmpty()) {
+      list(exchange, bucket, query.getOrDefault("prefix", ""));
+      return;
+    }
+    StoredObject object = objects.get(bucket + "/" + name);
+    String generation = query.get("generation");
+    if (object == null
+        || (generation != null && Long.parseLong(generation) != object.generation())) {
+      StubHttpServer.sendJson(exchange, 404, "{\"error\": {\"code\": 404}}");
+    } else if (download || "media".equals(query.get("alt"))) {
+      byte[] content = object.content();
+      exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+      exchange.sendResponseHeaders(200, content.length == 0 ? -1 : content.length);
+      try (OutputStream body = exchange.getResponseBody()) {
+        body.write(content);
+      }
+    } else {
+      StubHttpServer.sendJson(
+          exchange, 200, objectMapper.writeValueAsString(metadata(bucket, name, object)));
+    }
+  }
+
+  /** Answer a batch of metadata requests with one multipart response, in request order. */
+  private void batch(HttpExchange exchange) throws IOException {
+    String requests = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    StringBuilder responses = new StringBuilder();
+    Matcher requestLine = BATCH_REQUEST_LINE.matcher(requests);
+    for (int id = 1; requestLine.find(); id++) {
+      String[] bucketAndObject =
+          URI.create(requestLine.group(1))
+              .getRawPath()
+              .substring(API_PATH.length())
+              .split("/o/", 2);
+      String bucket = decode(bucketAndObject[0]);
+      String name = decode(bucketAndObject[1]);
+      StoredObject object = objects.get(bucket + "/" + name);
+      String json =
+          object == null
+              ? "{\"error\": {\"code\": 404}}"
+              : objectMapper.writeValueAsString(metadata(bucket, name, object));
+      responses
+          .append("--" + BATCH_BOUNDARY + "\r\n")
+          .append("Content-Type: application/http\r\n")
+          .append("Content-ID: <response-" + id + ">\r\n\r\n")
+          .append(object == null ? "HTTP/1.1 404 Not Found\r\n" : "HTTP/1.1 200 OK\r\n")
+          .append("Content-Type: application/json; charset=UTF-8\r\n")
+          .append("Content-Length: " + json.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n")
+          .append(json + "\r\n");
+    }
+    responses.append("--" + BATCH_BOUNDARY + "--\r\n");
+    byte[] body = responses.toString().getBytes(StandardCharsets.UTF_8);
+    exchange
+        .getResponseHeaders()
+        .add("Content-Type", "multipart/mixed; boundary=" + BATCH_BOUNDARY);
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      responseBody.write(body);
+    }
+  }
+
+  private void list(HttpExchange exchange, String bucket, String prefix) throws IOException {
+    List<Map<String, String>> items =
+        objects.entrySet().stream()
+            .filter(entry -> entry.getKey().startsWith(bucket + "/" + prefix))
+            .map(
+                entry ->
+                    metadata(
+                        bucket, entry.getKey().substring(bucket.length() + 1), entry.getValue()))
+            .toList();
+    StubHttpServer.sendJson(
+        exchange,
+        200,
+        objectMapper.writeValueAsString(Map.of("kind", "storage#objects", "items", items)));
+  }
+
+  private static Map<String, String> metadata(String bucket, String name, StoredObject object) {
+    return Map.of(
+        "kind",
+        "storage#object",
+        "bucket",
+        bucket,
+        "name",
+        name,
+        "generation",
+        Long.toString(object.generation()),
+        "size",
+        Integer.toString(object.content().length));
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) {
+    Map<String, String> query = new HashMap<>();
+    if (rawQuery != null) {
+      for (String param : rawQuery.split("&")) {
+        String[] keyAndValue = param.split("=", 2);
+        query.put(decode(keyAndValue[0]), keyAndValue.length > 1 ? decode(keyAndValue[1]) : "");
+      }
+    }
+    return query;
+  }
+
+  private static String decode(String value) {
+    return URLDecoder.decode(value, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void close() {
+    server.close();
+  }
+}
@@ -0,0 +1,50 @@
+package bio.terra.axonserver.testutils;
+
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseRequest;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseResult;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.Ready;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.Request;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WDL worker process standing in for Womtool in tests. Every workflow is valid, with no inputs or
+ * outputs, except those whose main WDL is named:
+ *
+ * <ul>
+ *   <li>{@value #HANG}: never answered, until the worker is killed or its stdin is closed
+ *   <li>{@value #CRASH}: the worker exits without answering
+ *   <li>{@value #FAIL}: the worker reports that it could not parse the workflow
+ * </ul>
+ */
+public class FakeWdlWorker {
+  public static final String HANG = "hang.wdl";
+  public static final String CRASH = "crash.wdl";
+  public static final String FAIL = "fail.wdl";
+
+  private static final ParseResult VALID = new ParseResult(List.of(), Map.of(), Map.of(), 0);
+
+  public static void main(String[] args) throws IOException {
+    DataOutputStream out = new DataOutputStream(System.out);
+    DataInputStream in = new DataInputStream(System.in);
+    WdlWorkerProtocol.writeReady(out, new Ready(-1, -1));
+    for (Request request = WdlWorkerProtocol.readRequest(in);
+        request != null;
+        request = WdlWorkerProtocol.readRequest(in)) {
+      if (!(request instanceof ParseRequest parse)) {
+        WdlWorkerProtocol.writePong(out);
+        continue;
+      }
+      switch (parse.mainPath()) {
+        case HANG -> in.readAllBytes();
+        case CRASH -> System.exit(1);
+        case FAIL -> WdlWorkerProtocol.writeFailure(out, "Womtool threw");
+        default -> WdlWorkerProtocol.writeResult(out, VALID);
+      }
+    }
+  }
+}
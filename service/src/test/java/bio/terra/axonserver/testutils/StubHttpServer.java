@@ -0,0 +1,73 @@
+package bio.terra.axonserver.testutils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Local HTTP server standing in for a downstream service in tests and benchmarks. */
+public class StubHttpServer implements AutoCloseable {
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newFixedThreadPool(8);
+  private final AtomicInteger requestCount = new AtomicInteger();
+
+  private StubHttpServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  public static StubHttpServer start() throws IOException {
+    return new StubHttpServer();
+  }
+
+  /** Handle requests under a path prefix. */
+  public StubHttpServer handle(String pathPrefix, HttpHandler handler) {
+    server.createContext(
+        pathPrefix,
+        exchange -> {
+          requestCount.incrementAndGet();
+          try {
+            handler.handle(exchange);
+          } finally {
+            exchange.close();
+          }
+        });
+    return this;
+  }
+
+  /** Respond to every request under a path prefix with a fixed JSON body. */
+  public StubHttpServer respondJson(String pathPrefix, String json) {
+    return handle(pathPrefix, exchange -> sendJson(exchange, 200, json));
+  }
+
+  public static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+    byte[] body = json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      responseBody.write(body);
+    }
+  }
+
+  public String getBaseUrl() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  public int getRequestCount() {
+    return requestCount.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,144 @@
+package bio.terra.axonserver.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class RequestMemoTest {
+  private final AtomicInteger lookups = new AtomicInteger();
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private static void startRequest() {
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+  }
+
+  private String lookup(String arg) {
+    return RequestMemo.memoize(
+        "test.lookup", List.of(arg), () -> arg + "-" + lookups.incrementAndGet());
+  }
+
+  @Test
+  void memoize_runsOncePerRequest() {
+    startRequest();
+    assertEquals("a-1", lookup("a"));
+    assertEquals("a-1", lookup("a"));
+    assertEquals("b-2", lookup("b"));
+    assertEquals(2, lookups.get());
+
+    startRequest();
+    assertEquals("a-3", lookup("a"));
+  }
+
+  @Test
+  void memoize_outsideRequest_alwaysRuns() {
+    assertEquals("a-1", lookup("a"));
+    assertEquals("a-2", lookup("a"));
+  }
+
+  @Test
+  void memoize_nullResultIsMemoized() {
+    startRequest();
+    for (int i = 0; i < 2; i++) {
+      assertNull(
+          RequestMemo.memoize(
+              "test.nullable",
+              Arrays.asList("a", null),
+              () -> {
+                lookups.incrementAndGet();
+                return null;
+              }));
+    }
+    assertEquals(1, lookups.get());
+  }
+
+  @Test
+  void memoize_failureIsNotMemoized() {
+    startRequest();
+    for (int i = 0; i < 2; i++) {
+      assertThrows(
+          IllegalStateException.class,
+          () ->
+              RequestMemo.memoize(
+                  "test.failing",
+                  List.of("a"),
+                  () -> {
+                    lookups.incrementAndGet();
+                    throw new IllegalStateException("lookup failed");
+                  }));
+    }
+    assertEquals(2, lookups.get());
+  }
+
+  @Test
+  void memoize_concurrentLookupsShareOneRun() throws Exception {
+    startRequest();
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  // Stages of one request run on other threads with the request's attributes.
+                  RequestContextHolder.setRequestAttributes(request);
+                  return RequestMemo.memoize(
+                      "test.slow",
+                      List.of("a"),
+                      () -> {
+                        started.countDown();
+                        awaitUninterruptibly(release);
+                        return "a-" + lookups.incrementAndGet();
+                      });
+                }));
+      }
+      started.await();
+      release.countDown();
+      for (Future<String> result : results) {
+        assertEquals("a-1", result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, lookups.get());
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  void memoize_nestedLookups() {
+    startRequest();
+    String outer = RequestMemo.memoize("test.outer", List.of("a"), () -> lookup("a") + "!");
+    assertEquals("a-1!", outer);
+    assertEquals("a-1", lookup("a"));
+    assertEquals(1, lookups.get());
+  }
+}
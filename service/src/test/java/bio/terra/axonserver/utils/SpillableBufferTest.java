@@ -0,0 +1,46 @@
+package bio.terra.axonserver.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class SpillableBufferTest {
+  private static final byte[] CONTENT = "workflow main {}\n".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void belowThreshold_staysInMemory() throws IOException {
+    try (SpillableBuffer buffer = new SpillableBuffer(CONTENT.length, "test-")) {
+      buffer.outputStream().write(CONTENT);
+
+      assertFalse(buffer.isSpilled());
+      assertEquals(CONTENT.length, buffer.size());
+      try (InputStream in = buffer.openInputStream()) {
+        assertArrayEquals(CONTENT, in.readAllBytes());
+      }
+    }
+  }
+
+  @Test
+  void aboveThreshold_spillsToDisk() throws IOException {
+    try (SpillableBuffer buffer = new SpillableBuffer(4, "test-")) {
+      OutputStream out = buffer.outputStream();
+      out.write(CONTENT, 0, 3);
+      out.write(CONTENT, 3, CONTENT.length - 3);
+
+      assertTrue(buffer.isSpilled());
+      assertEquals(CONTENT.length, buffer.size());
+      for (int i = 0; i < 2; i++) {
+        try (InputStream in = buffer.openInputStream()) {
+          assertArrayEquals(CONTENT, in.readAllBytes());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package bio.terra.axonserver.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.junit.jupiter.api.Test;
+
+public class ZipUtilsTest {
+  private static byte[] zip(Map<String, byte[]> files) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ZipUtils.writeWdlZip(files, bytes);
+    return bytes.toByteArray();
+  }
+
+  private static Map<String, byte[]> files(String... names) {
+    Map<String, byte[]> files = new LinkedHashMap<>();
+    for (String name : names) {
+      files.put(name, ("task " + name.hashCode() + " {}\n").getBytes(StandardCharsets.UTF_8));
+    }
+    return files;
+  }
+
+  @Test
+  void writeWdlZip_anyOrder_sameBytes() throws IOException {
+    byte[] first = zip(files("main.wdl", "tasks/b.wdl", "tasks/a.wdl"));
+    byte[] second = zip(files("tasks/a.wdl", "main.wdl", "tasks/b.wdl"));
+
+    assertArrayEquals(first, second);
+  }
+
+  @Test
+  void writeWdlZip_entriesInNameOrderAtFixedTime() throws IOException {
+    byte[] zip = zip(files("tasks/b.wdl", "main.wdl", "tasks/a.wdl"));
+
+    List<String> names = new ArrayList<>();
+    try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+      for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+        names.add(entry.getName());
+        assertEquals(LocalDateTime.of(1980, 1, 1, 0, 0), entry.getTimeLocal());
+      }
+    }
+    assertEquals(List.of("main.wdl", "tasks/a.wdl", "tasks/b.wdl"), names);
+  }
+}
@@ -0,0 +1,131 @@
+package bio.terra.axonserver.wdlworker;
+
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseRequest;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseResult;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.Ready;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import cromwell.core.path.DefaultPath;
+import cromwell.core.path.DefaultPathBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zeroturnaround.zip.ZipUtil;
+import womtool.WomtoolMain.SuccessfulTermination;
+import womtool.WomtoolMain.Termination;
+import womtool.inputs.Inputs;
+import womtool.outputs.Outputs;
+
+/** Runs The Broad's Womtool on workflows, in the worker process. */
+class WdlParser {
+  private static final Logger logger = LoggerFactory.getLogger(WdlParser.class);
+
+  private static final String DEPS_DIR_PREFIX = "workflow-deps-";
+  private static final String WARM_UP_WDL = "/womtool/warmup.wdl";
+  private static final Type STRING_MAP_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+
+  /**
+   * Lay out a workflow in a temp dir and run Womtool on it. Womtool's inputs and outputs commands
+   * each build the workflow graph, failing if it is invalid, so no separate validation is run.
+   */
+  ParseResult parse(ParseRequest request) throws IOException {
+    long start = System.nanoTime();
+    long allocatedBefore = allocatedBytes();
+    Path dir =
+        Files.createTempDirectory(
+            DEPS_DIR_PREFIX,
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+    ParseResult result;
+    try {
+      Path localMainWdlPath = dir.resolve(request.mainPath());
+      if (request.dependencies() == null) {
+        Files.createDirectories(localMainWdlPath.getParent());
+        Files.write(localMainWdlPath, request.mainSource());
+      } else {
+        ZipUtil.unpack(new ByteArrayInputStream(request.dependencies()), dir.toFile());
+      }
+      DefaultPath mainWdl = DefaultPathBuilder.build(localMainWdlPath);
+
+      Termination inputs = Inputs.inputsJson(mainWdl, true);
+      if (!(inputs instanceof SuccessfulTermination)) {
+        result = invalid(inputs, allocatedBefore);
+      } else {
+        Termination outputs = Outputs.outputsJson(mainWdl);
+        result =
+            outputs instanceof SuccessfulTermination
+                ? new ParseResult(
+                    List.of(),
+                    fromJson(inputs.stdout().get()),
+                    fromJson(outputs.stdout().get()),
+                    allocatedSince(allocatedBefore))
+                : invalid(outputs, allocatedBefore);
+      }
+    } finally {
+      FileUtils.deleteDirectory(dir.toFile());
+    }
+    logger.info(
+        "Parsed workflow {} in {} ms, valid: {}",
+        request.mainPath(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+        result.errors().isEmpty());
+    return result;
+  }
+
+  /** Parse the bundled sample workflow twice, so Womtool is loaded and compiled. */
+  Ready warmUp() throws IOException {
+    byte[] source;
+    try (InputStream in = WdlParser.class.getResourceAsStream(WARM_UP_WDL)) {
+      if (in == null) {
+        throw new IOException(WARM_UP_WDL + " not found");
+      }
+      source = in.readAllBytes();
+    }
+    ParseRequest request = new ParseRequest("warmup.wdl", source, null);
+    long coldMillis = timeParse(request);
+    long warmMillis = timeParse(request);
+    logger.info("Warmed up Womtool: parsed in {} ms cold, then {} ms warm", coldMillis, warmMillis);
+    return new Ready(coldMillis, warmMillis);
+  }
+
+  private long timeParse(ParseRequest request) throws IOException {
+    long start = System.nanoTime();
+    ParseResult result = parse(request);
+    if (!result.errors().isEmpty()) {
+      logger.warn("Womtool warm-up workflow is invalid: {}", result.errors());
+    }
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+  }
+
+  private static ParseResult invalid(Termination termination, long allocatedBefore) {
+    return new ParseResult(
+        List.of(termination.stderr().get()), null, null, allocatedSince(allocatedBefore));
+  }
+
+  /** Bytes allocated by the current thread so far, or -1 if the JVM does not count them. */
+  private static long allocatedBytes() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+        && bean.isThreadAllocatedMemoryEnabled()) {
+      return bean.getCurrentThreadAllocatedBytes();
+    }
+    return -1;
+  }
+
+  private static long allocatedSince(long allocatedBefore) {
+    return allocatedBefore < 0 ? -1 : allocatedBytes() - allocatedBefore;
+  }
+
+  private static Map<String, String> fromJson(String json) {
+    return new Gson().fromJson(json, STRING_MAP_TYPE);
+  }
+}
@@ -0,0 +1,56 @@
+package bio.terra.axonserver.wdlworker;
+
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseRequest;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.Ready;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.Request;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A WDL worker: a long-lived process started by the server that parses one workflow at a time,
+ * reading requests from stdin and writing answers to stdout. It exits when the server closes its
+ * stdin.
+ *
+ * <p>Usage: {@code WdlWorkerMain [--warm-up]}. With {@code --warm-up}, the worker parses a sample
+ * workflow before reporting that it is ready, so its first request runs warm.
+ */
+public class WdlWorkerMain {
+  public static final String WARM_UP_FLAG = "--warm-up";
+
+  public static void main(String[] args) throws IOException {
+    // Stdout carries the protocol, so anything else printed there, e.g. by a library, goes to
+    // stderr. This must happen before logging starts.
+    DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+    System.setOut(System.err);
+    Logger logger = LoggerFactory.getLogger(WdlWorkerMain.class);
+    DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+
+    WdlParser parser = new WdlParser();
+    WdlWorkerProtocol.writeReady(
+        out, List.of(args).contains(WARM_UP_FLAG) ? parser.warmUp() : new Ready(-1, -1));
+
+    for (Request request = WdlWorkerProtocol.readRequest(in);
+        request != null;
+        request = WdlWorkerProtocol.readRequest(in)) {
+      if (request instanceof ParseRequest parse) {
+        try {
+          WdlWorkerProtocol.writeResult(out, parser.parse(parse));
+        } catch (IOException | RuntimeException e) {
+          logger.error("Error parsing workflow {}", parse.mainPath(), e);
+          WdlWorkerProtocol.writeFailure(out, "Error parsing workflow: " + e.getMessage());
+        }
+      } else {
+        WdlWorkerProtocol.writePong(out);
+      }
+    }
+  }
+}
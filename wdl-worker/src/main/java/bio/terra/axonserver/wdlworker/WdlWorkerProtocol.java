@@ -0,0 +1,221 @@
+package bio.terra.axonserver.wdlworker;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Frames exchanged between the server and a WDL worker over the worker's stdin and stdout. Once
+ * started, a worker writes a {@link Ready} frame, then answers each request in the order it was
+ * sent. Strings and byte arrays are length-prefixed, so a frame of any size is read without
+ * scanning for a delimiter.
+ *
+ * <p>This class has no dependencies, so the server can use it without loading Womtool.
+ */
+public final class WdlWorkerProtocol {
+  private static final byte PING = 1;
+  private static final byte PARSE = 2;
+
+  private static final byte READY = 1;
+  private static final byte PONG = 2;
+  private static final byte PARSED = 3;
+  private static final byte FAILED = 4;
+
+  private WdlWorkerProtocol() {}
+
+  /** A request to a worker. */
+  public sealed interface Request permits Ping, ParseRequest {}
+
+  /** Checks that a worker is still answering. */
+  public record Ping() implements Request {}
+
+  /**
+   * Parse a workflow.
+   *
+   * @param mainPath path of the main WDL, relative to the root of the dependencies
+   * @param mainSource content of the main WDL
+   * @param dependencies zip of the main WDL and the files it imports, or null if it imports none
+   */
+  public record ParseRequest(String mainPath, byte[] mainSource, @Nullable byte[] dependencies)
+      implements Request {}
+
+  /**
+   * What Womtool reported about a workflow.
+   *
+   * @param errors why the workflow is invalid, or empty if it is valid
+   * @param inputs type of each input, or null if the workflow is invalid
+   * @param outputs type of each output, or null if the workflow is invalid
+   * @param allocatedBytes heap allocated by the parse, or -1 if the JVM does not count it
+   */
+  public record ParseResult(
+      List<String> errors,
+      @Nullable Map<String, String> inputs,
+      @Nullable Map<String, String> outputs,
+      long allocatedBytes) {}
+
+  /**
+   * Sent once a worker has started and can take requests.
+   *
+   * @param coldParseMillis time of the worker's first parse of its sample workflow, or -1 if it did
+   *     not warm up
+   * @param warmParseMillis time of its second parse of the sample workflow, or -1
+   */
+  public record Ready(long coldParseMillis, long warmParseMillis) {}
+
+  /** A worker could not run a request, e.g. because Womtool threw. */
+  public static class WorkerFailedException extends IOException {
+    public WorkerFailedException(String message) {
+      super(message);
+    }
+  }
+
+  public static void writeRequest(DataOutputStream out, Request request) throws IOException {
+    if (request instanceof ParseRequest parse) {
+      out.writeByte(PARSE);
+      writeString(out, parse.mainPath());
+      writeBytes(out, parse.mainSource());
+      writeBytes(out, parse.dependencies());
+    } else {
+      out.writeByte(PING);
+    }
+    out.flush();
+  }
+
+  /** Read the next request, or return null if the server has closed the worker's stdin. */
+  public static @Nullable Request readRequest(DataInputStream in) throws IOException {
+    int type = in.read();
+    return switch (type) {
+      case -1 -> null;
+      case PING -> new Ping();
+      case PARSE -> new ParseRequest(readString(in), readBytes(in), readBytes(in));
+      default -> throw new IOException("Unknown request type " + type);
+    };
+  }
+
+  public static void writeReady(DataOutputStream out, Ready ready) throws IOException {
+    out.writeByte(READY);
+    out.writeLong(ready.coldParseMillis());
+    out.writeLong(ready.warmParseMillis());
+    out.flush();
+  }
+
+  public static Ready readReady(DataInputStream in) throws IOException {
+    expect(in, READY);
+    return new Ready(in.readLong(), in.readLong());
+  }
+
+  public static void writePong(DataOutputStream out) throws IOException {
+    out.writeByte(PONG);
+    out.flush();
+  }
+
+  public static void readPong(DataInputStream in) throws IOException {
+    expect(in, PONG);
+  }
+
+  public static void writeResult(DataOutputStream out, ParseResult result) throws IOException {
+    out.writeByte(PARSED);
+    out.writeInt(result.errors().size());
+    for (String error : result.errors()) {
+      writeString(out, error);
+    }
+    writeMap(out, result.inputs());
+    writeMap(out, result.outputs());
+    out.writeLong(result.allocatedBytes());
+    out.flush();
+  }
+
+  public static void writeFailure(DataOutputStream out, String message) throws IOException {
+    out.writeByte(FAILED);
+    writeString(out, message);
+    out.flush();
+  }
+
+  /**
+   * Read the answer to a {@link ParseRequest}.
+   *
+   * @throws WorkerFailedException if the worker could not parse the workflow
+   */
+  public static ParseResult readResult(DataInputStream in) throws IOException {
+    expect(in, PARSED);
+    int errorCount = in.readInt();
+    List<String> errors = new ArrayList<>(errorCount);
+    for (int i = 0; i < errorCount; i++) {
+      errors.add(readString(in));
+    }
+    return new ParseResult(errors, readMap(in), readMap(in), in.readLong());
+  }
+
+  private static void expect(DataInputStream in, byte expected) throws IOException {
+    byte type = in.readByte();
+    if (type == FAILED) {
+      throw new WorkerFailedException(readString(in));
+    }
+    if (type != expected) {
+      throw new IOException("Expected frame type %d but got %d".formatted(expected, type));
+    }
+  }
+
+  private static void writeBytes(DataOutputStream out, @Nullable byte[] bytes) throws IOException {
+    if (bytes == null) {
+      out.writeInt(-1);
+      return;
+    }
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static @Nullable byte[] readBytes(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  // DataOutputStream.writeUTF is limited to 64 KiB, which a Womtool error can exceed.
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    writeBytes(out, string.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = readBytes(in);
+    if (bytes == null) {
+      throw new IOException("Unexpected null string");
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeMap(DataOutputStream out, @Nullable Map<String, String> map)
+      throws IOException {
+    if (map == null) {
+      out.writeInt(-1);
+      return;
+    }
+    out.writeInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      writeString(out, entry.getKey());
+      writeString(out, entry.getValue());
+    }
+  }
+
+  private static @Nullable Map<String, String> readMap(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    if (size < 0) {
+      return null;
+    }
+    Map<String, String> map = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      map.put(readString(in), readString(in));
+    }
+    return map;
+  }
+}
@@ -0,0 +1,88 @@
+package bio.terra.axonserver.wdlworker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseRequest;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseResult;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.Ready;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+
+public class WdlParserTest {
+  private static final String MAIN =
+      """
+      version 1.0
+      import "tasks/hello.wdl" as hello
+      workflow main {
+        input {
+          String name
+          Int? count
+        }
+        call hello.hello { input: name = name }
+        output {
+          String greeting = hello.greeting
+        }
+      }
+      """;
+  private static final String HELLO =
+      """
+      version 1.0
+      task hello {
+        input {
+          String name
+        }
+        command { echo "Hello ~{name}" }
+        output {
+          String greeting = read_string(stdout())
+        }
+      }
+      """;
+
+  private final WdlParser parser = new WdlParser();
+
+  private static ParseRequest request(String main, String hello) throws IOException {
+    ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    try (ZipOutputStream out = new ZipOutputStream(zip)) {
+      for (Map.Entry<String, String> file :
+          Map.of("main.wdl", main, "tasks/hello.wdl", hello).entrySet()) {
+        out.putNextEntry(new ZipEntry(file.getKey()));
+        out.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    return new ParseRequest("main.wdl", main.getBytes(StandardCharsets.UTF_8), zip.toByteArray());
+  }
+
+  @Test
+  void parse_validWorkflow_parsesInputsAndOutputs() throws IOException {
+    ParseResult result = parser.parse(request(MAIN, HELLO));
+
+    assertTrue(result.errors().isEmpty());
+    assertEquals(Set.of("main.name", "main.count"), result.inputs().keySet());
+    assertEquals(Map.of("main.greeting", "String"), result.outputs());
+  }
+
+  @Test
+  void parse_invalidWorkflow_reportsErrors() throws IOException {
+    ParseResult result = parser.parse(request(MAIN, HELLO.replace("task hello", "task goodbye")));
+
+    assertFalse(result.errors().isEmpty());
+    assertNull(result.inputs());
+  }
+
+  @Test
+  void warmUp_parsesSample() throws IOException {
+    Ready ready = parser.warmUp();
+
+    assertTrue(ready.coldParseMillis() >= 0);
+    assertTrue(ready.warmParseMillis() >= 0);
+  }
+}
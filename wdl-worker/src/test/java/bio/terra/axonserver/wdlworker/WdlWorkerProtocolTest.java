@@ -0,0 +1,76 @@
+package bio.terra.axonserver.wdlworker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseRequest;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.ParseResult;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.Ping;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.Ready;
+import bio.terra.axonserver.wdlworker.WdlWorkerProtocol.WorkerFailedException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class WdlWorkerProtocolTest {
+  private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+  private final DataOutputStream out = new DataOutputStream(bytes);
+
+  private DataInputStream written() {
+    return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+  }
+
+  @Test
+  void requests_roundTrip() throws IOException {
+    byte[] source = "version 1.0\nworkflow main {}\n".getBytes(StandardCharsets.UTF_8);
+    WdlWorkerProtocol.writeRequest(out, new Ping());
+    WdlWorkerProtocol.writeRequest(out, new ParseRequest("main.wdl", source, null));
+    WdlWorkerProtocol.writeRequest(out, new ParseRequest("main.wdl", source, new byte[] {1, 2}));
+
+    DataInputStream in = written();
+    assertInstanceOf(Ping.class, WdlWorkerProtocol.readRequest(in));
+    ParseRequest noDependencies = (ParseRequest) WdlWorkerProtocol.readRequest(in);
+    assertEquals("main.wdl", noDependencies.mainPath());
+    assertArrayEquals(source, noDependencies.mainSource());
+    assertNull(noDependencies.dependencies());
+    ParseRequest withDependencies = (ParseRequest) WdlWorkerProtocol.readRequest(in);
+    assertArrayEquals(new byte[] {1, 2}, withDependencies.dependencies());
+    assertNull(WdlWorkerProtocol.readRequest(in));
+  }
+
+  @Test
+  void responses_roundTrip() throws IOException {
+    ParseResult valid =
+        new ParseResult(List.of(), Map.of("main.name", "String"), Map.of(), 1 << 20);
+    // Longer than DataOutputStream.writeUTF allows.
+    ParseResult invalid = new ParseResult(List.of("x".repeat(100_000)), null, null, -1);
+    WdlWorkerProtocol.writeReady(out, new Ready(3000, 100));
+    WdlWorkerProtocol.writePong(out);
+    WdlWorkerProtocol.writeResult(out, valid);
+    WdlWorkerProtocol.writeResult(out, invalid);
+
+    DataInputStream in = written();
+    assertEquals(new Ready(3000, 100), WdlWorkerProtocol.readReady(in));
+    WdlWorkerProtocol.readPong(in);
+    assertEquals(valid, WdlWorkerProtocol.readResult(in));
+    assertEquals(invalid, WdlWorkerProtocol.readResult(in));
+  }
+
+  @Test
+  void readResult_failure_throws() throws IOException {
+    WdlWorkerProtocol.writeFailure(out, "Womtool threw");
+
+    WorkerFailedException e =
+        assertThrows(WorkerFailedException.class, () -> WdlWorkerProtocol.readResult(written()));
+    assertEquals("Womtool threw", e.getMessage());
+  }
+}